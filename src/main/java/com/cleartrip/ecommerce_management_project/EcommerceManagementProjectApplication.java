@@ -4,10 +4,12 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EntityScan("com.cleartrip.ecommerce_management_project.model")
 @EnableJpaRepositories("com.cleartrip.ecommerce_management_project.repository")
+@EnableScheduling
 public class EcommerceManagementProjectApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,71 @@
+package com.cleartrip.ecommerce_management_project.cache;
+
+import com.cleartrip.ecommerce_management_project.catalog.CatalogVersions;
+import com.cleartrip.ecommerce_management_project.dto.CacheStats;
+import com.cleartrip.ecommerce_management_project.event.ProductChangeEvent;
+import com.cleartrip.ecommerce_management_project.event.StockChangeEvent;
+import com.cleartrip.ecommerce_management_project.model.Product;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// read-through cache in front of product lookups by id
+@Component
+public class ProductCache {
+    private final TinyLfuCache<Long, Product> cache;
+
+    public ProductCache(@Value("${product.cache.maximum-size:10000}") int maximumSize,
+                        @Value("${product.cache.ttl:10m}") Duration ttl) {
+        this.cache = new TinyLfuCache<>(maximumSize, ttl);
+    }
+
+    public Optional<Product> get(Long id, Function<Long, Optional<Product>> loader) {
+        return Optional.ofNullable(cache.get(id, key -> loader.apply(key).orElse(null)));
+    }
+
+    // products by id, those not cached loaded with one call
+    public Map<Long, Product> getAll(Collection<Long> ids, Function<List<Long>, List<Product>> loader) {
+        return cache.getAll(ids, misses -> loader.apply(misses).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity())));
+    }
+
+    public Optional<Product> getIfPresent(Long id) {
+        return Optional.ofNullable(cache.getIfPresent(id));
+    }
+
+    public void put(Product product) {
+        cache.put(product.getId(), product);
+    }
+
+    public void invalidate(Long id) {
+        cache.invalidate(id);
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    // dropping the cached product once a write to it has committed
+    @Order(CatalogVersions.READ_MODEL_ORDER)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChange(ProductChangeEvent event) {
+        if (event.getType() != ProductChangeEvent.Type.LOADED) {
+            invalidate(event.getProductId());
+        }
+    }
+
+    // the cached product carries its inventory, so stock writes invalidate it too
+    @Order(CatalogVersions.READ_MODEL_ORDER)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockChange(StockChangeEvent event) {
+        invalidate(event.getProductId());
+    }
+}
@@ -0,0 +1,58 @@
+package com.cleartrip.ecommerce_management_project.cache;
+
+import com.cleartrip.ecommerce_management_project.catalog.CatalogVersions;
+import com.cleartrip.ecommerce_management_project.dto.CacheStats;
+import com.cleartrip.ecommerce_management_project.event.ProductChangeEvent;
+import com.cleartrip.ecommerce_management_project.event.StockChangeEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Function;
+
+// read-through cache of stock levels by product id, for availability checks that only
+// need the quantity. entries are dropped by every committed stock or product write, the
+// ttl bounds how stale a level written some other way can get
+@Component
+public class StockLevelCache {
+    private final TinyLfuCache<Long, Integer> cache;
+
+    public StockLevelCache(@Value("${inventory.stock-cache.maximum-size:10000}") int maximumSize,
+                           @Value("${inventory.stock-cache.ttl:1m}") Duration ttl) {
+        this.cache = new TinyLfuCache<>(maximumSize, ttl);
+    }
+
+    public Optional<Integer> get(Long productId, Function<Long, Optional<Integer>> loader) {
+        return Optional.ofNullable(cache.get(productId, key -> loader.apply(key).orElse(null)));
+    }
+
+    // the cached level, null when there is none, without loading it
+    public Integer peek(Long productId) {
+        return cache.peek(productId);
+    }
+
+    public void invalidate(Long productId) {
+        cache.invalidate(productId);
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    @Order(CatalogVersions.READ_MODEL_ORDER)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockChange(StockChangeEvent event) {
+        invalidate(event.getProductId());
+    }
+
+    // product saves cascade to the inventory row, and deletes remove it
+    @Order(CatalogVersions.READ_MODEL_ORDER)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChange(ProductChangeEvent event) {
+        if (event.getType() != ProductChangeEvent.Type.LOADED) {
+            invalidate(event.getProductId());
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.cleartrip.ecommerce_management_project.cache;
+
+import com.cleartrip.ecommerce_management_project.dto.CacheStats;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+// bounded cache with LRU ordering and TinyLFU admission: when the cache is full,
+// a newly loaded entry only replaces the least recently used one if its key has
+// been requested more often, so a scan of cold keys cannot flush the hot ones
+public class TinyLfuCache<K, V> {
+    private final int maximumSize;
+    private final long ttlNanos;
+    private final LongSupplier clock;
+
+    private final FrequencySketch sketch;
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    // bumped by every invalidation, so a load that raced with one is not cached
+    private long generation;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+
+    public TinyLfuCache(int maximumSize, Duration ttl) {
+        this(maximumSize, ttl, System::nanoTime);
+    }
+
+    TinyLfuCache(int maximumSize, Duration ttl, LongSupplier clock) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("Cache size must be positive");
+        }
+        this.maximumSize = maximumSize;
+        this.ttlNanos = ttl.toNanos();
+        this.clock = clock;
+        this.sketch = new FrequencySketch(maximumSize);
+    }
+
+    // value for the key, loading it on a miss; null results are not cached
+    public V get(K key, Function<K, V> loader) {
+        long loadGeneration;
+        synchronized (this) {
+            V cached = lookup(key);
+            if (cached != null) {
+                return cached;
+            }
+            loadGeneration = generation;
+        }
+        V loaded = loader.apply(key);
+        if (loaded != null) {
+            synchronized (this) {
+                if (generation == loadGeneration) {
+                    admit(key, loaded);
+                }
+            }
+        }
+        return loaded;
+    }
+
+    // values for the keys, loading all the misses with one call of the loader. as with
+    // get, the loaded values are not cached when an invalidation raced with the load
+    public Map<K, V> getAll(Collection<K> keys, Function<List<K>, Map<K, V>> loader) {
+        Map<K, V> found = new HashMap<>();
+        List<K> missing = new ArrayList<>();
+        long loadGeneration;
+        synchronized (this) {
+            for (K key : keys) {
+                V cached = lookup(key);
+                if (cached != null) {
+                    found.put(key, cached);
+                } else {
+                    missing.add(key);
+                }
+            }
+            loadGeneration = generation;
+        }
+        if (missing.isEmpty()) {
+            return found;
+        }
+        Map<K, V> loaded = loader.apply(missing);
+        synchronized (this) {
+            if (generation == loadGeneration) {
+                loaded.forEach(this::admit);
+            }
+        }
+        found.putAll(loaded);
+        return found;
+    }
+
+    public synchronized V getIfPresent(K key) {
+        return lookup(key);
+    }
+
+    // the live value of key without counting an access, for scans that must not
+    // sway admission or the hit rate
+    public synchronized V peek(K key) {
+        Entry<V> entry = entries.get(key);
+        return entry != null && entry.expiresAt - clock.getAsLong() > 0 ? entry.value : null;
+    }
+
+    public synchronized void put(K key, V value) {
+        admit(key, value);
+    }
+
+    public synchronized void invalidate(K key) {
+        generation++;
+        entries.remove(key);
+    }
+
+    public synchronized void invalidateAll() {
+        generation++;
+        entries.clear();
+    }
+
+    public synchronized CacheStats stats() {
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), rejections.sum(), entries.size(), maximumSize);
+    }
+
+    private V lookup(K key) {
+        sketch.increment(key);
+        Entry<V> entry = entries.get(key);
+        if (entry != null && entry.expiresAt - clock.getAsLong() > 0) {
+            hits.increment();
+            return entry.value;
+        }
+        if (entry != null) {
+            entries.remove(key);
+        }
+        misses.increment();
+        return null;
+    }
+
+    private void admit(K key, V value) {
+        Entry<V> entry = new Entry<>(value, clock.getAsLong() + ttlNanos);
+        if (entries.containsKey(key) || entries.size() < maximumSize) {
+            entries.put(key, entry);
+            return;
+        }
+        Iterator<Map.Entry<K, Entry<V>>> eldest = entries.entrySet().iterator();
+        Map.Entry<K, Entry<V>> victim = eldest.next();
+        boolean victimExpired = victim.getValue().expiresAt - clock.getAsLong() <= 0;
+        if (!victimExpired && sketch.frequency(key) <= sketch.frequency(victim.getKey())) {
+            rejections.increment();
+            return;
+        }
+        eldest.remove();
+        evictions.increment();
+        entries.put(key, entry);
+    }
+
+    private record Entry<V>(V value, long expiresAt) {
+    }
+}
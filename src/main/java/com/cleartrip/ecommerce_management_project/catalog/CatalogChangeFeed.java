@@ -0,0 +1,266 @@
+package com.cleartrip.ecommerce_management_project.catalog;
+
+import com.cleartrip.ecommerce_management_project.dto.CatalogChange;
+import com.cleartrip.ecommerce_management_project.event.ProductChangeEvent;
+import com.cleartrip.ecommerce_management_project.event.StockChangeEvent;
+import com.cleartrip.ecommerce_management_project.model.Product;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// server-sent event feed of committed product and stock changes.
+// every change gets the next sequence number and is kept in a ring of the latest
+// ones. subscribers do not get a copy: each one is a cursor into the ring, drained
+// in small batches by a shared pool of sender threads, so memory stays bounded no
+// matter how many subscribers there are and a slow one never holds up a write.
+// a subscriber the ring has overtaken, or one resuming from ids the ring no longer
+// holds, gets a reset event telling it to re-read the catalog
+@Component
+public class CatalogChangeFeed {
+    static final String CHANGE_EVENT = "change";
+    static final String RESET_EVENT = "reset";
+
+    // changes sent to one subscriber before its sender thread moves on to another
+    private static final int SEND_BATCH_SIZE = 64;
+
+    // sequences restart on every boot, the epoch in the event ids tells them apart
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+    private final CatalogChange[] history;
+    private long latestSequence;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final int maxSubscribers;
+    private final long timeoutMillis;
+    private final Executor senders;
+
+    @Autowired
+    public CatalogChangeFeed(@Value("${catalog.changes.history:10000}") int historySize,
+                             @Value("${catalog.changes.max-subscribers:256}") int maxSubscribers,
+                             @Value("${catalog.changes.timeout:30m}") Duration timeout,
+                             @Value("${catalog.changes.sender-threads:4}") int senderThreads) {
+        this(historySize, maxSubscribers, timeout, Executors.newFixedThreadPool(senderThreads, senderThreadFactory()));
+    }
+
+    CatalogChangeFeed(int historySize, int maxSubscribers, Duration timeout, Executor senders) {
+        if (historySize < 1) {
+            throw new IllegalArgumentException("Change feed history must hold at least one change");
+        }
+        this.history = new CatalogChange[historySize];
+        this.maxSubscribers = maxSubscribers;
+        this.timeoutMillis = timeout.toMillis();
+        this.senders = senders;
+    }
+
+    // runs after the caches and indexes have caught up, so a subscriber
+    // reacting to a change reads the new state
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChange(ProductChangeEvent event) {
+        switch (event.getType()) {
+            case CREATED -> publish(CatalogChange.Type.PRODUCT_CREATED, event.getProductId(), event.getProduct(), null, null);
+            case UPDATED -> publish(CatalogChange.Type.PRODUCT_UPDATED, event.getProductId(), event.getProduct(), null, null);
+            case DELETED -> publish(CatalogChange.Type.PRODUCT_DELETED, event.getProductId(), null, null, null);
+            default -> {
+                // the startup load is not a change
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockChange(StockChangeEvent event) {
+        publish(CatalogChange.Type.STOCK_CHANGED, event.getProductId(), null, event.getDelta(), event.getQuantity());
+    }
+
+    // subscribing from the change after lastEventId, or from now on without one
+    public SseEmitter subscribe(String lastEventId) {
+        return register(lastEventId, new SseEmitter(timeoutMillis));
+    }
+
+    SseEmitter register(String lastEventId, SseEmitter emitter) {
+        if (subscribers.size() >= maxSubscribers) {
+            throw new IllegalStateException("Too many change feed subscribers");
+        }
+        Subscriber subscriber = new Subscriber(emitter);
+        synchronized (this) {
+            subscriber.sent = latestSequence;
+            if (lastEventId != null) {
+                Long resumeFrom = parseEventId(lastEventId);
+                if (resumeFrom != null && resumeFrom <= latestSequence) {
+                    subscriber.sent = resumeFrom;
+                } else {
+                    subscriber.sent = -1;
+                }
+            }
+        }
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(error -> subscriber.close());
+        subscribers.add(subscriber);
+        subscriber.wake();
+        return emitter;
+    }
+
+    // keeps idle connections open through proxies and notices clients that went away
+    @Scheduled(fixedDelayString = "${catalog.changes.heartbeat-interval:15s}")
+    public void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.heartbeatDue = true;
+            subscriber.wake();
+        }
+    }
+
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        if (senders instanceof ExecutorService executorService) {
+            executorService.shutdownNow();
+        }
+    }
+
+    private void publish(CatalogChange.Type type, Long productId, Product product, Integer delta, Integer quantity) {
+        synchronized (this) {
+            latestSequence++;
+            history[(int) (latestSequence % history.length)] =
+                    new CatalogChange(latestSequence, type, productId, product, delta, quantity, Instant.now());
+        }
+        subscribers.forEach(Subscriber::wake);
+    }
+
+    // the next changes after sent, or a reset when they are no longer all in the ring
+    private synchronized Batch batchAfter(long sent) {
+        long oldest = latestSequence - history.length + 1;
+        if (sent < 0 || sent + 1 < oldest) {
+            return new Batch(List.of(), latestSequence);
+        }
+        List<CatalogChange> changes = new ArrayList<>();
+        for (long sequence = sent + 1; sequence <= latestSequence && changes.size() < SEND_BATCH_SIZE; sequence++) {
+            changes.add(history[(int) (sequence % history.length)]);
+        }
+        return new Batch(changes, null);
+    }
+
+    private synchronized boolean hasChangesAfter(long sent) {
+        return sent < latestSequence;
+    }
+
+    private String eventId(long sequence) {
+        return epoch + "-" + sequence;
+    }
+
+    // sequence of an event id from this boot, null for anything else
+    private Long parseEventId(String eventId) {
+        String prefix = epoch + "-";
+        if (!eventId.startsWith(prefix)) {
+            return null;
+        }
+        try {
+            return Long.parseLong(eventId.substring(prefix.length()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static ThreadFactory senderThreadFactory() {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "catalog-changes-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    // resetTo is the sequence to continue from after a reset, null for none
+    private record Batch(List<CatalogChange> changes, Long resetTo) {
+    }
+
+    private final class Subscriber implements Runnable {
+        private final SseEmitter emitter;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private volatile boolean closed;
+        private volatile boolean heartbeatDue;
+
+        // last sequence sent, -1 while a reset is owed. only the draining thread
+        // touches it once registered, the scheduled flag orders those threads
+        private long sent;
+
+        Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        void wake() {
+            if (!closed && scheduled.compareAndSet(false, true)) {
+                senders.execute(this);
+            }
+        }
+
+        void close() {
+            closed = true;
+            subscribers.remove(this);
+        }
+
+        @Override
+        public void run() {
+            try {
+                drain();
+            } catch (IOException | IllegalStateException e) {
+                // the client is gone or the emitter already completed
+                close();
+            } finally {
+                scheduled.set(false);
+            }
+            // a change published while this batch was sent found the flag still set
+            if (!closed && (heartbeatDue || hasChangesAfter(sent))) {
+                wake();
+            }
+        }
+
+        private void drain() throws IOException {
+            Batch batch = batchAfter(sent);
+            if (batch.resetTo() != null) {
+                emitter.send(SseEmitter.event()
+                        .id(eventId(batch.resetTo()))
+                        .name(RESET_EVENT)
+                        .data(Map.of("sequence", batch.resetTo()), MediaType.APPLICATION_JSON));
+                sent = batch.resetTo();
+                heartbeatDue = false;
+                return;
+            }
+            for (CatalogChange change : batch.changes()) {
+                emitter.send(SseEmitter.event()
+                        .id(eventId(change.getSequence()))
+                        .name(CHANGE_EVENT)
+                        .data(change, MediaType.APPLICATION_JSON));
+                sent = change.getSequence();
+            }
+            if (!batch.changes().isEmpty()) {
+                heartbeatDue = false;
+            } else if (heartbeatDue) {
+                heartbeatDue = false;
+                emitter.send(SseEmitter.event().comment("heartbeat"));
+            }
+        }
+    }
+}
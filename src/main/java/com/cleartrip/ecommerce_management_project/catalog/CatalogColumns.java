@@ -0,0 +1,244 @@
+package com.cleartrip.ecommerce_management_project.catalog;
+
+import com.cleartrip.ecommerce_management_project.dto.CatalogRow;
+import com.cleartrip.ecommerce_management_project.event.ProductChangeEvent;
+import com.cleartrip.ecommerce_management_project.model.Product;
+import com.cleartrip.ecommerce_management_project.service.CatalogLoader;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// column-oriented copy of the catalog: ids, prices and dictionary-encoded
+// categories in primitive arrays, so filters and price sorts are tight loops
+// over memory instead of SQL queries and entity hydration
+@Component
+public class CatalogColumns {
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private double[] prices = new double[INITIAL_CAPACITY];
+    private int[] categoryCodes = new int[INITIAL_CAPACITY];
+    private int rows;
+    private final BitSet deleted = new BitSet();
+    private final Map<Long, Integer> rowById = new HashMap<>();
+
+    private final List<String> categories = new ArrayList<>();
+    private final Map<String, Integer> categoryCodesByName = new HashMap<>();
+
+    // rows ordered by (price, id), rebuilt on the first sorted read after a write
+    private int[] priceOrder = new int[0];
+    private boolean priceOrderStale;
+
+    private final CatalogLoader catalogLoader;
+
+    public CatalogColumns(CatalogLoader catalogLoader) {
+        this.catalogLoader = catalogLoader;
+    }
+
+    // refreshing the columns on product writes and the startup load
+    @Order(CatalogVersions.READ_MODEL_ORDER)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChange(ProductChangeEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (catalogLoader.isSuperseded(event)) {
+                return;
+            }
+            if (event.isDelete()) {
+                remove(event.getProductId());
+            } else {
+                Product product = event.getProduct();
+                put(product.getId(), product.getCategory(), product.getPrice());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void put(long productId, String category, double price) {
+        lock.writeLock().lock();
+        try {
+            int code = categoryCodesByName.computeIfAbsent(category, name -> {
+                categories.add(name);
+                return categories.size() - 1;
+            });
+            Integer row = rowById.get(productId);
+            if (row == null) {
+                ensureCapacity(rows + 1);
+                row = rows++;
+                ids[row] = productId;
+                rowById.put(productId, row);
+            }
+            prices[row] = price;
+            categoryCodes[row] = code;
+            priceOrderStale = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long productId) {
+        lock.writeLock().lock();
+        try {
+            Integer row = rowById.remove(productId);
+            if (row == null) {
+                return;
+            }
+            deleted.set(row);
+            priceOrderStale = true;
+            if (deleted.cardinality() > Math.max(INITIAL_CAPACITY, rows / 4)) {
+                compact();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return rowById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // one page of the rows matching the filter; order is null for catalog
+    // order, or "asc"/"desc" for price order with the id as tie-breaker
+    public Page<CatalogRow> query(String category, Double minPrice, Double maxPrice, String order, int page, int size) {
+        PageRequest pageRequest = PageRequest.of(page, size);
+        boolean sorted = order != null;
+        boolean descending = "desc".equalsIgnoreCase(order);
+        if (sorted) {
+            refreshPriceOrder();
+        }
+        lock.readLock().lock();
+        try {
+            int code = -1;
+            if (category != null) {
+                Integer known = categoryCodesByName.get(category);
+                if (known == null) {
+                    return new PageImpl<>(List.of(), pageRequest, 0);
+                }
+                code = known;
+            }
+            double min = minPrice != null ? minPrice : Double.NEGATIVE_INFINITY;
+            double max = maxPrice != null ? maxPrice : Double.POSITIVE_INFINITY;
+            long offset = pageRequest.getOffset();
+
+            List<CatalogRow> content = new ArrayList<>(size);
+            long matched = 0;
+            int count = sorted ? priceOrder.length : rows;
+            for (int i = 0; i < count; i++) {
+                int row = sorted ? priceOrder[descending ? count - 1 - i : i] : i;
+                if (deleted.get(row) || (code >= 0 && categoryCodes[row] != code)
+                        || prices[row] < min || prices[row] > max) {
+                    continue;
+                }
+                if (matched >= offset && content.size() < size) {
+                    content.add(new CatalogRow(ids[row], categories.get(categoryCodes[row]), prices[row]));
+                }
+                matched++;
+            }
+            return new PageImpl<>(content, pageRequest, matched);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void refreshPriceOrder() {
+        lock.readLock().lock();
+        try {
+            if (!priceOrderStale) {
+                return;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        lock.writeLock().lock();
+        try {
+            if (priceOrderStale) {
+                int[] order = new int[rows - deleted.cardinality()];
+                int next = 0;
+                for (int row = 0; row < rows; row++) {
+                    if (!deleted.get(row)) {
+                        order[next++] = row;
+                    }
+                }
+                sortByPrice(order);
+                priceOrder = order;
+                priceOrderStale = false;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // merge sort of row numbers by (price, id), without boxing
+    private void sortByPrice(int[] order) {
+        int[] buffer = new int[order.length];
+        for (int width = 1; width < order.length; width *= 2) {
+            for (int from = 0; from < order.length - width; from += 2 * width) {
+                int middle = from + width;
+                int to = Math.min(from + 2 * width, order.length);
+                int left = from;
+                int right = middle;
+                int out = from;
+                while (left < middle && right < to) {
+                    buffer[out++] = compareRows(order[left], order[right]) <= 0 ? order[left++] : order[right++];
+                }
+                while (left < middle) {
+                    buffer[out++] = order[left++];
+                }
+                while (right < to) {
+                    buffer[out++] = order[right++];
+                }
+                System.arraycopy(buffer, from, order, from, to - from);
+            }
+        }
+    }
+
+    private int compareRows(int a, int b) {
+        int byPrice = Double.compare(prices[a], prices[b]);
+        return byPrice != 0 ? byPrice : Long.compare(ids[a], ids[b]);
+    }
+
+    // dropping deleted rows while keeping the order of the others
+    private void compact() {
+        int next = 0;
+        for (int row = 0; row < rows; row++) {
+            if (deleted.get(row)) {
+                continue;
+            }
+            ids[next] = ids[row];
+            prices[next] = prices[row];
+            categoryCodes[next] = categoryCodes[row];
+            rowById.put(ids[next], next);
+            next++;
+        }
+        rows = next;
+        deleted.clear();
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= ids.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, ids.length + (ids.length >> 1));
+        ids = Arrays.copyOf(ids, newCapacity);
+        prices = Arrays.copyOf(prices, newCapacity);
+        categoryCodes = Arrays.copyOf(categoryCodes, newCapacity);
+    }
+}
@@ -0,0 +1,68 @@
+package com.cleartrip.ecommerce_management_project.catalog;
+
+import com.cleartrip.ecommerce_management_project.event.ProductChangeEvent;
+import com.cleartrip.ecommerce_management_project.event.StockChangeEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// monotonically increasing versions of the whole catalog and of each product,
+// used as strong ETags so unchanged reads can be answered with 304
+@Component
+public class CatalogVersions {
+    // order of the listeners keeping the caches and indexes in step with writes.
+    // the version listeners below keep the default lowest precedence, so a version
+    // is only bumped once everything it vouches for has been refreshed
+    public static final int READ_MODEL_ORDER = 0;
+
+    // versions restart at zero on every boot, the epoch keeps old tags from matching
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong catalogVersion = new AtomicLong();
+
+    // catalog version at the last change of a product, absent when unchanged since boot
+    private final Map<Long, Long> productVersions = new ConcurrentHashMap<>();
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChange(ProductChangeEvent event) {
+        if (event.getType() != ProductChangeEvent.Type.LOADED) {
+            bump(event.getProductId());
+        }
+    }
+
+    // products are served with their inventory, so stock writes change them too
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockChange(StockChangeEvent event) {
+        bump(event.getProductId());
+    }
+
+    public void bump(Long productId) {
+        long version = catalogVersion.incrementAndGet();
+        productVersions.merge(productId, version, Math::max);
+    }
+
+    // the startup load finished. catalog reads made while it ran may have been answered
+    // from the partly warmed read models, so their tags must stop matching
+    public void catalogLoaded() {
+        catalogVersion.incrementAndGet();
+    }
+
+    public long catalogVersion() {
+        return catalogVersion.get();
+    }
+
+    public long productVersion(Long productId) {
+        return productVersions.getOrDefault(productId, 0L);
+    }
+
+    // tag of any read over the catalog, to be taken before the read is made
+    public String catalogETag() {
+        return "\"" + epoch + "-" + catalogVersion() + "\"";
+    }
+
+    // tag of a single product, to be taken before the product is loaded
+    public String productETag(Long productId) {
+        return "\"" + epoch + "-" + productId + "-" + productVersion(productId) + "\"";
+    }
+}
@@ -0,0 +1,194 @@
+package com.cleartrip.ecommerce_management_project.catalog;
+
+import com.cleartrip.ecommerce_management_project.dto.FacetCounts;
+import com.cleartrip.ecommerce_management_project.event.ProductChangeEvent;
+import com.cleartrip.ecommerce_management_project.model.Product;
+import com.cleartrip.ecommerce_management_project.service.CatalogLoader;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// category and price-bucket counts kept up to date on every product write,
+// so facet requests never have to GROUP BY the products table
+@Component
+public class FacetIndex {
+    private final double[] boundaries;
+    private final CatalogLoader catalogLoader;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Entry> products = new HashMap<>();
+    private final Map<String, long[]> bucketCounts = new HashMap<>();
+    private final Map<String, TreeMap<Double, Integer>> pricesByCategory = new HashMap<>();
+
+    public FacetIndex(CatalogLoader catalogLoader,
+                      @Value("${catalog.facets.price-buckets:0,25,50,100,250,500,1000}") double[] boundaries) {
+        if (boundaries.length == 0) {
+            throw new IllegalArgumentException("At least one price bucket boundary is required");
+        }
+        this.boundaries = boundaries.clone();
+        Arrays.sort(this.boundaries);
+        this.catalogLoader = catalogLoader;
+    }
+
+    // keeping the counts in step with product writes and the startup load
+    @Order(CatalogVersions.READ_MODEL_ORDER)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChange(ProductChangeEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (catalogLoader.isSuperseded(event)) {
+                return;
+            }
+            if (event.isDelete()) {
+                remove(event.getProductId());
+            } else {
+                Product product = event.getProduct();
+                put(product.getId(), product.getCategory(), product.getPrice());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void put(Long productId, String category, double price) {
+        lock.writeLock().lock();
+        try {
+            Entry previous = products.put(productId, new Entry(category, price));
+            if (previous != null) {
+                uncount(previous);
+            }
+            bucketCounts.computeIfAbsent(category, key -> new long[boundaries.length])[bucketOf(price)]++;
+            pricesByCategory.computeIfAbsent(category, key -> new TreeMap<>()).merge(price, 1, Integer::sum);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            Entry previous = products.remove(productId);
+            if (previous != null) {
+                uncount(previous);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // category counts honour the price filter and bucket counts honour the category
+    // filter, so the sidebar keeps showing the alternatives to the current selection
+    public FacetCounts facets(String category, Double minPrice, Double maxPrice) {
+        lock.readLock().lock();
+        try {
+            return facets(bucketCounts, pricesByCategory, category, minPrice, maxPrice);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // the same counts from (category, price, products) rows grouped in the table,
+    // for while the index is still being warmed
+    public FacetCounts facetsOf(List<Object[]> grouped, String category, Double minPrice, Double maxPrice) {
+        Map<String, long[]> groupedBuckets = new HashMap<>();
+        Map<String, TreeMap<Double, Integer>> groupedPrices = new HashMap<>();
+        for (Object[] row : grouped) {
+            String name = (String) row[0];
+            double price = ((Number) row[1]).doubleValue();
+            int products = ((Number) row[2]).intValue();
+            groupedBuckets.computeIfAbsent(name, key -> new long[boundaries.length])[bucketOf(price)] += products;
+            groupedPrices.computeIfAbsent(name, key -> new TreeMap<>()).merge(price, products, Integer::sum);
+        }
+        return facets(groupedBuckets, groupedPrices, category, minPrice, maxPrice);
+    }
+
+    private FacetCounts facets(Map<String, long[]> categoryBuckets, Map<String, TreeMap<Double, Integer>> categoryPrices,
+                               String category, Double minPrice, Double maxPrice) {
+        Map<String, Long> categories = new TreeMap<>();
+        categoryPrices.forEach((name, prices) -> {
+            long count = minPrice == null && maxPrice == null
+                    ? Arrays.stream(categoryBuckets.get(name)).sum()
+                    : countInRange(prices, minPrice, maxPrice);
+            if (count > 0) {
+                categories.put(name, count);
+            }
+        });
+
+        long[] counts = new long[boundaries.length];
+        if (category != null) {
+            long[] categoryCounts = categoryBuckets.get(category);
+            if (categoryCounts != null) {
+                System.arraycopy(categoryCounts, 0, counts, 0, counts.length);
+            }
+        } else {
+            for (long[] categoryCounts : categoryBuckets.values()) {
+                for (int i = 0; i < counts.length; i++) {
+                    counts[i] += categoryCounts[i];
+                }
+            }
+        }
+        List<FacetCounts.PriceBucket> priceBuckets = new ArrayList<>(boundaries.length);
+        for (int i = 0; i < boundaries.length; i++) {
+            Double to = i + 1 < boundaries.length ? boundaries[i + 1] : null;
+            priceBuckets.add(new FacetCounts.PriceBucket(boundaries[i], to, counts[i]));
+        }
+
+        long total;
+        if (category != null) {
+            total = categories.getOrDefault(category, 0L);
+        } else {
+            total = categories.values().stream().mapToLong(Long::longValue).sum();
+        }
+        return new FacetCounts(categories, priceBuckets, total);
+    }
+
+    private void uncount(Entry entry) {
+        long[] counts = bucketCounts.get(entry.category);
+        if (--counts[bucketOf(entry.price)] == 0 && Arrays.stream(counts).allMatch(count -> count == 0)) {
+            bucketCounts.remove(entry.category);
+        }
+        TreeMap<Double, Integer> prices = pricesByCategory.get(entry.category);
+        prices.computeIfPresent(entry.price, (price, count) -> count == 1 ? null : count - 1);
+        if (prices.isEmpty()) {
+            pricesByCategory.remove(entry.category);
+        }
+    }
+
+    // prices below the first boundary are counted in the first bucket
+    private int bucketOf(double price) {
+        int position = Arrays.binarySearch(boundaries, price);
+        int bucket = position >= 0 ? position : -position - 2;
+        return Math.max(bucket, 0);
+    }
+
+    private static long countInRange(TreeMap<Double, Integer> prices, Double minPrice, Double maxPrice) {
+        if (minPrice != null && maxPrice != null && minPrice > maxPrice) {
+            return 0;
+        }
+        NavigableMap<Double, Integer> range = prices;
+        if (minPrice != null) {
+            range = range.tailMap(minPrice, true);
+        }
+        if (maxPrice != null) {
+            range = range.headMap(maxPrice, true);
+        }
+        long count = 0;
+        for (int value : range.values()) {
+            count += value;
+        }
+        return count;
+    }
+
+    private record Entry(String category, double price) {
+    }
+}
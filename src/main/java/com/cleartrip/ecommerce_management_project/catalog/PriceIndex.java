@@ -0,0 +1,212 @@
+package com.cleartrip.ecommerce_management_project.catalog;
+
+import com.cleartrip.ecommerce_management_project.event.ProductChangeEvent;
+import com.cleartrip.ecommerce_management_project.model.Product;
+import com.cleartrip.ecommerce_management_project.service.CatalogLoader;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+// product ids ordered by (price, id), for the whole catalog and per category.
+// skip lists give O(log n + k) top-n reads without locking and O(log n) moves when a
+// price changes. counts and pages past the first are binary searched in sorted arrays
+// of a set instead, O(log n + k), rebuilt on the first such read after a write to it
+@Component
+public class PriceIndex {
+    private final NavigableSet<Entry> all = new ConcurrentSkipListSet<>();
+    private final Map<String, NavigableSet<Entry>> byCategory = new ConcurrentHashMap<>();
+
+    // sorted arrays of the sets, dropped by the writers when the set changes
+    private volatile Sorted sortedAll;
+    private final Map<String, Sorted> sortedByCategory = new ConcurrentHashMap<>();
+
+    // where each product currently sits, only touched by the synchronized writers
+    private final Map<Long, Placement> placements = new HashMap<>();
+
+    private final CatalogLoader catalogLoader;
+
+    public PriceIndex(CatalogLoader catalogLoader) {
+        this.catalogLoader = catalogLoader;
+    }
+
+    // following product writes and the startup load
+    @Order(CatalogVersions.READ_MODEL_ORDER)
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onProductChange(ProductChangeEvent event) {
+        if (catalogLoader.isSuperseded(event)) {
+            return;
+        }
+        if (event.isDelete()) {
+            remove(event.getProductId());
+        } else {
+            Product product = event.getProduct();
+            put(product.getId(), product.getCategory(), product.getPrice());
+        }
+    }
+
+    public synchronized void put(long productId, String category, double price) {
+        Placement placement = new Placement(category, new Entry(price, productId));
+        Placement previous = placements.put(productId, placement);
+        if (placement.equals(previous)) {
+            return;
+        }
+        if (previous != null) {
+            unplace(previous);
+        }
+        all.add(placement.entry());
+        byCategory.computeIfAbsent(category, key -> new ConcurrentSkipListSet<>()).add(placement.entry());
+        sortedAll = null;
+        sortedByCategory.remove(category);
+    }
+
+    public synchronized void remove(long productId) {
+        Placement previous = placements.remove(productId);
+        if (previous != null) {
+            unplace(previous);
+        }
+    }
+
+    // ids of the products priced within the bounds, cheapest or dearest first.
+    // a null category means the whole catalog and a null bound means unbounded
+    public List<Long> range(String category, Double minPrice, Double maxPrice, boolean descending, long offset, int limit) {
+        if (offset > 0) {
+            return sorted(category).range(minPrice, maxPrice, descending, offset, limit);
+        }
+        NavigableSet<Entry> view = view(category, minPrice, maxPrice);
+        if (descending) {
+            view = view.descendingSet();
+        }
+        List<Long> ids = new ArrayList<>(Math.max(0, Math.min(limit, 1024)));
+        Iterator<Entry> entries = view.iterator();
+        while (ids.size() < limit && entries.hasNext()) {
+            ids.add(entries.next().id());
+        }
+        return ids;
+    }
+
+    // ids of the n cheapest or n dearest products
+    public List<Long> top(String category, boolean dearest, int n) {
+        return range(category, null, null, dearest, 0, n);
+    }
+
+    // number of products priced within the bounds
+    public int count(String category, Double minPrice, Double maxPrice) {
+        return sorted(category).count(minPrice, maxPrice);
+    }
+
+    private Sorted sorted(String category) {
+        Sorted sorted = category == null ? sortedAll : sortedByCategory.get(category);
+        return sorted != null ? sorted : sort(category);
+    }
+
+    // under the writers' lock, so the arrays match the set they are stored for
+    private synchronized Sorted sort(String category) {
+        Sorted sorted = category == null ? sortedAll : sortedByCategory.get(category);
+        if (sorted != null) {
+            return sorted;
+        }
+        NavigableSet<Entry> set = category == null ? all : byCategory.getOrDefault(category, new ConcurrentSkipListSet<>());
+        double[] prices = new double[set.size()];
+        long[] ids = new long[prices.length];
+        int i = 0;
+        for (Entry entry : set) {
+            prices[i] = entry.price();
+            ids[i++] = entry.id();
+        }
+        sorted = new Sorted(prices, ids);
+        if (category == null) {
+            sortedAll = sorted;
+        } else {
+            sortedByCategory.put(category, sorted);
+        }
+        return sorted;
+    }
+
+    private NavigableSet<Entry> view(String category, Double minPrice, Double maxPrice) {
+        NavigableSet<Entry> set = category == null ? all : byCategory.get(category);
+        if (set == null || (minPrice != null && maxPrice != null && minPrice > maxPrice)) {
+            return new ConcurrentSkipListSet<>();
+        }
+        if (minPrice != null && maxPrice != null) {
+            return set.subSet(new Entry(minPrice, Long.MIN_VALUE), true, new Entry(maxPrice, Long.MAX_VALUE), true);
+        } else if (minPrice != null) {
+            return set.tailSet(new Entry(minPrice, Long.MIN_VALUE), true);
+        } else if (maxPrice != null) {
+            return set.headSet(new Entry(maxPrice, Long.MAX_VALUE), true);
+        }
+        return set;
+    }
+
+    private void unplace(Placement placement) {
+        all.remove(placement.entry());
+        NavigableSet<Entry> categorySet = byCategory.get(placement.category());
+        if (categorySet != null) {
+            categorySet.remove(placement.entry());
+        }
+        sortedAll = null;
+        sortedByCategory.remove(placement.category());
+    }
+
+    private record Entry(double price, long id) implements Comparable<Entry> {
+        @Override
+        public int compareTo(Entry other) {
+            int byPrice = Double.compare(price, other.price);
+            return byPrice != 0 ? byPrice : Long.compare(id, other.id);
+        }
+    }
+
+    private record Placement(String category, Entry entry) {
+    }
+
+    // the entries of a set in order, as parallel arrays
+    private record Sorted(double[] prices, long[] ids) {
+        int count(Double minPrice, Double maxPrice) {
+            return Math.max(0, to(maxPrice) - from(minPrice));
+        }
+
+        List<Long> range(Double minPrice, Double maxPrice, boolean descending, long offset, int limit) {
+            int from = from(minPrice);
+            int to = to(maxPrice);
+            long size = Math.max(0, Math.min((long) to - from - offset, limit));
+            List<Long> range = new ArrayList<>((int) size);
+            for (int i = 0; i < size; i++) {
+                range.add(ids[(int) (descending ? to - 1 - offset - i : from + offset + i)]);
+            }
+            return range;
+        }
+
+        // index of the first entry priced at minPrice or more
+        private int from(Double minPrice) {
+            return minPrice == null ? 0 : search(minPrice, false);
+        }
+
+        // index past the last entry priced at maxPrice or less
+        private int to(Double maxPrice) {
+            return maxPrice == null ? prices.length : search(maxPrice, true);
+        }
+
+        // first index whose price is above the given one, or not below it
+        private int search(double price, boolean above) {
+            int low = 0;
+            int high = prices.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                int compared = Double.compare(prices[middle], price);
+                if (compared < 0 || (above && compared == 0)) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+    }
+}
@@ -1,13 +1,28 @@
 package com.cleartrip.ecommerce_management_project.controller;
 
+import com.cleartrip.ecommerce_management_project.dto.ReconciliationStatus;
+import com.cleartrip.ecommerce_management_project.dto.StockAdjustment;
+import com.cleartrip.ecommerce_management_project.dto.StockAdjustmentResult;
+import com.cleartrip.ecommerce_management_project.dto.StockUpdatePage;
+import com.cleartrip.ecommerce_management_project.inventory.InventoryReconciler;
+import com.cleartrip.ecommerce_management_project.inventory.StockEventDispatcher;
 import com.cleartrip.ecommerce_management_project.model.Inventory;
-import com.cleartrip.ecommerce_management_project.model.Product;
+import com.cleartrip.ecommerce_management_project.model.UserRole;
 import com.cleartrip.ecommerce_management_project.service.InventoryService;
+import com.cleartrip.ecommerce_management_project.service.CatalogImportService;
 import com.cleartrip.ecommerce_management_project.service.ProductService;
+import com.cleartrip.ecommerce_management_project.service.StockAdjustmentService;
+import com.cleartrip.ecommerce_management_project.service.StockExportService;
+import com.cleartrip.ecommerce_management_project.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/inventory")
@@ -18,9 +33,28 @@ public class InventoryController {
     @Autowired
     private ProductService productService;
 
-    // adding stock to the inventory
+    @Autowired
+    private StockAdjustmentService stockAdjustmentService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private StockEventDispatcher stockEventDispatcher;
+
+    @Autowired
+    private StockExportService stockExportService;
+
+    @Autowired
+    private InventoryReconciler inventoryReconciler;
+
+    // adding stock to the inventory, the product is only loaded to create its first row
     @PostMapping("/{productId}")
     public ResponseEntity<?> addStock(@PathVariable Long productId, @RequestParam Integer quantity) {
+        Optional<Inventory> inventory = inventoryService.addStock(productId, quantity);
+        if (inventory.isPresent()) {
+            return ResponseEntity.ok(inventory.get());
+        }
         return productService.getProductById(productId)
                 .map(product -> ResponseEntity.ok(inventoryService.addStock(product, quantity)))
                 .orElse(ResponseEntity.notFound().build());
@@ -29,8 +63,7 @@ public class InventoryController {
     // update stock in the inventory
     @PutMapping("/{productId}")
     public ResponseEntity<?> updateStock(@PathVariable Long productId, @RequestParam Integer quantity) {
-        return productService.getProductById(productId)
-                .flatMap(product -> inventoryService.updateStock(product, quantity))
+        return inventoryService.updateStock(productId, quantity)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
@@ -38,26 +71,136 @@ public class InventoryController {
     // delete stock from the inventory
     @DeleteMapping("/{productId}")
     public ResponseEntity<?> deleteStock(@PathVariable Long productId) {
-        return productService.getProductById(productId)
-                .map(product -> {
-                    boolean deleted = inventoryService.deleteStock(product);
-                    return deleted ? ResponseEntity.ok().build() : ResponseEntity.notFound().build();
-                })
+        boolean deleted = inventoryService.deleteStock(productId);
+        return deleted ? ResponseEntity.ok().build() : ResponseEntity.notFound().build();
+    }
+
+    // sharding the stock of a flash-sale product over count rows, or changing their number
+    @PutMapping("/{productId}/shards")
+    public ResponseEntity<?> enableSharding(@PathVariable Long productId, @RequestParam int count,
+                                            @RequestParam Long userId) {
+        if (!isAdmin(userId)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        try {
+            return inventoryService.enableSharding(productId, count)
+                    .map(inventory -> ResponseEntity.ok(shardingOf(productId, inventory)))
+                    .orElse(ResponseEntity.notFound().build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    // moving the stock of a sharded product back onto its single row
+    @DeleteMapping("/{productId}/shards")
+    public ResponseEntity<?> disableSharding(@PathVariable Long productId, @RequestParam Long userId) {
+        if (!isAdmin(userId)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return inventoryService.disableSharding(productId)
+                .map(inventory -> ResponseEntity.ok(shardingOf(productId, inventory)))
                 .orElse(ResponseEntity.notFound().build());
     }
 
-    // get all inventory
+    // bulk stock adjustment for warehouse feeds: absolute levels (SET) or changes (DELTA)
+    // for many products at once, with a result per product
+    @PostMapping("/bulk")
+    public ResponseEntity<?> adjustStock(@RequestBody List<StockAdjustment> adjustments) {
+        try {
+            StockAdjustmentResult result = stockAdjustmentService.adjust(adjustments);
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    // get all inventory, loading every row; /scroll and /export read just the levels
     @GetMapping
     public ResponseEntity<List<Inventory>> getAllInventory() {
         return ResponseEntity.ok(inventoryService.getAllInventory());
     }
 
+    // scrolling the stock levels with a cursor, e.g. maxQuantity=10 for what runs low
+    @GetMapping("/scroll")
+    public ResponseEntity<?> scrollStockLevels(
+            @RequestParam(required = false) Integer minQuantity,
+            @RequestParam(required = false) Integer maxQuantity,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int size) {
+        try {
+            return ResponseEntity.ok(inventoryService.scrollStockLevels(minQuantity, maxQuantity, cursor, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    // streaming the stock levels as NDJSON, one {productId, quantity} per line
+    @GetMapping(value = "/export", produces = CatalogImportService.NDJSON)
+    public ResponseEntity<StreamingResponseBody> exportStockLevels(
+            @RequestParam(required = false) Integer minQuantity,
+            @RequestParam(required = false) Integer maxQuantity) {
+        StreamingResponseBody body = output -> stockExportService.exportNdjson(output, minQuantity, maxQuantity);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(CatalogImportService.NDJSON))
+                .body(body);
+    }
+
+    // stock updates after cursor, debounced per product. a reset page means reading the
+    // full inventory once, then following on from its cursor
+    @GetMapping("/events")
+    public ResponseEntity<StockUpdatePage> getStockUpdates(@RequestParam(required = false) String cursor,
+                                                           @RequestParam(defaultValue = "500") int limit) {
+        return ResponseEntity.ok(stockEventDispatcher.updatesAfter(cursor, Math.max(1, Math.min(limit, 1000))));
+    }
+
+    // starting a reconciliation of the stock against order history and the stock level
+    // cache in the background, resuming the last one if it did not finish
+    @PostMapping("/reconciliation")
+    public ResponseEntity<?> startReconciliation(@RequestParam Long userId) {
+        if (!isAdmin(userId)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        if (!inventoryReconciler.start()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("message", "A reconciliation is already running"));
+        }
+        return ResponseEntity.accepted().body(inventoryReconciler.status());
+    }
+
+    // progress of the current or last reconciliation, with the path of its report
+    @GetMapping("/reconciliation")
+    public ResponseEntity<?> getReconciliation(@RequestParam Long userId) {
+        if (!isAdmin(userId)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        ReconciliationStatus status = inventoryReconciler.status();
+        return status == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(status);
+    }
+
     // get inventory by product
     @GetMapping("/{productId}")
     public ResponseEntity<?> getInventoryByProduct(@PathVariable Long productId) {
-        return productService.getProductById(productId)
-                .flatMap(inventoryService::getInventoryByProduct)
+        return inventoryService.getInventoryByProductId(productId)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
+
+    // available to promise: stock on hand minus what carts hold
+    @GetMapping("/{productId}/available")
+    public ResponseEntity<?> getAvailableToPromise(@PathVariable Long productId) {
+        return inventoryService.getAvailableToPromise(productId)
+                .map(available -> ResponseEntity.ok(Map.of("productId", productId, "available", available)))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    private boolean isAdmin(Long userId) {
+        return userService.getUserById(userId).filter(user -> user.getRole() == UserRole.ADMIN).isPresent();
+    }
+
+    private Map<String, Object> shardingOf(Long productId, Inventory inventory) {
+        return Map.of("productId", productId,
+                "shards", inventoryService.getShardCount(productId),
+                "quantity", inventory.getQuantity());
+    }
 }
@@ -1,12 +1,31 @@
 package com.cleartrip.ecommerce_management_project.controller;
 
+import com.cleartrip.ecommerce_management_project.catalog.CatalogChangeFeed;
+import com.cleartrip.ecommerce_management_project.catalog.CatalogVersions;
+import com.cleartrip.ecommerce_management_project.dto.CacheStats;
+import com.cleartrip.ecommerce_management_project.dto.CatalogRow;
+import com.cleartrip.ecommerce_management_project.dto.FacetCounts;
+import com.cleartrip.ecommerce_management_project.dto.ImportResult;
+import com.cleartrip.ecommerce_management_project.dto.ProductSuggestion;
+import com.cleartrip.ecommerce_management_project.dto.ProductSummary;
 import com.cleartrip.ecommerce_management_project.model.Product;
+import com.cleartrip.ecommerce_management_project.service.CatalogExportService;
+import com.cleartrip.ecommerce_management_project.service.CatalogImportService;
 import com.cleartrip.ecommerce_management_project.service.ProductService;
 import com.cleartrip.ecommerce_management_project.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
 import org.springframework.http.HttpStatus;
 // import com.cleartrip.ecommerce.model.User;
 import com.cleartrip.ecommerce_management_project.model.UserRole;
@@ -21,6 +40,18 @@ public class ProductController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private CatalogImportService catalogImportService;
+
+    @Autowired
+    private CatalogExportService catalogExportService;
+
+    @Autowired
+    private CatalogVersions catalogVersions;
+
+    @Autowired
+    private CatalogChangeFeed catalogChangeFeed;
+
     // creating a new product
     @PostMapping
     public ResponseEntity<Product> createProduct(@RequestBody Product product, @RequestParam Long userId) {
@@ -30,6 +61,45 @@ public class ProductController {
                 .orElse(ResponseEntity.status(HttpStatus.FORBIDDEN).build());
     }
 
+    // bulk importing products from an NDJSON or CSV feed
+    @PostMapping(value = "/import", consumes = {CatalogImportService.NDJSON, "text/csv"})
+    public ResponseEntity<ImportResult> importProducts(
+            @RequestParam Long userId,
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            InputStream body) throws IOException {
+        if (userService.getUserById(userId).filter(user -> user.getRole() == UserRole.ADMIN).isEmpty()) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        boolean csv = "csv".equalsIgnoreCase(MediaType.parseMediaType(contentType).getSubtype());
+        return ResponseEntity.ok(csv ? catalogImportService.importCsv(body) : catalogImportService.importNdjson(body));
+    }
+
+    // streaming the whole catalog as NDJSON
+    @GetMapping(value = "/export", produces = CatalogImportService.NDJSON)
+    public ResponseEntity<StreamingResponseBody> exportProducts(WebRequest request) {
+        String eTag = catalogVersions.catalogETag();
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        StreamingResponseBody body = catalogExportService::exportNdjson;
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .contentType(MediaType.parseMediaType(CatalogImportService.NDJSON))
+                .body(body);
+    }
+
+    // live feed of product and stock changes as server-sent events. reconnecting
+    // with Last-Event-ID replays the changes missed in between
+    @GetMapping(value = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamChanges(
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        try {
+            return ResponseEntity.ok(catalogChangeFeed.subscribe(lastEventId));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+
     // updating the product
     @PutMapping("/{id}")
     public ResponseEntity<?> updateProduct(@PathVariable Long id, @RequestBody Product product, @RequestParam Long userId) {
@@ -56,22 +126,70 @@ public class ProductController {
     @GetMapping
     public ResponseEntity<Page<Product>> getAllProducts(
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
-        return ResponseEntity.ok(productService.getAllProducts(page, size));
+            @RequestParam(defaultValue = "10") int size,
+            WebRequest request) {
+        return ifModified(request, () -> productService.getAllProducts(page, size));
     }
 
     // getting the product by the id of product
     @GetMapping("/{id}")
-    public ResponseEntity<?> getProductById(@PathVariable Long id) {
+    public ResponseEntity<?> getProductById(@PathVariable Long id, WebRequest request) {
+        String eTag = catalogVersions.productETag(id);
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
         return productService.getProductById(id)
-                .map(ResponseEntity::ok)
+                .map(product -> {
+                    productService.recordView(product.getId());
+                    return ResponseEntity.ok().eTag(eTag).body(product);
+                })
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    // getting several products by id with one call, in the order of the ids
+    @GetMapping("/batch")
+    public ResponseEntity<?> getProductsByIds(@RequestParam List<Long> ids, WebRequest request) {
+        try {
+            return ifModified(request, () -> productService.getProductsByIds(ids));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    // statistics of the product cache
+    @GetMapping("/cache/stats")
+    public ResponseEntity<CacheStats> getCacheStats() {
+        return ResponseEntity.ok(productService.getCacheStats());
+    }
+
+    // typeahead suggestions for the search box, most viewed products first.
+    // rankings move with views rather than catalog versions, so no ETag here
+    @GetMapping("/autocomplete")
+    public ResponseEntity<List<ProductSuggestion>> autocomplete(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(productService.autocomplete(q, limit));
+    }
+
+    // searching the products by the name with help of pagination,
+    // optionally tolerating up to maxEdits typos per word
+    @GetMapping("/search")
+    public ResponseEntity<Page<Product>> searchProducts(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "false") boolean fuzzy,
+            @RequestParam(defaultValue = "2") int maxEdits,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size,
+            WebRequest request) {
+        return ifModified(request, () -> fuzzy
+                ? productService.fuzzySearchProducts(q, maxEdits, page, size)
+                : productService.searchProducts(q, page, size));
+    }
+
     // searching the product by the category
     @GetMapping("/search/category")
-    public ResponseEntity<List<Product>> searchByCategory(@RequestParam String category) {
-        return ResponseEntity.ok(productService.searchByCategory(category));
+    public ResponseEntity<List<Product>> searchByCategory(@RequestParam String category, WebRequest request) {
+        return ifModified(request, () -> productService.searchByCategory(category));
     }
 
     // filtering the products with help of pagination
@@ -81,13 +199,101 @@ public class ProductController {
             @RequestParam(required = false) Double minPrice,
             @RequestParam(required = false) Double maxPrice,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
-        return ResponseEntity.ok(productService.filterProducts(category, minPrice, maxPrice, page, size));
+            @RequestParam(defaultValue = "10") int size,
+            WebRequest request) {
+        return ifModified(request, () -> productService.filterProducts(category, minPrice, maxPrice, page, size));
+    }
+
+    // product summaries for list pages, with optional filters, price order and pagination
+    @GetMapping("/summaries")
+    public ResponseEntity<Page<ProductSummary>> getProductSummaries(
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) Double minPrice,
+            @RequestParam(required = false) Double maxPrice,
+            @RequestParam(required = false) String order,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size,
+            WebRequest request) {
+        return ifModified(request, () -> productService.getProductSummaries(category, minPrice, maxPrice, order, page, size));
+    }
+
+    // product summaries of a category
+    @GetMapping("/summaries/category")
+    public ResponseEntity<List<ProductSummary>> searchSummariesByCategory(@RequestParam String category, WebRequest request) {
+        return ifModified(request, () -> productService.searchSummariesByCategory(category));
+    }
+
+    // product summaries sorted by the price
+    @GetMapping("/summaries/sort")
+    public ResponseEntity<List<ProductSummary>> sortProductSummaries(@RequestParam String order, WebRequest request) {
+        return ifModified(request, () -> productService.sortProductSummaries(order));
+    }
+
+    // filtering and sorting the catalog snapshot with help of pagination
+    @GetMapping("/catalog")
+    public ResponseEntity<Page<CatalogRow>> queryCatalog(
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) Double minPrice,
+            @RequestParam(required = false) Double maxPrice,
+            @RequestParam(required = false) String order,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size,
+            WebRequest request) {
+        return ifModified(request, () -> productService.queryCatalog(category, minPrice, maxPrice, order, page, size));
+    }
+
+    // facet counts for the filter sidebar
+    @GetMapping("/filter/facets")
+    public ResponseEntity<FacetCounts> getFacets(
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) Double minPrice,
+            @RequestParam(required = false) Double maxPrice,
+            WebRequest request) {
+        return ifModified(request, () -> productService.getFacets(category, minPrice, maxPrice));
+    }
+
+    // scrolling the products with a cursor instead of page numbers
+    @GetMapping("/scroll")
+    public ResponseEntity<?> scrollProducts(
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) Double minPrice,
+            @RequestParam(required = false) Double maxPrice,
+            @RequestParam(defaultValue = "id") String sort,
+            @RequestParam(defaultValue = "asc") String order,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            WebRequest request) {
+        try {
+            return ifModified(request, () -> productService.scrollProducts(category, minPrice, maxPrice, sort, order, cursor, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
     }
 
     // sorting the products by the price
     @GetMapping("/sort")
-    public ResponseEntity<List<Product>>sortProducts(@RequestParam(required = true) String order){
-        return ResponseEntity.ok(productService.sortProducts(order));
+    public ResponseEntity<List<Product>>sortProducts(@RequestParam(required = true) String order, WebRequest request){
+        return ifModified(request, () -> productService.sortProducts(order));
+    }
+
+    // the n cheapest or dearest products, optionally within a category
+    @GetMapping("/top")
+    public ResponseEntity<List<Product>> topProductsByPrice(
+            @RequestParam(required = false) String category,
+            @RequestParam(defaultValue = "asc") String order,
+            @RequestParam(defaultValue = "10") int n,
+            WebRequest request) {
+        return ifModified(request, () -> productService.topProductsByPrice(category, order, n));
+    }
+
+    // answering with 304 when the client already holds the current catalog version.
+    // the tag is taken before the read, so a write racing with it can only make
+    // the next request miss, never pin stale content under a newer tag
+    private <T> ResponseEntity<T> ifModified(WebRequest request, Supplier<T> body) {
+        String eTag = catalogVersions.catalogETag();
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(eTag).body(body.get());
     }
 }
@@ -0,0 +1,24 @@
+package com.cleartrip.ecommerce_management_project.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheStats {
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    // loads that were not admitted because the entry they would replace was used more
+    private long rejections;
+    private int size;
+    private int maximumSize;
+
+    public double getHitRate() {
+        long requests = hits + misses;
+        return requests == 0 ? 0.0 : (double) hits / requests;
+    }
+}
@@ -0,0 +1,34 @@
+package com.cleartrip.ecommerce_management_project.dto;
+
+import com.cleartrip.ecommerce_management_project.model.Product;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.Instant;
+
+// committed product or stock change, as sent on the catalog change feed
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CatalogChange {
+    public enum Type {
+        PRODUCT_CREATED,
+        PRODUCT_UPDATED,
+        PRODUCT_DELETED,
+        STOCK_CHANGED
+    }
+
+    // position in the feed, also the SSE event id to resume from
+    private long sequence;
+    private Type type;
+    private Long productId;
+
+    // state after the change for created and updated products, otherwise null
+    private Product product;
+
+    // for stock changes, each null when the write did not know it
+    private Integer delta;
+    private Integer quantity;
+
+    private Instant committedAt;
+}
@@ -0,0 +1,15 @@
+package com.cleartrip.ecommerce_management_project.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// product row read from the columnar catalog snapshot
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CatalogRow {
+    private Long id;
+    private String category;
+    private Double price;
+}
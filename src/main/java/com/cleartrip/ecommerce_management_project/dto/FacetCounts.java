@@ -0,0 +1,34 @@
+package com.cleartrip.ecommerce_management_project.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+// sidebar counts for a catalog filter
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FacetCounts {
+    // products per category, with the price filter applied
+    private Map<String, Long> categories;
+
+    // products per price bucket, with the category filter applied
+    private List<PriceBucket> priceBuckets;
+
+    // products matching the whole filter
+    private long total;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class PriceBucket {
+        private Double from;
+
+        // null for the open-ended last bucket
+        private Double to;
+        private long count;
+    }
+}
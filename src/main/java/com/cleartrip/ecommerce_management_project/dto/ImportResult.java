@@ -0,0 +1,28 @@
+package com.cleartrip.ecommerce_management_project.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// outcome of a bulk import; errors are capped so a bad feed cannot fill the heap
+@Data
+@NoArgsConstructor
+public class ImportResult {
+    private long processed;
+    private long imported;
+    private long failed;
+    private List<RowError> errors = new ArrayList<>();
+    private boolean errorsTruncated;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowError {
+        // line of the feed where the row starts
+        private long line;
+        private String message;
+    }
+}
@@ -0,0 +1,19 @@
+package com.cleartrip.ecommerce_management_project.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// one product of a catalog feed; quantity is optional and leaves the stock
+// of an existing product untouched when missing
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductImportRow {
+    private Long id;
+    private String name;
+    private String description;
+    private Double price;
+    private String category;
+    private Integer quantity;
+}
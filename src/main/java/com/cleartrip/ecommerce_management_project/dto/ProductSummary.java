@@ -0,0 +1,18 @@
+package com.cleartrip.ecommerce_management_project.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// list view of a product, read with a JPQL constructor expression so the
+// inventory is joined in the same statement and the description is never loaded
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSummary {
+    private Long id;
+    private String name;
+    private Double price;
+    private String category;
+    private Boolean inStock;
+}
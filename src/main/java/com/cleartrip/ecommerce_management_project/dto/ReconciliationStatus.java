@@ -0,0 +1,32 @@
+package com.cleartrip.ecommerce_management_project.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.Instant;
+
+// progress of the current or last inventory reconciliation run
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReconciliationStatus {
+    public enum State {
+        RUNNING,
+        COMPLETED,
+
+        // the run stopped on an error or shutdown, the next one resumes from its checkpoint
+        FAILED
+    }
+
+    private String runId;
+    private State state;
+    private Instant startedAt;
+    private Instant finishedAt;
+
+    // products are checked in id order, all up to this one are in the report
+    private Long checkedThrough;
+    private long products;
+    private long discrepancies;
+    private String report;
+    private String error;
+}
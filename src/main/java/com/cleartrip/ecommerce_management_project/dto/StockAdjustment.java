@@ -0,0 +1,20 @@
+package com.cleartrip.ecommerce_management_project.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// one line of a warehouse stock feed: a new stock level, or a change to the current one
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockAdjustment {
+    public enum Type {
+        SET,
+        DELTA
+    }
+
+    private Long productId;
+    private Type type;
+    private Integer quantity;
+}
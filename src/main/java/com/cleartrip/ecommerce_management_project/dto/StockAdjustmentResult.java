@@ -0,0 +1,40 @@
+package com.cleartrip.ecommerce_management_project.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// outcome of a bulk stock adjustment, one entry per product in the order they first
+// appeared, then one per line that could not be read
+@Data
+@NoArgsConstructor
+public class StockAdjustmentResult {
+    public enum Status {
+        APPLIED,
+        // no inventory row for the product
+        NOT_FOUND,
+        // the deltas would have taken the stock below zero or past Integer.MAX_VALUE,
+        // nothing was changed
+        INSUFFICIENT_STOCK,
+        INVALID
+    }
+
+    private long applied;
+    private long failed;
+    private List<SkuResult> results = new ArrayList<>();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class SkuResult {
+        private Long productId;
+        private Status status;
+
+        // stock level after the batch, null when the product has no inventory row
+        private Integer quantity;
+        private String message;
+    }
+}
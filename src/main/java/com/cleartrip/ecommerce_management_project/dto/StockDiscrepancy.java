@@ -0,0 +1,28 @@
+package com.cleartrip.ecommerce_management_project.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// a product whose stock is not what it should be, one line of a reconciliation report
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockDiscrepancy {
+    public enum Type {
+        // the stock differs from the last run's, less what was ordered and plus what was
+        // written since
+        ORDER_DRIFT,
+
+        // the stock is below zero
+        NEGATIVE_STOCK,
+
+        // the stock level cache holds another level than the table, expected is the table's
+        CACHE_DRIFT
+    }
+
+    private Long productId;
+    private Type type;
+    private Integer expected;
+    private Integer actual;
+}
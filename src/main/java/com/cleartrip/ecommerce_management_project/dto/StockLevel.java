@@ -0,0 +1,19 @@
+package com.cleartrip.ecommerce_management_project.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// stock of a product, as listed and exported without loading the inventory entities
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockLevel {
+    private Long productId;
+    private Integer quantity;
+
+    // whether the quantity lies within [minQuantity, maxQuantity], either bound optional
+    public boolean within(Integer minQuantity, Integer maxQuantity) {
+        return (minQuantity == null || quantity >= minQuantity) && (maxQuantity == null || quantity <= maxQuantity);
+    }
+}
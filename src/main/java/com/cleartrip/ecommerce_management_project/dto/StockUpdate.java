@@ -0,0 +1,34 @@
+package com.cleartrip.ecommerce_management_project.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.Instant;
+
+// the stock changes of one product over one dispatch window, folded into one update
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockUpdate {
+    public enum Type {
+        CHANGED,
+
+        // the stock went down to the low-stock threshold or below it in this window
+        LOW_STOCK
+    }
+
+    private long sequence;
+    private Type type;
+    private Long productId;
+
+    // sum of the changes in the window, null when one of them set an absolute level
+    private Integer delta;
+
+    // stock when the window was dispatched, null when the product no longer has inventory
+    private Integer quantity;
+
+    // number of writes folded into this update
+    private int changes;
+
+    private Instant dispatchedAt;
+}
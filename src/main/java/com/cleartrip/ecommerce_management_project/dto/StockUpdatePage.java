@@ -0,0 +1,17 @@
+package com.cleartrip.ecommerce_management_project.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+// stock updates after a cursor. reset is set when the updates asked for are no longer
+// all kept, the full inventory has to be read once before continuing from cursor
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockUpdatePage {
+    private List<StockUpdate> updates;
+    private String cursor;
+    private boolean reset;
+}
@@ -0,0 +1,45 @@
+package com.cleartrip.ecommerce_management_project.event;
+
+import com.cleartrip.ecommerce_management_project.model.Product;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// published by ProductService (and the startup catalog load) so that the
+// in-memory catalog structures can follow every product write
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class ProductChangeEvent {
+    public enum Type {
+        LOADED,
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+
+    private final Type type;
+    private final Long productId;
+
+    // null for DELETED events
+    private final Product product;
+
+    public static ProductChangeEvent loaded(Product product) {
+        return new ProductChangeEvent(Type.LOADED, product.getId(), product);
+    }
+
+    public static ProductChangeEvent created(Product product) {
+        return new ProductChangeEvent(Type.CREATED, product.getId(), product);
+    }
+
+    public static ProductChangeEvent updated(Product product) {
+        return new ProductChangeEvent(Type.UPDATED, product.getId(), product);
+    }
+
+    public static ProductChangeEvent deleted(Long productId) {
+        return new ProductChangeEvent(Type.DELETED, productId, null);
+    }
+
+    public boolean isDelete() {
+        return type == Type.DELETED;
+    }
+}
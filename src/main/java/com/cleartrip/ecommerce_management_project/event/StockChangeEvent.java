@@ -0,0 +1,25 @@
+package com.cleartrip.ecommerce_management_project.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// published by InventoryService whenever the stock of a product changes
+@Getter
+@AllArgsConstructor
+public class StockChangeEvent {
+    private final Long productId;
+
+    // change applied to the stock level, null when the write set an absolute level
+    // without reading the previous one
+    private final Integer delta;
+
+    // stock level after the change, null when the write did not read it back
+    private final Integer quantity;
+
+    // stock taken by a checkout, which its order items account for
+    private final boolean checkout;
+
+    public StockChangeEvent(Long productId, Integer delta, Integer quantity) {
+        this(productId, delta, quantity, false);
+    }
+}
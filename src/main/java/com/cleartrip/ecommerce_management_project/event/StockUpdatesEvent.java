@@ -0,0 +1,14 @@
+package com.cleartrip.ecommerce_management_project.event;
+
+import com.cleartrip.ecommerce_management_project.dto.StockUpdate;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import java.util.List;
+
+// published by StockEventDispatcher on its own thread once per window with stock
+// changes, one update per product that changed
+@Getter
+@AllArgsConstructor
+public class StockUpdatesEvent {
+    private final List<StockUpdate> updates;
+}
@@ -0,0 +1,105 @@
+package com.cleartrip.ecommerce_management_project.inventory;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+// hashed timing wheel: a ring of buckets, one per tick, each holding the timeouts due
+// at that tick or a whole number of turns later. scheduling and cancelling are O(1)
+// and never block, and a tick only looks at its own bucket, however many timeouts
+// are pending. expiry is rounded up to the next tick.
+// any thread may schedule or cancel, advance is called by a single ticking thread
+final class HashedTimingWheel<T> {
+    private final long tickMillis;
+    private final long startMillis;
+    private final List<List<Timeout<T>>> buckets;
+    private final int mask;
+
+    // scheduled since the last tick, moved into their buckets by the ticking thread
+    private final Queue<Timeout<T>> scheduled = new ConcurrentLinkedQueue<>();
+
+    // next tick to process, only touched by the ticking thread
+    private long tick;
+
+    static final class Timeout<T> {
+        private final T value;
+        private final long deadlineMillis;
+        private long rounds;
+        private volatile boolean cancelled;
+
+        private Timeout(T value, long deadlineMillis) {
+            this.value = value;
+            this.deadlineMillis = deadlineMillis;
+        }
+
+        // the timeout stays in its bucket until that tick comes round and drops it
+        void cancel() {
+            cancelled = true;
+        }
+
+        boolean isCancelled() {
+            return cancelled;
+        }
+
+        T value() {
+            return value;
+        }
+    }
+
+    HashedTimingWheel(long tickMillis, int ticksPerWheel, long startMillis) {
+        if (tickMillis <= 0 || ticksPerWheel <= 0 || Integer.bitCount(ticksPerWheel) != 1) {
+            throw new IllegalArgumentException("Tick must be positive and ticks per wheel a power of two");
+        }
+        this.tickMillis = tickMillis;
+        this.startMillis = startMillis;
+        this.buckets = new ArrayList<>(ticksPerWheel);
+        for (int i = 0; i < ticksPerWheel; i++) {
+            buckets.add(new ArrayList<>());
+        }
+        this.mask = ticksPerWheel - 1;
+    }
+
+    Timeout<T> schedule(T value, long deadlineMillis) {
+        Timeout<T> timeout = new Timeout<>(value, deadlineMillis);
+        scheduled.add(timeout);
+        return timeout;
+    }
+
+    // running every tick up to nowMillis, returns the values that expired
+    synchronized List<T> advance(long nowMillis) {
+        List<T> expired = new ArrayList<>();
+        long lastTick = Math.floorDiv(nowMillis - startMillis, tickMillis);
+        while (tick <= lastTick) {
+            placeScheduled();
+            Iterator<Timeout<T>> bucket = buckets.get((int) (tick & mask)).iterator();
+            while (bucket.hasNext()) {
+                Timeout<T> timeout = bucket.next();
+                if (timeout.cancelled) {
+                    bucket.remove();
+                } else if (timeout.rounds > 0) {
+                    timeout.rounds--;
+                } else {
+                    bucket.remove();
+                    expired.add(timeout.value);
+                }
+            }
+            tick++;
+        }
+        return expired;
+    }
+
+    private void placeScheduled() {
+        Timeout<T> timeout;
+        while ((timeout = scheduled.poll()) != null) {
+            if (timeout.cancelled) {
+                continue;
+            }
+            // the first tick at or after the deadline, the current one when already due
+            long dueTick = Math.max(-Math.floorDiv(startMillis - timeout.deadlineMillis, tickMillis), tick);
+            timeout.rounds = (dueTick - tick) / buckets.size();
+            buckets.get((int) (dueTick & mask)).add(timeout);
+        }
+    }
+}
@@ -0,0 +1,580 @@
+package com.cleartrip.ecommerce_management_project.inventory;
+
+import com.cleartrip.ecommerce_management_project.cache.StockLevelCache;
+import com.cleartrip.ecommerce_management_project.dto.ReconciliationStatus;
+import com.cleartrip.ecommerce_management_project.dto.StockDiscrepancy;
+import com.cleartrip.ecommerce_management_project.event.StockChangeEvent;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+// checks the stock of every product against its order history and the stock level cache,
+// and writes what does not add up to a CSV report.
+// each run leaves a baseline per product in inventory_baseline: its stock and the units
+// ordered so far. the next run expects the stock to have gone down by what was ordered
+// since, and to have moved by what committed stock writes other than checkouts added to
+// the baseline meanwhile; a write setting the level outright leaves nothing to expect.
+// a discrepancy is reported once, the stock found becomes the next baseline. a product
+// whose stock is written while its chunk is checked may be read half way through the
+// write, so it keeps its baseline and is only checked for drift by a later run. with the
+// ledger that includes checkouts, which take from its counters before their orders commit.
+// products are checked in chunks by id, each read in a short read-only transaction while
+// a semaphore bounds the connections the run holds, and compared on a fork-join pool.
+// the report, the checkpoint and then the baselines advance in id order as chunks
+// complete, so a run cut short resumes after the last product it reported, and a crash
+// before the baselines of a chunk are written reports its discrepancies again next run
+@Component
+public class InventoryReconciler {
+    private static final String NEXT_CHUNK =
+            "SELECT product_id FROM inventory WHERE product_id > ? ORDER BY product_id LIMIT ?";
+
+    private static final String STOCK_LEVELS =
+            "SELECT i.product_id, i.quantity + (SELECT COALESCE(SUM(s.quantity), 0) FROM inventory_shard s " +
+            "WHERE s.product_id = i.product_id) FROM inventory i WHERE i.product_id > ? AND i.product_id <= ? " +
+            "ORDER BY i.product_id";
+
+    private static final String ORDERED_UNITS =
+            "SELECT product_id, SUM(quantity) FROM order_items WHERE product_id > ? AND product_id <= ? " +
+            "GROUP BY product_id";
+
+    private static final String BASELINES =
+            "SELECT product_id, quantity, ordered, adjusted, rebased FROM inventory_baseline " +
+            "WHERE product_id > ? AND product_id <= ?";
+
+    private static final String INSERT_BASELINE =
+            "INSERT INTO inventory_baseline (product_id, quantity, ordered, adjusted, rebased, checked_at) " +
+            "VALUES (?, ?, ?, 0, 0, ?)";
+
+    // the writes read are taken off rather than reset, those added meanwhile stay
+    private static final String UPDATE_BASELINE =
+            "UPDATE inventory_baseline SET quantity = ?, ordered = ?, adjusted = adjusted - ?, " +
+            "rebased = rebased - ?, checked_at = ? WHERE product_id = ?";
+
+    private static final String ADD_WRITES =
+            "UPDATE inventory_baseline SET adjusted = adjusted + ?, rebased = rebased + ? WHERE product_id = ?";
+
+    private static final String DELETE_BASELINE = "DELETE FROM inventory_baseline WHERE product_id = ?";
+
+    private static final String DELETE_BASELINES_AFTER = "DELETE FROM inventory_baseline WHERE product_id > ?";
+
+    private static final String REPORT_HEADER = "product_id,type,expected,actual\n";
+
+    private static final DateTimeFormatter RUN_ID =
+            DateTimeFormatter.ofPattern("yyyyMMdd-HHmmssSSS").withZone(ZoneOffset.UTC);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readTransaction;
+    private final TransactionTemplate writeTransaction;
+    private final StockLevelCache stockLevelCache;
+    // present when inventory.ledger.enabled is set, its counters are then the stock
+    private final Optional<StockLedger> stockLedger;
+    private final Path reportDirectory;
+    private final ReconciliationCheckpoint checkpoint;
+    private final int chunkSize;
+
+    private final ForkJoinPool pool;
+    // connections the run holds at once
+    private final Semaphore dbPermits;
+    // chunks handed to the pool and not yet reported, a slow one holds up the others
+    private final int maxPending;
+    private final ExecutorService driver = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "inventory-reconciliation");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // stock writes other than checkouts, not yet added to the baselines
+    private final Map<Long, Writes> writes = new ConcurrentHashMap<>();
+    // a chunk takes its writes and reads the baselines without a flush in between
+    private final ReadWriteLock writesLock = new ReentrantReadWriteLock();
+
+    // the current or last run, guarded by this
+    private Run run;
+    // the run going on, for the stock writes to be noted in
+    private volatile Run running;
+
+    @Autowired
+    public InventoryReconciler(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                               StockLevelCache stockLevelCache, Optional<StockLedger> stockLedger,
+                               @Value("${inventory.reconciliation.report-dir:data/reconciliation}") String reportDirectory,
+                               @Value("${inventory.reconciliation.chunk-size:1000}") int chunkSize,
+                               @Value("${inventory.reconciliation.parallelism:4}") int parallelism,
+                               @Value("${inventory.reconciliation.db-concurrency:2}") int dbConcurrency) {
+        if (chunkSize < 1 || parallelism < 1 || dbConcurrency < 1) {
+            throw new IllegalArgumentException("Reconciliation chunk size, parallelism and db concurrency must be positive");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        this.readTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.stockLevelCache = stockLevelCache;
+        this.stockLedger = stockLedger;
+        this.reportDirectory = Path.of(reportDirectory);
+        this.checkpoint = new ReconciliationCheckpoint(this.reportDirectory.resolve("checkpoint"));
+        this.chunkSize = chunkSize;
+        this.pool = new ForkJoinPool(parallelism);
+        this.dbPermits = new Semaphore(dbConcurrency);
+        this.maxPending = parallelism * 2;
+    }
+
+    // starting a run in the background, which resumes the last one when that did not
+    // finish. false when one is running already
+    public synchronized boolean start() {
+        if (run != null && run.state == ReconciliationStatus.State.RUNNING) {
+            return false;
+        }
+        Run started = new Run();
+        run = started;
+        running = started;
+        driver.execute(() -> execute(started));
+        return true;
+    }
+
+    @Scheduled(cron = "${inventory.reconciliation.cron:-}")
+    public void scheduledRun() {
+        start();
+    }
+
+    // the current or last run, null before the first
+    public synchronized ReconciliationStatus status() {
+        return run == null ? null : run.status();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockChange(StockChangeEvent event) {
+        if (!event.isCheckout()) {
+            Writes change = event.getDelta() == null ? new Writes(0, 1) : new Writes(event.getDelta(), 0);
+            writes.merge(event.getProductId(), change, Writes::plus);
+        }
+        Run current = running;
+        if (current != null && (!event.isCheckout() || stockLedger.isPresent())) {
+            current.written.put(event.getProductId(), System.nanoTime());
+        }
+    }
+
+    // adding the stock writes to the baselines, so they survive a restart
+    @Scheduled(fixedDelayString = "${inventory.reconciliation.flush-interval:5s}")
+    public void flushWrites() {
+        if (writes.isEmpty()) {
+            return;
+        }
+        writesLock.writeLock().lock();
+        try {
+            Map<Long, Writes> taken = take(new ArrayList<>(writes.keySet()));
+            List<Object[]> updates = new ArrayList<>(taken.size());
+            taken.forEach((productId, change) -> updates.add(new Object[]{change.delta(), change.rebased(), productId}));
+            try {
+                writeTransaction.executeWithoutResult(status -> {
+                    for (int from = 0; from < updates.size(); from += chunkSize) {
+                        jdbcTemplate.batchUpdate(ADD_WRITES, updates.subList(from, Math.min(from + chunkSize, updates.size())));
+                    }
+                });
+            } catch (RuntimeException e) {
+                restore(taken);
+                throw e;
+            }
+        } finally {
+            writesLock.writeLock().unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        synchronized (this) {
+            if (run != null) {
+                run.stopped = true;
+            }
+        }
+        driver.shutdownNow();
+        pool.shutdownNow();
+        // the writes would be missing from the baselines after a restart
+        flushWrites();
+    }
+
+    // what does not add up for one product: actual is its stock, cached the level the
+    // stock level cache holds for it. the baseline comes with the writes since added
+    static List<StockDiscrepancy> compare(long productId, int actual, long ordered, Baseline baseline, Integer cached) {
+        List<StockDiscrepancy> found = new ArrayList<>(0);
+        if (baseline != null && baseline.rebased() == 0) {
+            long expected = baseline.quantity() + (long) baseline.adjusted() - (ordered - baseline.ordered());
+            if (expected != actual) {
+                int clamped = (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, expected));
+                found.add(new StockDiscrepancy(productId, StockDiscrepancy.Type.ORDER_DRIFT, clamped, actual));
+            }
+        }
+        if (actual < 0) {
+            found.add(new StockDiscrepancy(productId, StockDiscrepancy.Type.NEGATIVE_STOCK, 0, actual));
+        }
+        if (cached != null && cached != actual) {
+            found.add(new StockDiscrepancy(productId, StockDiscrepancy.Type.CACHE_DRIFT, actual, cached));
+        }
+        return found;
+    }
+
+    private void execute(Run run) {
+        try {
+            open(run);
+            long after = run.checkedThrough;
+            long sequence = 0;
+            Semaphore pending = new Semaphore(maxPending);
+            while (!run.stopped) {
+                List<Long> productIds;
+                dbPermits.acquire();
+                try {
+                    productIds = jdbcTemplate.queryForList(NEXT_CHUNK, Long.class, after, chunkSize);
+                } finally {
+                    dbPermits.release();
+                }
+                if (productIds.isEmpty()) {
+                    break;
+                }
+                Chunk chunk = new Chunk(sequence++, after, productIds.get(productIds.size() - 1), productIds.size(),
+                        System.nanoTime());
+                pending.acquire();
+                pool.execute(() -> {
+                    try {
+                        reported(run, check(chunk));
+                    } catch (Exception e) {
+                        failed(run, e);
+                    } finally {
+                        pending.release();
+                    }
+                });
+                after = chunk.last();
+            }
+            pending.acquire(maxPending);
+            if (!run.stopped) {
+                // baselines of products past the last one with stock
+                jdbcTemplate.update(DELETE_BASELINES_AFTER, after);
+            }
+        } catch (Exception e) {
+            failed(run, e);
+        }
+        finish(run);
+    }
+
+    // what one chunk found, with the baselines it leaves once it is reported
+    private Checked check(Chunk chunk) throws InterruptedException {
+        Map<Long, Writes> taken;
+        Stock stock;
+        dbPermits.acquire();
+        writesLock.readLock().lock();
+        try {
+            taken = take(writes.keySet().stream()
+                    .filter(productId -> productId > chunk.after() && productId <= chunk.last())
+                    .toList());
+            try {
+                stock = readTransaction.execute(status -> read(chunk));
+            } catch (RuntimeException e) {
+                restore(taken);
+                throw e;
+            }
+        } finally {
+            writesLock.readLock().unlock();
+            dbPermits.release();
+        }
+
+        List<StockDiscrepancy> found = new ArrayList<>();
+        List<Object[]> inserts = new ArrayList<>();
+        List<Object[]> updates = new ArrayList<>();
+        Timestamp now = Timestamp.from(Instant.now());
+        stock.levels().forEach((productId, level) -> {
+            int actual = stockLedger.map(ledger -> ledger.peek(productId)).orElse(level);
+            long ordered = stock.ordered().getOrDefault(productId, 0L);
+            Baseline baseline = stock.baselines().remove(productId);
+            Integer cached = stockLedger.isPresent() ? null : stockLevelCache.peek(productId);
+            List<StockDiscrepancy> discrepancies = compare(productId, actual, ordered,
+                    baseline == null ? null : baseline.plus(taken.get(productId)), cached);
+            if (discrepancies.stream().anyMatch(discrepancy -> discrepancy.getType() == StockDiscrepancy.Type.CACHE_DRIFT)) {
+                stockLevelCache.invalidate(productId);
+            }
+            found.addAll(discrepancies);
+            if (baseline == null) {
+                inserts.add(new Object[]{productId, actual, ordered, now});
+            } else {
+                updates.add(new Object[]{actual, ordered, baseline.adjusted(), baseline.rebased(), now, productId});
+            }
+        });
+        // what is left are baselines of products without stock anymore
+        List<Object[]> deletes = stock.baselines().keySet().stream().map(productId -> new Object[]{productId}).toList();
+        return new Checked(chunk, found, inserts, updates, deletes, taken);
+    }
+
+    // leaving out the drift found for the products written since the chunk was handed out,
+    // just before it is reported so that writes committing meanwhile are seen too. they
+    // keep their baselines, and the writes taken for them go back
+    private Checked settled(Run run, Checked checked) {
+        Set<Long> written = new HashSet<>();
+        Stream.concat(checked.inserts().stream().map(insert -> (Long) insert[0]),
+                checked.updates().stream().map(update -> (Long) update[5])).forEach(productId -> {
+            Long at = run.written.get(productId);
+            if (at != null && at - checked.chunk().handedOut() >= 0) {
+                written.add(productId);
+            }
+        });
+        if (written.isEmpty()) {
+            return checked;
+        }
+        Map<Long, Writes> taken = new HashMap<>(checked.taken());
+        Map<Long, Writes> kept = new HashMap<>();
+        written.forEach(productId -> {
+            Writes change = taken.remove(productId);
+            if (change != null) {
+                kept.put(productId, change);
+            }
+        });
+        restore(kept);
+        return new Checked(checked.chunk(),
+                checked.found().stream()
+                        .filter(discrepancy -> discrepancy.getType() != StockDiscrepancy.Type.ORDER_DRIFT
+                                || !written.contains(discrepancy.getProductId()))
+                        .toList(),
+                checked.inserts().stream().filter(insert -> !written.contains((Long) insert[0])).toList(),
+                checked.updates().stream().filter(update -> !written.contains((Long) update[5])).toList(),
+                checked.deletes(), taken);
+    }
+
+    private Stock read(Chunk chunk) {
+        Map<Long, Integer> levels = new LinkedHashMap<>();
+        jdbcTemplate.query(STOCK_LEVELS, row -> {
+            levels.put(row.getLong(1), row.getInt(2));
+        }, chunk.after(), chunk.last());
+        Map<Long, Long> ordered = new HashMap<>();
+        jdbcTemplate.query(ORDERED_UNITS, row -> {
+            ordered.put(row.getLong(1), row.getLong(2));
+        }, chunk.after(), chunk.last());
+        Map<Long, Baseline> baselines = new HashMap<>();
+        jdbcTemplate.query(BASELINES, row -> {
+            baselines.put(row.getLong(1), new Baseline(row.getInt(2), row.getLong(3), row.getInt(4), row.getInt(5)));
+        }, chunk.after(), chunk.last());
+        return new Stock(levels, ordered, baselines);
+    }
+
+    private Map<Long, Writes> take(List<Long> productIds) {
+        Map<Long, Writes> taken = new HashMap<>();
+        for (Long productId : productIds) {
+            Writes change = writes.remove(productId);
+            if (change != null) {
+                taken.put(productId, change);
+            }
+        }
+        return taken;
+    }
+
+    private void restore(Map<Long, Writes> taken) {
+        taken.forEach((productId, change) -> writes.merge(productId, change, Writes::plus));
+    }
+
+    // the report of the last run that did not finish is carried on, if it is still there
+    private void open(Run run) throws IOException {
+        ReconciliationCheckpoint.Progress progress = checkpoint.read();
+        synchronized (this) {
+            if (progress != null) {
+                run.report = reportDirectory.resolve("report-" + progress.runId() + ".csv");
+                if (!Files.exists(run.report) || Files.size(run.report) < progress.reportBytes()) {
+                    progress = null;
+                }
+            }
+            if (progress == null) {
+                Instant now = Instant.now();
+                progress = new ReconciliationCheckpoint.Progress(RUN_ID.format(now), now, Long.MIN_VALUE, 0, 0, 0);
+                run.report = reportDirectory.resolve("report-" + progress.runId() + ".csv");
+            }
+            run.runId = progress.runId();
+            run.startedAt = progress.startedAt();
+            run.checkedThrough = progress.checkedThrough();
+            run.reportBytes = progress.reportBytes();
+            run.products = progress.products();
+            run.discrepancies = progress.discrepancies();
+
+            Files.createDirectories(reportDirectory);
+            run.channel = FileChannel.open(run.report, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            run.channel.truncate(run.reportBytes);
+            run.channel.position(run.reportBytes);
+            if (run.reportBytes == 0) {
+                append(run, REPORT_HEADER);
+                run.channel.force(false);
+                checkpoint.write(run.progress());
+            }
+        }
+    }
+
+    // appending the chunks that are next in id order to the report and moving the
+    // checkpoint past them, and only then writing their baselines
+    private synchronized void reported(Run run, Checked checked) throws IOException, InterruptedException {
+        run.completed.put(checked.chunk().sequence(), checked);
+        List<Checked> ready = new ArrayList<>();
+        for (Checked next = run.completed.remove(run.nextSequence); next != null;
+             next = run.completed.remove(run.nextSequence)) {
+            ready.add(settled(run, next));
+            run.nextSequence++;
+        }
+        if (ready.isEmpty()) {
+            return;
+        }
+        try {
+            for (Checked next : ready) {
+                StringBuilder lines = new StringBuilder();
+                for (StockDiscrepancy discrepancy : next.found()) {
+                    lines.append(discrepancy.getProductId()).append(',').append(discrepancy.getType()).append(',')
+                            .append(discrepancy.getExpected()).append(',').append(discrepancy.getActual()).append('\n');
+                }
+                append(run, lines.toString());
+                run.checkedThrough = next.chunk().last();
+                run.products += next.chunk().products();
+                run.discrepancies += next.found().size();
+            }
+            run.channel.force(false);
+            checkpoint.write(run.progress());
+
+            dbPermits.acquire();
+            try {
+                writeTransaction.executeWithoutResult(status -> {
+                    for (Checked next : ready) {
+                        jdbcTemplate.batchUpdate(INSERT_BASELINE, next.inserts());
+                        jdbcTemplate.batchUpdate(UPDATE_BASELINE, next.updates());
+                        jdbcTemplate.batchUpdate(DELETE_BASELINE, next.deletes());
+                    }
+                });
+            } finally {
+                dbPermits.release();
+            }
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            // the baselines stay as they were, and so must the writes not added to them
+            ready.forEach(next -> restore(next.taken()));
+            throw e;
+        }
+    }
+
+    private void append(Run run, String text) throws IOException {
+        ByteBuffer bytes = ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+        while (bytes.hasRemaining()) {
+            run.reportBytes += run.channel.write(bytes);
+        }
+    }
+
+    private synchronized void failed(Run run, Exception e) {
+        if (e instanceof InterruptedException) {
+            Thread.currentThread().interrupt();
+        }
+        if (run.error == null) {
+            run.error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+        }
+        run.stopped = true;
+    }
+
+    private synchronized void finish(Run run) {
+        // chunks held up by one that failed leave their baselines and writes as they were
+        run.completed.values().forEach(left -> restore(left.taken()));
+        run.completed.clear();
+        try {
+            if (run.channel != null) {
+                run.channel.close();
+            }
+            if (run.error == null) {
+                checkpoint.clear();
+            }
+        } catch (IOException e) {
+            if (run.error == null) {
+                run.error = e.getMessage();
+            }
+        }
+        run.state = run.error == null ? ReconciliationStatus.State.COMPLETED : ReconciliationStatus.State.FAILED;
+        running = null;
+        run.written.clear();
+        run.finishedAt = Instant.now();
+    }
+
+    // the baseline of a product; adjusted and rebased as read, or with writes added by plus
+    record Baseline(int quantity, long ordered, int adjusted, int rebased) {
+        Baseline plus(Writes writes) {
+            return writes == null ? this
+                    : new Baseline(quantity, ordered, adjusted + writes.delta(), rebased + writes.rebased());
+        }
+    }
+
+    // stock written to a product by anything but checkouts, and how many writes set it outright
+    private record Writes(int delta, int rebased) {
+        Writes plus(Writes other) {
+            return new Writes(delta + other.delta, rebased + other.rebased);
+        }
+    }
+
+    // products after after up to last, numbered in the order they were read
+    private record Chunk(long sequence, long after, long last, int products, long handedOut) {
+    }
+
+    private record Stock(Map<Long, Integer> levels, Map<Long, Long> ordered, Map<Long, Baseline> baselines) {
+    }
+
+    private record Checked(Chunk chunk, List<StockDiscrepancy> found, List<Object[]> inserts,
+                           List<Object[]> updates, List<Object[]> deletes, Map<Long, Writes> taken) {
+    }
+
+    private static final class Run {
+        private ReconciliationStatus.State state = ReconciliationStatus.State.RUNNING;
+        private volatile boolean stopped;
+        private String runId;
+        private Instant startedAt;
+        private Instant finishedAt;
+        private long checkedThrough = Long.MIN_VALUE;
+        private long reportBytes;
+        private long products;
+        private long discrepancies;
+        private String error;
+        private Path report;
+        private FileChannel channel;
+        // completed chunks waiting for those before them
+        private final Map<Long, Checked> completed = new TreeMap<>();
+        // when each product's stock was last written during the run, by System.nanoTime
+        private final Map<Long, Long> written = new ConcurrentHashMap<>();
+        private long nextSequence;
+
+        ReconciliationCheckpoint.Progress progress() {
+            return new ReconciliationCheckpoint.Progress(runId, startedAt, checkedThrough, reportBytes,
+                    products, discrepancies);
+        }
+
+        ReconciliationStatus status() {
+            return new ReconciliationStatus(runId, state, startedAt, finishedAt,
+                    checkedThrough == Long.MIN_VALUE ? null : checkedThrough, products, discrepancies,
+                    report == null ? null : report.toString(), error);
+        }
+    }
+}
@@ -0,0 +1,295 @@
+package com.cleartrip.ecommerce_management_project.inventory;
+
+import com.cleartrip.ecommerce_management_project.event.ProductChangeEvent;
+import com.cleartrip.ecommerce_management_project.event.StockChangeEvent;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+// stock of flash-sale products split over several rows, so concurrent checkouts of one
+// product no longer queue on the lock of its inventory row.
+// a sharded product keeps its inventory row and gets shards in inventory_shard, its stock
+// is the row and the shards together. a checkout takes from a shard in its own transaction,
+// starting at one picked at random and skipping shards other checkouts have locked; only
+// when every shard it could lock is short does it rebalance what it holds, and what is left
+// is spread evenly over the shards again. stock written to the row directly moves into the
+// shards at the next rebalance.
+// a checkout never waits on a lock of a sharded product, writers lock the row and then the
+// shards in order, so the two cannot deadlock each other.
+// only used without the stock ledger, which keeps stock off the rows to begin with
+@Component
+public class InventoryShards {
+    private static final String TRY_LOCK_SHARD =
+            "SELECT quantity FROM inventory_shard WHERE product_id = ? AND shard = ? FOR UPDATE SKIP LOCKED";
+
+    private static final String TRY_LOCK_ROW = "SELECT quantity FROM inventory WHERE product_id = ? FOR UPDATE SKIP LOCKED";
+
+    private static final String TAKE_FROM_SHARD =
+            "UPDATE inventory_shard SET quantity = quantity - ? WHERE product_id = ? AND shard = ?";
+
+    private static final String LOCK_ROW = "SELECT quantity FROM inventory WHERE product_id = ? FOR UPDATE";
+
+    private static final String LOCK_SHARDS =
+            "SELECT quantity FROM inventory_shard WHERE product_id = ? ORDER BY shard FOR UPDATE";
+
+    private static final String SET_ROW = "UPDATE inventory SET quantity = ? WHERE product_id = ?";
+
+    private static final String SET_SHARD = "UPDATE inventory_shard SET quantity = ? WHERE product_id = ? AND shard = ?";
+
+    private static final String INSERT_SHARD = "INSERT INTO inventory_shard (product_id, shard, quantity) VALUES (?, ?, ?)";
+
+    private static final String DELETE_SHARDS = "DELETE FROM inventory_shard WHERE product_id = ?";
+
+    private static final String EMPTY_SHARDS = "UPDATE inventory_shard SET quantity = 0 WHERE product_id = ?";
+
+    private static final String TOTAL_QUANTITY =
+            "SELECT quantity + (SELECT COALESCE(SUM(s.quantity), 0) FROM inventory_shard s WHERE s.product_id = ?) " +
+            "FROM inventory WHERE product_id = ?";
+
+    private static final String LOAD_COUNTS = "SELECT product_id, COUNT(*) FROM inventory_shard GROUP BY product_id";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${inventory.shards.max-count:64}")
+    private int maxCount = 64;
+
+    // number of shards of every sharded product
+    private final Map<Long, Integer> counts = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void load() {
+        jdbcTemplate.query(LOAD_COUNTS, row -> {
+            counts.put(row.getLong(1), row.getInt(2));
+        });
+    }
+
+    public boolean isSharded(long productId) {
+        return counts.containsKey(productId);
+    }
+
+    public int shardCount(long productId) {
+        return counts.getOrDefault(productId, 0);
+    }
+
+    // splitting the stock of a product over count shards, or changing how many it has.
+    // returns its stock, null when it has no inventory row
+    public Integer enable(long productId, int count) {
+        if (count < 2 || count > maxCount) {
+            throw new IllegalArgumentException("Shard count must be between 2 and " + maxCount);
+        }
+        Integer total = transactionTemplate.execute(status -> {
+            Locked locked = lock(productId);
+            if (locked == null) {
+                return null;
+            }
+            jdbcTemplate.update(DELETE_SHARDS, productId);
+            int[] split = split(locked.total(), count);
+            List<Object[]> shards = new ArrayList<>(count);
+            for (int shard = 0; shard < count; shard++) {
+                shards.add(new Object[]{productId, shard, split[shard]});
+            }
+            jdbcTemplate.batchUpdate(INSERT_SHARD, shards);
+            jdbcTemplate.update(SET_ROW, 0, productId);
+            return locked.total();
+        });
+        // the transaction has committed here, checkouts meanwhile found the row empty
+        if (total != null) {
+            counts.put(productId, count);
+        }
+        return total;
+    }
+
+    // moving the stock of a product back onto its inventory row and dropping its shards.
+    // returns its stock, null when it has no inventory row
+    public Integer disable(long productId) {
+        Integer total = transactionTemplate.execute(status -> {
+            Locked locked = lock(productId);
+            if (locked != null) {
+                jdbcTemplate.update(SET_ROW, locked.total(), productId);
+            }
+            jdbcTemplate.update(DELETE_SHARDS, productId);
+            return locked == null ? null : locked.total();
+        });
+        // checkouts until now found the shards gone and took from the row
+        counts.remove(productId);
+        return total;
+    }
+
+    // forgetting the shards of a product whose inventory row is deleted
+    public void remove(long productId) {
+        jdbcTemplate.update(DELETE_SHARDS, productId);
+        counts.remove(productId);
+    }
+
+    // taking quantity if at least keep is left afterwards, in the transaction of the checkout
+    // so it needs no connection of its own. on the shard taken from, a share of keep is held
+    // back, so only a rebalance enforces keep exactly
+    public boolean tryTake(long productId, int quantity, int keep) {
+        Integer count = counts.get(productId);
+        return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            if (count != null) {
+                return takeFromShards(productId, quantity, keep, count);
+            }
+            // sharded a moment ago or not at all, nothing of it is locked yet
+            Locked locked = lock(productId);
+            if (locked == null || locked.total() - quantity < keep) {
+                return false;
+            }
+            spread(productId, locked.total() - quantity, true, locked.shards());
+            return true;
+        }));
+    }
+
+    // the shards are tried one after the other, a locked one skipped rather than waited on.
+    // the short ones stay locked by this checkout, and with the row, if it is free as well,
+    // are rebalanced when they cover the take. stock held by other checkouts is not waited
+    // for either, the take is refused and the checkout can be placed again
+    private boolean takeFromShards(long productId, int quantity, int keep, int count) {
+        int first = ThreadLocalRandom.current().nextInt(count);
+        int share = (keep + count - 1) / count;
+        List<Integer> held = new ArrayList<>();
+        int total = 0;
+        for (int i = 0; i < count; i++) {
+            int shard = (first + i) % count;
+            List<Integer> found = jdbcTemplate.queryForList(TRY_LOCK_SHARD, Integer.class, productId, shard);
+            if (found.isEmpty()) {
+                continue;
+            }
+            if (found.get(0) >= quantity + share) {
+                jdbcTemplate.update(TAKE_FROM_SHARD, quantity, productId, shard);
+                return true;
+            }
+            held.add(shard);
+            total += found.get(0);
+        }
+        List<Integer> row = jdbcTemplate.queryForList(TRY_LOCK_ROW, Integer.class, productId);
+        if (!row.isEmpty()) {
+            total += row.get(0);
+        }
+        if (total - quantity < keep) {
+            return false;
+        }
+        spread(productId, total - quantity, !row.isEmpty(), held);
+        return true;
+    }
+
+    // setting the stock of a product, returns the previous one or null without an inventory row
+    public Integer set(long productId, int quantity) {
+        return transactionTemplate.execute(status -> {
+            Locked locked = lock(productId);
+            if (locked == null) {
+                return null;
+            }
+            spread(productId, quantity, true, locked.shards());
+            return locked.total();
+        });
+    }
+
+    // adding delta to the stock, returns the new level or null without an inventory row
+    public Integer adjust(long productId, int delta) {
+        return transactionTemplate.execute(status -> {
+            Locked locked = lock(productId);
+            if (locked == null) {
+                return null;
+            }
+            spread(productId, locked.total() + delta, true, locked.shards());
+            return locked.total() + delta;
+        });
+    }
+
+    // moving all stock onto the inventory row and leaving it locked there, for writers that
+    // work on the row alone. the shards stay, and are filled again by the next rebalance.
+    // returns the stock, null when the product has no inventory row
+    public Integer collapse(long productId) {
+        return transactionTemplate.execute(status -> {
+            Locked locked = lock(productId);
+            if (locked == null) {
+                return null;
+            }
+            jdbcTemplate.update(SET_ROW, locked.total(), productId);
+            jdbcTemplate.update(EMPTY_SHARDS, productId);
+            return locked.total();
+        });
+    }
+
+    // the row and its shards together, null when the product has no inventory row
+    public Integer totalQuantity(long productId) {
+        List<Integer> totals = jdbcTemplate.queryForList(TOTAL_QUANTITY, Integer.class, productId, productId);
+        return totals.isEmpty() ? null : totals.get(0);
+    }
+
+    // the catalog import sets the level on the row, what the shards held is no longer stock
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockChange(StockChangeEvent event) {
+        if (event.getDelta() == null && isSharded(event.getProductId())) {
+            jdbcTemplate.update(EMPTY_SHARDS, event.getProductId());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChange(ProductChangeEvent event) {
+        if (event.getType() == ProductChangeEvent.Type.DELETED && isSharded(event.getProductId())) {
+            remove(event.getProductId());
+        }
+    }
+
+    // total split over the shards, the first ones taking the remainder
+    static int[] split(int total, int count) {
+        int[] split = new int[count];
+        for (int shard = 0; shard < count; shard++) {
+            split[shard] = total / count + (shard < total % count ? 1 : 0);
+        }
+        return split;
+    }
+
+    // locking the row, then the shards in order, the order every writer takes them in
+    private Locked lock(long productId) {
+        List<Integer> row = jdbcTemplate.queryForList(LOCK_ROW, Integer.class, productId);
+        if (row.isEmpty()) {
+            return null;
+        }
+        List<Integer> quantities = jdbcTemplate.queryForList(LOCK_SHARDS, Integer.class, productId);
+        int total = row.get(0);
+        List<Integer> shards = new ArrayList<>(quantities.size());
+        for (Integer quantity : quantities) {
+            total += quantity;
+            shards.add(shards.size());
+        }
+        return new Locked(total, shards);
+    }
+
+    // leaving the row empty and the shards holding total, a deficit stays on the row.
+    // without the row only the shards are written, the rebalance of a checkout that found
+    // the row locked
+    private void spread(long productId, int total, boolean withRow, List<Integer> shards) {
+        int onRow = shards.isEmpty() || total < 0 ? total : 0;
+        if (withRow) {
+            jdbcTemplate.update(SET_ROW, onRow, productId);
+        }
+        if (shards.isEmpty()) {
+            return;
+        }
+        int[] split = split(total - onRow, shards.size());
+        List<Object[]> updates = new ArrayList<>(shards.size());
+        for (int i = 0; i < shards.size(); i++) {
+            updates.add(new Object[]{split[i], productId, shards.get(i)});
+        }
+        jdbcTemplate.batchUpdate(SET_SHARD, updates);
+    }
+
+    private record Locked(int total, List<Integer> shards) {
+    }
+}
@@ -0,0 +1,81 @@
+package com.cleartrip.ecommerce_management_project.inventory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Properties;
+
+// how far a reconciliation run got, written after every chunk so that a run cut short
+// resumes where it left off. the report holds exactly reportBytes for the products up
+// to checkedThrough; a checkpoint is written whole to a temporary file, forced and moved
+// over the previous one, so a crash leaves one of the two intact
+final class ReconciliationCheckpoint {
+    record Progress(String runId, Instant startedAt, long checkedThrough, long reportBytes,
+                    long products, long discrepancies) {
+    }
+
+    private final Path file;
+
+    ReconciliationCheckpoint(Path file) {
+        this.file = file;
+    }
+
+    void write(Progress progress) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("runId", progress.runId());
+        properties.setProperty("startedAt", progress.startedAt().toString());
+        properties.setProperty("checkedThrough", Long.toString(progress.checkedThrough()));
+        properties.setProperty("reportBytes", Long.toString(progress.reportBytes()));
+        properties.setProperty("products", Long.toString(progress.products()));
+        properties.setProperty("discrepancies", Long.toString(progress.discrepancies()));
+
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temporary = directory.resolve(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            OutputStream output = Channels.newOutputStream(channel);
+            properties.store(output, null);
+            output.flush();
+            channel.force(true);
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // the progress of an unfinished run, null when there is none or it does not parse
+    Progress read() throws IOException {
+        if (!Files.exists(file)) {
+            return null;
+        }
+        Properties properties = new Properties();
+        try (InputStream input = Files.newInputStream(file)) {
+            properties.load(input);
+        }
+        try {
+            String runId = properties.getProperty("runId");
+            if (runId == null) {
+                return null;
+            }
+            return new Progress(runId,
+                    Instant.parse(properties.getProperty("startedAt")),
+                    Long.parseLong(properties.getProperty("checkedThrough")),
+                    Long.parseLong(properties.getProperty("reportBytes")),
+                    Long.parseLong(properties.getProperty("products")),
+                    Long.parseLong(properties.getProperty("discrepancies")));
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    // the run finished, the next one starts over
+    void clear() throws IOException {
+        Files.deleteIfExists(file);
+    }
+}
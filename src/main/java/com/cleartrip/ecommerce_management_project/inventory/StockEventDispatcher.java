@@ -0,0 +1,202 @@
+package com.cleartrip.ecommerce_management_project.inventory;
+
+import com.cleartrip.ecommerce_management_project.dto.StockUpdate;
+import com.cleartrip.ecommerce_management_project.dto.StockUpdatePage;
+import com.cleartrip.ecommerce_management_project.event.StockChangeEvent;
+import com.cleartrip.ecommerce_management_project.event.StockUpdatesEvent;
+import com.cleartrip.ecommerce_management_project.service.InventoryService;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// committed stock changes, debounced: the changes of a product within one window are
+// folded into a single update carrying their sum and the stock at the end of the window,
+// marked LOW_STOCK when it took the stock down to the threshold. each window's updates
+// go out on a thread of their own, as a StockUpdatesEvent for in-process listeners and
+// into a ring of the latest ones read by GET /api/inventory/events, so consumers follow
+// small changes instead of scanning the whole inventory
+@Component
+public class StockEventDispatcher {
+    // sequences restart on every boot, the epoch in the cursors tells them apart
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+    private final InventoryService inventoryService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int lowStockThreshold;
+    private final Executor delivery;
+
+    // changes of the current window, in the order products first changed
+    private final Object pendingLock = new Object();
+    private Map<Long, Pending> pending = new LinkedHashMap<>();
+
+    // stock of each product at its last update, only touched by the delivery thread.
+    // kept for as many products as the ring holds updates, least recently updated out first,
+    // so a product is forgotten only once its updates have left the ring
+    private final Map<Long, Integer> lastLevels;
+
+    private final StockUpdate[] history;
+    private long latestSequence;
+
+    @Autowired
+    public StockEventDispatcher(InventoryService inventoryService, ApplicationEventPublisher eventPublisher,
+                                @Value("${inventory.events.low-stock-threshold:10}") int lowStockThreshold,
+                                @Value("${inventory.events.history:10000}") int historySize) {
+        this(inventoryService, eventPublisher, lowStockThreshold, historySize,
+                Executors.newSingleThreadExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "stock-events");
+                    thread.setDaemon(true);
+                    return thread;
+                }));
+    }
+
+    StockEventDispatcher(InventoryService inventoryService, ApplicationEventPublisher eventPublisher,
+                         int lowStockThreshold, int historySize, Executor delivery) {
+        if (historySize < 1) {
+            throw new IllegalArgumentException("Stock event history must hold at least one update");
+        }
+        this.inventoryService = inventoryService;
+        this.eventPublisher = eventPublisher;
+        this.lowStockThreshold = lowStockThreshold;
+        this.history = new StockUpdate[historySize];
+        this.lastLevels = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Integer> eldest) {
+                return size() > historySize;
+            }
+        };
+        this.delivery = delivery;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockChange(StockChangeEvent event) {
+        synchronized (pendingLock) {
+            pending.computeIfAbsent(event.getProductId(), productId -> new Pending()).add(event.getDelta());
+        }
+    }
+
+    // closing the window, its updates are worked out and delivered off the scheduler thread
+    @Scheduled(fixedDelayString = "${inventory.events.window:2s}")
+    public void dispatch() {
+        Map<Long, Pending> window;
+        synchronized (pendingLock) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            window = pending;
+            pending = new LinkedHashMap<>();
+        }
+        delivery.execute(() -> deliver(window));
+    }
+
+    // the updates after cursor, oldest first and at most limit of them. without a
+    // cursor, or with one the ring has overtaken, the page is a reset
+    public synchronized StockUpdatePage updatesAfter(String cursor, int limit) {
+        Long after = cursor == null ? null : parseCursor(cursor);
+        long oldest = latestSequence - history.length + 1;
+        if (after == null || after > latestSequence || after + 1 < oldest) {
+            return new StockUpdatePage(List.of(), cursor(latestSequence), true);
+        }
+        List<StockUpdate> updates = new ArrayList<>();
+        long sequence = after;
+        while (sequence < latestSequence && updates.size() < limit) {
+            sequence++;
+            updates.add(history[(int) (sequence % history.length)]);
+        }
+        return new StockUpdatePage(updates, cursor(sequence), false);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (delivery instanceof ExecutorService executorService) {
+            executorService.shutdownNow();
+        }
+    }
+
+    private void deliver(Map<Long, Pending> window) {
+        Map<Long, Integer> levels = new HashMap<>();
+        try {
+            for (Long productId : window.keySet()) {
+                levels.put(productId, inventoryService.getAvailableQuantity(productId).orElse(null));
+            }
+        } catch (RuntimeException e) {
+            // stock could not be read, the changes wait for the next window
+            synchronized (pendingLock) {
+                window.forEach((productId, changes) -> pending.merge(productId, changes, Pending::then));
+            }
+            return;
+        }
+
+        Instant now = Instant.now();
+        List<StockUpdate> updates = new ArrayList<>(window.size());
+        window.forEach((productId, changes) -> {
+            Integer quantity = levels.get(productId);
+            Integer previous = lastLevels.get(productId);
+            if (previous == null && quantity != null && changes.delta != null) {
+                previous = quantity - changes.delta;
+            }
+            boolean lowStock = quantity != null && quantity <= lowStockThreshold
+                    && (previous == null || previous > lowStockThreshold);
+            if (quantity == null) {
+                lastLevels.remove(productId);
+            } else {
+                lastLevels.put(productId, quantity);
+            }
+            updates.add(new StockUpdate(0, lowStock ? StockUpdate.Type.LOW_STOCK : StockUpdate.Type.CHANGED,
+                    productId, changes.delta, quantity, changes.count, now));
+        });
+        synchronized (this) {
+            for (StockUpdate update : updates) {
+                update.setSequence(++latestSequence);
+                history[(int) (latestSequence % history.length)] = update;
+            }
+        }
+        eventPublisher.publishEvent(new StockUpdatesEvent(updates));
+    }
+
+    private String cursor(long sequence) {
+        return epoch + "-" + sequence;
+    }
+
+    // sequence of a cursor from this boot, null for anything else
+    private Long parseCursor(String cursor) {
+        String prefix = epoch + "-";
+        if (!cursor.startsWith(prefix)) {
+            return null;
+        }
+        try {
+            return Long.parseLong(cursor.substring(prefix.length()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    // the changes of one product within a window
+    private static final class Pending {
+        private Integer delta = 0;
+        private int count;
+
+        void add(Integer change) {
+            delta = delta == null || change == null ? null : delta + change;
+            count++;
+        }
+
+        Pending then(Pending next) {
+            delta = delta == null || next.delta == null ? null : delta + next.delta;
+            count += next.count;
+            return this;
+        }
+    }
+}
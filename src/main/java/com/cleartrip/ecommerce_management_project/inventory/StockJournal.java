@@ -0,0 +1,281 @@
+package com.cleartrip.ecommerce_management_project.inventory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+// append-only journal of stock deltas, what makes the stock ledger crash safe.
+// a single writer thread takes every append queued so far, writes them together and
+// forces them to disk once, so a burst of checkouts shares one fsync. records live in
+// segment files named after their first sequence, and a segment is deleted once the
+// checkpoint in the database has passed every record in it
+final class StockJournal implements Closeable {
+    // sequence, product id, delta and a CRC32 of the three
+    static final int RECORD_BYTES = 24;
+    private static final int MAX_BATCH = 1024;
+    private static final String SEGMENT_SUFFIX = ".journal";
+
+    record Entry(long sequence, long productId, int delta) {
+    }
+
+    private record Append(long productId, int delta, CompletableFuture<Void> done) {
+    }
+
+    // wakes the writer up on close, never written
+    private static final Append STOP = new Append(0, 0, null);
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final BlockingQueue<Append> queue = new LinkedBlockingQueue<>();
+
+    // segment files by first sequence, the last one is being written
+    private final ConcurrentSkipListMap<Long, Path> segments = new ConcurrentSkipListMap<>();
+
+    // only touched by the writer thread once open
+    private FileChannel channel;
+    private long nextSequence;
+    private IOException failure;
+
+    private Consumer<List<Entry>> onDurable;
+    private Thread writer;
+    private volatile boolean closed;
+    private volatile boolean stopped;
+
+    StockJournal(Path directory, long segmentBytes) {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+    }
+
+    // reads the existing segments and starts appending after them. returns the records
+    // past afterSequence; onDurable then gets every batch once it is on disk, in order
+    synchronized List<Entry> open(long afterSequence, Consumer<List<Entry>> onDurable) throws IOException {
+        if (writer != null) {
+            throw new IllegalStateException("Stock journal is already open");
+        }
+        Files.createDirectories(directory);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    segments.put(Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())), file);
+                } catch (NumberFormatException e) {
+                    // not a segment
+                }
+            }
+        }
+
+        List<Entry> unflushed = new ArrayList<>();
+        long lastSequence = afterSequence;
+        for (Path segment : segments.values()) {
+            for (Entry entry : read(segment)) {
+                lastSequence = Math.max(lastSequence, entry.sequence());
+                if (entry.sequence() > afterSequence) {
+                    unflushed.add(entry);
+                }
+            }
+        }
+
+        // a new segment for this run, so a torn record at the end of the last one
+        // is never followed by good ones
+        nextSequence = lastSequence + 1;
+        channel = createSegment(nextSequence);
+        this.onDurable = onDurable;
+        writer = new Thread(this::run, "stock-journal");
+        writer.setDaemon(true);
+        writer.start();
+        return unflushed;
+    }
+
+    // completes once the record is on disk, or exceptionally when it could not be written
+    CompletableFuture<Void> append(long productId, int delta) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        if (closed) {
+            done.completeExceptionally(new IOException("Stock journal is closed"));
+            return done;
+        }
+        queue.add(new Append(productId, delta, done));
+        if (stopped) {
+            failQueued(new IOException("Stock journal is closed"));
+        }
+        return done;
+    }
+
+    // deletes the segments holding nothing after sequence
+    void truncateThrough(long sequence) {
+        for (Long first : segments.keySet()) {
+            Long next = segments.higherKey(first);
+            if (next == null || next > sequence + 1) {
+                return;
+            }
+            try {
+                Files.deleteIfExists(segments.get(first));
+            } catch (IOException e) {
+                // kept until the next flush tries again
+                return;
+            }
+            segments.remove(first);
+        }
+    }
+
+    int segmentCount() {
+        return segments.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        Thread started;
+        synchronized (this) {
+            closed = true;
+            started = writer;
+        }
+        if (started == null) {
+            return;
+        }
+        queue.add(STOP);
+        try {
+            started.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+    }
+
+    private void run() {
+        List<Append> batch = new ArrayList<>(MAX_BATCH);
+        ByteBuffer buffer = ByteBuffer.allocate(MAX_BATCH * RECORD_BYTES);
+        boolean stopping = false;
+        while (!stopping) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                break;
+            }
+            queue.drainTo(batch, MAX_BATCH - 1);
+            stopping = batch.remove(STOP);
+            if (!batch.isEmpty()) {
+                write(batch, buffer);
+            }
+            batch.clear();
+        }
+        stopped = true;
+        failQueued(new IOException("Stock journal is closed"));
+    }
+
+    private void write(List<Append> batch, ByteBuffer buffer) {
+        if (failure != null) {
+            batch.forEach(append -> append.done().completeExceptionally(failure));
+            return;
+        }
+        List<Entry> entries = new ArrayList<>(batch.size());
+        buffer.clear();
+        long sequence = nextSequence;
+        for (Append append : batch) {
+            Entry entry = new Entry(sequence++, append.productId(), append.delta());
+            encode(entry, buffer);
+            entries.add(entry);
+        }
+        buffer.flip();
+
+        long start = -1;
+        try {
+            start = channel.position();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            // the takes are undone by their callers, so a half written batch must not be
+            // replayed: cut it off, and stop journaling when even that fails
+            try {
+                if (start < 0) {
+                    throw e;
+                }
+                channel.truncate(start);
+                channel.force(false);
+            } catch (IOException truncateFailure) {
+                failure = e;
+            }
+            batch.forEach(append -> append.done().completeExceptionally(e));
+            return;
+        }
+        nextSequence = sequence;
+        onDurable.accept(entries);
+        batch.forEach(append -> append.done().complete(null));
+
+        try {
+            if (channel.size() >= segmentBytes) {
+                channel.close();
+                channel = createSegment(nextSequence);
+            }
+        } catch (IOException e) {
+            failure = e;
+        }
+    }
+
+    private void failQueued(IOException cause) {
+        Append append;
+        while ((append = queue.poll()) != null) {
+            if (append != STOP) {
+                append.done().completeExceptionally(cause);
+            }
+        }
+    }
+
+    private FileChannel createSegment(long firstSequence) throws IOException {
+        Path file = directory.resolve(String.format("%020d%s", firstSequence, SEGMENT_SUFFIX));
+        // a file already there can only hold records that never made it to disk whole
+        FileChannel created = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        segments.put(firstSequence, file);
+        return created;
+    }
+
+    // the records of a segment up to the first torn or corrupt one, read through a mapping
+    static List<Entry> read(Path segment) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        ByteBuffer bytes;
+        try (FileChannel file = FileChannel.open(segment, StandardOpenOption.READ)) {
+            bytes = file.map(FileChannel.MapMode.READ_ONLY, 0, file.size());
+        }
+        while (bytes.remaining() >= RECORD_BYTES) {
+            long sequence = bytes.getLong();
+            long productId = bytes.getLong();
+            int delta = bytes.getInt();
+            int checksum = bytes.getInt();
+            Entry entry = new Entry(sequence, productId, delta);
+            if (checksum != checksum(entry)) {
+                break;
+            }
+            entries.add(entry);
+        }
+        return entries;
+    }
+
+    static void encode(Entry entry, ByteBuffer buffer) {
+        buffer.putLong(entry.sequence());
+        buffer.putLong(entry.productId());
+        buffer.putInt(entry.delta());
+        buffer.putInt(checksum(entry));
+    }
+
+    private static int checksum(Entry entry) {
+        CRC32 crc = new CRC32();
+        ByteBuffer fields = ByteBuffer.allocate(RECORD_BYTES - Integer.BYTES);
+        fields.putLong(entry.sequence()).putLong(entry.productId()).putInt(entry.delta()).flip();
+        crc.update(fields);
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,537 @@
+package com.cleartrip.ecommerce_management_project.inventory;
+
+import com.cleartrip.ecommerce_management_project.cache.ProductCache;
+import com.cleartrip.ecommerce_management_project.catalog.CatalogVersions;
+import com.cleartrip.ecommerce_management_project.event.StockChangeEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.unit.DataSize;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+// stock counters held in memory in front of the inventory table, so checkouts of a
+// popular product no longer queue on its row lock.
+// each product's stock is an AtomicInteger taken with compare-and-set: concurrent
+// takers only retry when they lose a race, they never wait on one another. every
+// change is appended to the stock journal and is on disk before it is acknowledged,
+// and a scheduled flush adds up the deltas and writes them to the inventory rows in
+// one batched transaction, together with the journal position they reach. at startup
+// the journal records past that position are written first, so no acknowledged change
+// is lost to a crash between two flushes.
+// the levels the table holds for the loaded counters are also written out periodically
+// as a snapshot, and the journal is kept back to it. a restart maps the snapshot and
+// replays the journal on top of it, so the counters that were hot are warm again at
+// once instead of being read back one by one; they are then checked against the table
+// in the background, a chunk at a time.
+// while enabled the ledger must be the only writer of stock levels
+@Component
+@ConditionalOnProperty(name = "inventory.ledger.enabled", havingValue = "true")
+public class StockLedger {
+    // locks only taken to load a counter, so a product is read from the table once
+    private static final int LOAD_STRIPES = 64;
+
+    // warmed counters checked against the table per reconcile run
+    private static final int RECONCILE_CHUNK = 1000;
+
+    private final StockLedgerStore store;
+    private final ProductCache productCache;
+    private final CatalogVersions catalogVersions;
+    private final StockJournal journal;
+    private final StockSnapshot snapshot;
+
+    private final Map<Long, AtomicInteger> counters = new ConcurrentHashMap<>();
+    private final Object[] loadLocks = new Object[LOAD_STRIPES];
+
+    // deltas on disk but not yet in the table, and the journal sequence they reach
+    private final Object pendingLock = new Object();
+    private Map<Long, Integer> pending = new HashMap<>();
+    private long pendingThrough;
+
+    // held while a flush is writing, see counter()
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    // level in the table of each loaded counter as of flushedThrough, both under flushLock.
+    // an entry is dropped with its counter, and only ever updated while present
+    private final Map<Long, Integer> flushedLevels = new ConcurrentHashMap<>();
+    private long flushedThrough;
+
+    // sequence of the snapshot on disk, the journal is kept from there on
+    private volatile long snapshotThrough = Long.MAX_VALUE;
+
+    // counters warmed from the snapshot and not yet checked against the table
+    private final Set<Long> unreconciled = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    public StockLedger(StockLedgerStore store, ProductCache productCache, CatalogVersions catalogVersions,
+                       @Value("${inventory.ledger.journal-dir:data/stock-journal}") String journalDirectory,
+                       @Value("${inventory.ledger.segment-size:64MB}") DataSize segmentSize,
+                       @Value("${inventory.ledger.snapshot-file:data/stock.snapshot}") String snapshotFile) {
+        this(store, productCache, catalogVersions, new StockJournal(Path.of(journalDirectory), segmentSize.toBytes()),
+                new StockSnapshot(Path.of(snapshotFile)));
+    }
+
+    StockLedger(StockLedgerStore store, ProductCache productCache, CatalogVersions catalogVersions,
+                StockJournal journal, StockSnapshot snapshot) {
+        this.store = store;
+        this.productCache = productCache;
+        this.catalogVersions = catalogVersions;
+        this.journal = journal;
+        this.snapshot = snapshot;
+        for (int i = 0; i < LOAD_STRIPES; i++) {
+            loadLocks[i] = new Object();
+        }
+    }
+
+    // writing back whatever the last run acknowledged but did not flush, and warming the
+    // counters from the snapshot and the journal records after it
+    @PostConstruct
+    public void recover() {
+        long checkpoint = store.checkpoint();
+        synchronized (pendingLock) {
+            pendingThrough = checkpoint;
+        }
+        flushedThrough = checkpoint;
+        StockSnapshot.Image image = readSnapshot(checkpoint);
+        List<StockJournal.Entry> entries;
+        try {
+            entries = journal.open(image == null ? checkpoint : image.sequence(), this::record);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open the stock journal", e);
+        }
+
+        // records up to the checkpoint are in the table already, only the image lacks them
+        Map<Long, Integer> warm = image == null ? new HashMap<>() : new HashMap<>(image.levels());
+        List<StockJournal.Entry> unflushed = new ArrayList<>();
+        for (StockJournal.Entry entry : entries) {
+            if (entry.sequence() > checkpoint) {
+                unflushed.add(entry);
+            } else {
+                warm.computeIfPresent(entry.productId(), (productId, quantity) -> quantity + entry.delta());
+            }
+        }
+        if (image != null && image.sequence() < checkpoint
+                && (entries.isEmpty() || entries.get(0).sequence() != image.sequence() + 1)) {
+            // the records between the image and the checkpoint are gone, it cannot be caught up
+            warm.clear();
+            image = null;
+        }
+        record(unflushed);
+        synchronized (pendingLock) {
+            warm.forEach((productId, quantity) -> {
+                flushedLevels.put(productId, quantity);
+                counters.put(productId, new AtomicInteger(quantity + pending.getOrDefault(productId, 0)));
+            });
+        }
+        unreconciled.addAll(warm.keySet());
+        snapshotThrough = image == null ? Long.MAX_VALUE : image.sequence();
+        flush();
+    }
+
+    // stock of a product, empty when it has no inventory row
+    public Optional<Integer> available(long productId) {
+        AtomicInteger counter = counter(productId);
+        return counter == null ? Optional.empty() : Optional.of(counter.get());
+    }
+
+    // stock of a product when its counter is loaded, without going to the table otherwise
+    public Integer peek(long productId) {
+        AtomicInteger counter = counters.get(productId);
+        return counter == null ? null : counter.get();
+    }
+
+    // taking quantity if that much is left. returns the stock left, or -1 when short
+    // or when the product has no inventory row
+    public int tryTake(long productId, int quantity) {
+        return tryTake(productId, quantity, 0);
+    }
+
+    // taking quantity if at least keep is left afterwards
+    public int tryTake(long productId, int quantity, int keep) {
+        AtomicInteger counter = counter(productId);
+        if (counter == null) {
+            return -1;
+        }
+        int left = take(counter, quantity, keep);
+        if (left >= 0) {
+            journal(productId, counter, -quantity);
+        }
+        return left;
+    }
+
+    // taking quantity for a transaction, in memory only, if at least keep is left
+    // afterwards. the take is journaled by confirm once the transaction has committed and
+    // given back by release when it does not, so a crash in between leaves no take on
+    // disk without its order. null when short or without an inventory row
+    public Hold tryHold(long productId, int quantity, int keep) {
+        AtomicInteger counter = counter(productId);
+        if (counter == null) {
+            return null;
+        }
+        int left = take(counter, quantity, keep);
+        return left < 0 ? null : new Hold(productId, quantity, left, counter);
+    }
+
+    // journaling the take of a committed transaction. when the journal cannot take it the
+    // order stands all the same: the take stays in memory only, the stock is back to the
+    // table's on the next start, and the inventory reconciliation reports the difference
+    public void confirm(Hold hold) {
+        try {
+            journal.append(hold.productId, -hold.quantity).join();
+        } catch (CompletionException e) {
+            // nothing to undo, see above
+        }
+    }
+
+    // giving the take of a rolled back transaction back to the counter it came from
+    public void release(Hold hold) {
+        hold.counter.addAndGet(hold.quantity);
+    }
+
+    // adding delta to the stock, returns the new level or null without an inventory row
+    public Integer adjust(long productId, int delta) {
+        AtomicInteger counter = counter(productId);
+        if (counter == null) {
+            return null;
+        }
+        int quantity = counter.addAndGet(delta);
+        journal(productId, counter, delta);
+        return quantity;
+    }
+
+    // setting the stock level, returns the previous one or null without an inventory row
+    public Integer set(long productId, int quantity) {
+        AtomicInteger counter = counter(productId);
+        if (counter == null) {
+            return null;
+        }
+        int previous = counter.getAndSet(quantity);
+        journal(productId, counter, quantity - previous);
+        return previous;
+    }
+
+    // applying a batch of changes in order, journaled together and waited for once.
+    // returns the level each change found, null for a product without an inventory row.
+    // a change that would take the stock below zero or past Integer.MAX_VALUE is skipped
+    public List<Integer> applyAll(List<Change> changes) {
+        Set<Long> withoutRow = preload(changes.stream().map(Change::productId).collect(Collectors.toSet()));
+        List<Integer> found = new ArrayList<>(changes.size());
+        List<Write> writes = new ArrayList<>();
+        for (Change change : changes) {
+            AtomicInteger counter = withoutRow.contains(change.productId()) ? null : counter(change.productId());
+            if (counter == null) {
+                found.add(null);
+                continue;
+            }
+            int previous;
+            long next;
+            boolean valid;
+            do {
+                previous = counter.get();
+                next = change.absolute() ? change.value() : (long) previous + change.value();
+                valid = next >= 0 && next <= Integer.MAX_VALUE;
+            } while (valid && !counter.compareAndSet(previous, (int) next));
+            found.add(previous);
+            if (valid && next != previous) {
+                int delta = (int) next - previous;
+                writes.add(new Write(counter, delta, journal.append(change.productId(), delta)));
+            }
+        }
+
+        // the writes that made it to disk stand, the others are undone
+        IllegalStateException failure = null;
+        for (Write write : writes) {
+            try {
+                write.done().join();
+            } catch (CompletionException e) {
+                write.counter().addAndGet(-write.delta());
+                failure = new IllegalStateException("Could not journal the stock change", e.getCause());
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return found;
+    }
+
+    // forgetting a counter, the next use reads the row again
+    public void evict(long productId) {
+        counters.remove(productId);
+        flushedLevels.remove(productId);
+        unreconciled.remove(productId);
+    }
+
+    // stock written straight to the table outdates the counter, and the deltas not flushed
+    // yet: the level written holds them already. a record cancelling them is journaled, so
+    // neither the next flush nor a restart adds them on top. with flushes held off, a
+    // counter loaded meanwhile reads the level without them
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockChange(StockChangeEvent event) {
+        if (event.getDelta() != null) {
+            return;
+        }
+        long productId = event.getProductId();
+        flushLock.lock();
+        try {
+            int unflushed;
+            synchronized (pendingLock) {
+                unflushed = pending.getOrDefault(productId, 0);
+            }
+            evict(productId);
+            if (unflushed != 0) {
+                journal.append(productId, -unflushed).join();
+            }
+        } catch (CompletionException e) {
+            throw new IllegalStateException("Could not journal the stock change", e.getCause());
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    // write-behind: the deltas accumulated since the last flush go to the table in one transaction
+    @Scheduled(fixedDelayString = "${inventory.ledger.flush-interval:1s}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            Map<Long, Integer> deltas;
+            long through;
+            synchronized (pendingLock) {
+                if (pending.isEmpty()) {
+                    return;
+                }
+                deltas = pending;
+                through = pendingThrough;
+                pending = new HashMap<>();
+            }
+            try {
+                store.apply(deltas, through);
+            } catch (RuntimeException e) {
+                synchronized (pendingLock) {
+                    deltas.forEach((productId, delta) -> pending.merge(productId, delta, Integer::sum));
+                }
+                throw e;
+            }
+            deltas.forEach((productId, delta) -> flushedLevels.computeIfPresent(productId, (id, level) -> level + delta));
+            flushedThrough = through;
+            journal.truncateThrough(Math.min(through, snapshotThrough));
+
+            // product reads come from the table, they only see the new stock from now on
+            for (Long productId : deltas.keySet()) {
+                productCache.invalidate(productId);
+                catalogVersions.bump(productId);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    // writing the flushed levels of the loaded counters out, so the next start is warm
+    @Scheduled(fixedDelayString = "${inventory.ledger.snapshot-interval:5m}")
+    public void snapshot() {
+        Map<Long, Integer> levels;
+        long through;
+        flushLock.lock();
+        try {
+            levels = new HashMap<>(flushedLevels);
+            through = flushedThrough;
+            // flushes meanwhile must leave the records after through for the new image
+            snapshotThrough = Math.min(snapshotThrough, through);
+        } finally {
+            flushLock.unlock();
+        }
+        try {
+            snapshot.write(through, levels);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write the stock snapshot", e);
+        }
+        snapshotThrough = through;
+    }
+
+    // checking a chunk of the counters warmed from the snapshot against the table. with
+    // flushes held off, the table holds exactly the flushed level of every counter, so
+    // any difference was written while the ledger was down and is added to the counter
+    @Scheduled(fixedDelayString = "${inventory.ledger.reconcile-interval:1s}")
+    public void reconcile() {
+        if (unreconciled.isEmpty()) {
+            return;
+        }
+        List<Long> chunk = unreconciled.stream().limit(RECONCILE_CHUNK).toList();
+        flushLock.lock();
+        try {
+            Map<Long, Integer> quantities = store.loadQuantities(chunk);
+            for (Long productId : chunk) {
+                Integer quantity = quantities.get(productId);
+                Integer flushed = flushedLevels.get(productId);
+                if (quantity == null) {
+                    evict(productId);
+                } else if (flushed != null && !flushed.equals(quantity)) {
+                    AtomicInteger counter = counters.get(productId);
+                    if (counter != null) {
+                        counter.addAndGet(quantity - flushed);
+                    }
+                    flushedLevels.put(productId, quantity);
+                }
+            }
+            chunk.forEach(unreconciled::remove);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws IOException {
+        journal.close();
+        flush();
+        snapshot();
+    }
+
+    // the counter of a product, loaded from the table on first use. null when the
+    // product has no inventory row
+    private AtomicInteger counter(long productId) {
+        AtomicInteger counter = counters.get(productId);
+        if (counter != null) {
+            return counter;
+        }
+        synchronized (loadLocks[(int) (productId & (LOAD_STRIPES - 1))]) {
+            counter = counters.get(productId);
+            if (counter != null) {
+                return counter;
+            }
+            // a running flush has taken its deltas out of pending without having
+            // committed them yet, the row would be read without them
+            flushLock.lock();
+            try {
+                Integer quantity = store.loadQuantity(productId);
+                if (quantity == null) {
+                    return null;
+                }
+                flushedLevels.putIfAbsent(productId, quantity);
+                synchronized (pendingLock) {
+                    counter = new AtomicInteger(quantity + pending.getOrDefault(productId, 0));
+                }
+            } finally {
+                flushLock.unlock();
+            }
+            // preload may have got there first, its counter is as fresh and may be in use
+            AtomicInteger loaded = counters.putIfAbsent(productId, counter);
+            return loaded != null ? loaded : counter;
+        }
+    }
+
+    // loading the counters of many products with a few queries instead of one each.
+    // returns the products found to have no inventory row
+    private Set<Long> preload(Collection<Long> productIds) {
+        Set<Long> missing = productIds.stream()
+                .filter(productId -> !counters.containsKey(productId))
+                .collect(Collectors.toCollection(HashSet::new));
+        if (missing.isEmpty()) {
+            return missing;
+        }
+        flushLock.lock();
+        try {
+            Map<Long, Integer> quantities = store.loadQuantities(missing);
+            quantities.forEach(flushedLevels::putIfAbsent);
+            synchronized (pendingLock) {
+                quantities.forEach((productId, quantity) ->
+                        counters.putIfAbsent(productId, new AtomicInteger(quantity + pending.getOrDefault(productId, 0))));
+            }
+            missing.removeAll(quantities.keySet());
+            return missing;
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    // compare-and-set loop taking quantity, returns the stock left or -1 when short
+    private static int take(AtomicInteger counter, int quantity, int keep) {
+        int current;
+        int left;
+        do {
+            current = counter.get();
+            left = current - quantity;
+            if (left < keep) {
+                return -1;
+            }
+        } while (!counter.compareAndSet(current, left));
+        return left;
+    }
+
+    // waiting for the change to be on disk, undoing it in memory when it cannot be
+    private void journal(long productId, AtomicInteger counter, int delta) {
+        try {
+            journal.append(productId, delta).join();
+        } catch (CompletionException e) {
+            counter.addAndGet(-delta);
+            throw new IllegalStateException("Could not journal the stock change", e.getCause());
+        }
+    }
+
+    // one change of applyAll: an absolute level when absolute is set, a delta otherwise.
+    // a long, so a folded value out of the int range is skipped instead of wrapping
+    public record Change(long productId, boolean absolute, long value) {
+    }
+
+    private record Write(AtomicInteger counter, int delta, CompletableFuture<Void> done) {
+    }
+
+    // stock taken by tryHold and not yet confirmed or released
+    public static final class Hold {
+        private final long productId;
+        private final int quantity;
+        private final int left;
+        private final AtomicInteger counter;
+
+        private Hold(long productId, int quantity, int left, AtomicInteger counter) {
+            this.productId = productId;
+            this.quantity = quantity;
+            this.left = left;
+            this.counter = counter;
+        }
+
+        // the stock left right after the take
+        public int left() {
+            return left;
+        }
+    }
+
+    // the snapshot on disk when it can be used with this checkpoint
+    private StockSnapshot.Image readSnapshot(long checkpoint) {
+        try {
+            StockSnapshot.Image image = snapshot.read();
+            // an image past the checkpoint does not belong to this database
+            return image == null || image.sequence() > checkpoint ? null : image;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    // called by the journal writer with each batch once it is on disk
+    private void record(List<StockJournal.Entry> entries) {
+        synchronized (pendingLock) {
+            for (StockJournal.Entry entry : entries) {
+                pending.merge(entry.productId(), entry.delta(), Integer::sum);
+                pendingThrough = Math.max(pendingThrough, entry.sequence());
+            }
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.cleartrip.ecommerce_management_project.inventory;
+
+import com.cleartrip.ecommerce_management_project.model.StockLedgerCheckpoint;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// the inventory table as the stock ledger sees it: a quantity read when a counter is
+// first needed, and journaled deltas added back in one batched transaction
+@Component
+@ConditionalOnProperty(name = "inventory.ledger.enabled", havingValue = "true")
+public class StockLedgerStore {
+    private static final int BATCH_SIZE = 1000;
+
+    private static final String LOAD_QUANTITY = "SELECT quantity FROM inventory WHERE product_id = ?";
+
+    private static final String APPLY_DELTA = "UPDATE inventory SET quantity = quantity + ? WHERE product_id = ?";
+
+    private static final String LOAD_CHECKPOINT = "SELECT journal_sequence FROM stock_ledger_checkpoint WHERE id = ?";
+
+    private static final String SAVE_CHECKPOINT =
+            "INSERT INTO stock_ledger_checkpoint (id, journal_sequence) VALUES (?, ?) " +
+            "ON DUPLICATE KEY UPDATE journal_sequence = VALUES(journal_sequence)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    // stock of a product as last flushed, null when it has no inventory row
+    public Integer loadQuantity(long productId) {
+        List<Integer> quantities = jdbcTemplate.queryForList(LOAD_QUANTITY, Integer.class, productId);
+        return quantities.isEmpty() ? null : quantities.get(0);
+    }
+
+    // stock of many products as last flushed, products without an inventory row are left out
+    public Map<Long, Integer> loadQuantities(Collection<Long> productIds) {
+        Map<Long, Integer> quantities = new HashMap<>();
+        List<Long> ids = new ArrayList<>(productIds);
+        for (int from = 0; from < ids.size(); from += BATCH_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + BATCH_SIZE, ids.size()));
+            String placeholders = String.join(", ", Collections.nCopies(chunk.size(), "?"));
+            jdbcTemplate.query("SELECT product_id, quantity FROM inventory WHERE product_id IN (" + placeholders + ")",
+                    row -> {
+                        quantities.put(row.getLong(1), row.getInt(2));
+                    }, chunk.toArray());
+        }
+        return quantities;
+    }
+
+    // last journal sequence written to the table, 0 before the first flush
+    public long checkpoint() {
+        List<Long> sequences = jdbcTemplate.queryForList(LOAD_CHECKPOINT, Long.class, StockLedgerCheckpoint.ID);
+        return sequences.isEmpty() ? 0 : sequences.get(0);
+    }
+
+    // adding the deltas and moving the checkpoint to journalSequence in one transaction.
+    // rows are updated in product id order, the order checkouts lock them in
+    public void apply(Map<Long, Integer> deltas, long journalSequence) {
+        List<Map.Entry<Long, Integer>> changes = new ArrayList<>();
+        for (Map.Entry<Long, Integer> delta : new TreeMap<>(deltas).entrySet()) {
+            if (delta.getValue() != 0) {
+                changes.add(delta);
+            }
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(APPLY_DELTA, changes, BATCH_SIZE, (ps, change) -> {
+                ps.setInt(1, change.getValue());
+                ps.setLong(2, change.getKey());
+            });
+            jdbcTemplate.update(SAVE_CHECKPOINT, StockLedgerCheckpoint.ID, journalSequence);
+        });
+    }
+}
@@ -0,0 +1,268 @@
+package com.cleartrip.ecommerce_management_project.inventory;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+// stock held for the items in carts, for a limited time.
+// a reservation is taken when an item is added and lasts ttl from its last change; it
+// ends when the item leaves the cart, when the cart is checked out, or when it expires.
+// expiry runs on a hashed timing wheel ticked by the scheduler, so nothing ever scans
+// for expired reservations. available-to-promise is the stock on hand minus everything
+// reserved. reservations live in memory only and start empty after a restart
+@Component
+public class StockReservations {
+    private static final int TICKS_PER_WHEEL = 512;
+
+    private final long ttlMillis;
+    private final HashedTimingWheel<Reservation> wheel;
+
+    // live reservations by user then product, each user's map is its own lock
+    private final Map<Long, Map<Long, Reservation>> byUser = new ConcurrentHashMap<>();
+
+    // total reserved per product
+    private final Map<Long, AtomicInteger> reserved = new ConcurrentHashMap<>();
+
+    @Autowired
+    public StockReservations(@Value("${inventory.reservations.ttl:15m}") Duration ttl,
+                             @Value("${inventory.reservations.tick:1s}") Duration tick) {
+        this(ttl, tick, System.currentTimeMillis());
+    }
+
+    StockReservations(Duration ttl, Duration tick, long startMillis) {
+        this.ttlMillis = ttl.toMillis();
+        this.wheel = new HashedTimingWheel<>(tick.toMillis(), TICKS_PER_WHEEL, startMillis);
+    }
+
+    // reserving quantity more of a product for a user, when onHand covers it on top of
+    // everything already reserved. the reservation's ttl starts again either way.
+    // in a transaction that rolls back, the added quantity is given back
+    public boolean reserve(long userId, long productId, int quantity, int onHand) {
+        return reserve(userId, productId, quantity, onHand, System.currentTimeMillis());
+    }
+
+    boolean reserve(long userId, long productId, int quantity, int onHand, long nowMillis) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Reserved quantity must be positive");
+        }
+        boolean accepted = withReservations(userId, reservations -> {
+            if (!take(productId, quantity, onHand)) {
+                return false;
+            }
+            Reservation previous = reservations.get(productId);
+            replace(reservations, userId, productId, previous == null ? quantity : previous.quantity + quantity, nowMillis);
+            return true;
+        });
+        if (accepted) {
+            afterRollback(() -> shrink(userId, productId, quantity));
+        }
+        return accepted;
+    }
+
+    // changing a user's reservation of a product to quantity, growing it only when
+    // onHand covers the difference. a quantity of zero releases it. in a transaction
+    // that rolls back, what it grew by is given back
+    public boolean resize(long userId, long productId, int quantity, int onHand) {
+        int grown = withReservations(userId, reservations -> {
+            Reservation previous = reservations.get(productId);
+            int change = quantity - (previous == null ? 0 : previous.quantity);
+            if (change > 0 && !take(productId, change, onHand)) {
+                return -1;
+            }
+            if (change < 0) {
+                give(productId, -change);
+            }
+            if (quantity <= 0) {
+                drop(reservations, productId);
+            } else {
+                replace(reservations, userId, productId, quantity, System.currentTimeMillis());
+            }
+            return Math.max(0, change);
+        });
+        if (grown > 0) {
+            afterRollback(() -> shrink(userId, productId, grown));
+        }
+        return grown >= 0;
+    }
+
+    // releasing a user's reservation of a product, once the transaction commits
+    public void release(long userId, long productId) {
+        afterCommit(() -> withReservations(userId, reservations -> {
+            Reservation dropped = drop(reservations, productId);
+            if (dropped != null) {
+                give(productId, dropped.quantity);
+            }
+            return null;
+        }));
+    }
+
+    // releasing all of a user's reservations, once the transaction commits
+    public void releaseAll(long userId) {
+        afterCommit(() -> withReservations(userId, reservations -> {
+            for (Long productId : List.copyOf(reservations.keySet())) {
+                give(productId, drop(reservations, productId).quantity);
+            }
+            return null;
+        }));
+    }
+
+    // total reserved of a product
+    public int reserved(long productId) {
+        AtomicInteger total = reserved.get(productId);
+        return total == null ? 0 : total.get();
+    }
+
+    // reserved of a product by everyone but the given user
+    public int reservedByOthers(long userId, long productId) {
+        return withReservations(userId, reservations -> {
+            Reservation own = reservations.get(productId);
+            return reserved(productId) - (own == null ? 0 : own.quantity);
+        });
+    }
+
+    // what can still be promised out of onHand
+    public int availableToPromise(long productId, int onHand) {
+        return Math.max(0, onHand - reserved(productId));
+    }
+
+    // ending the reservations whose time is up
+    @Scheduled(fixedRateString = "${inventory.reservations.tick:1s}")
+    public void expire() {
+        expire(System.currentTimeMillis());
+    }
+
+    void expire(long nowMillis) {
+        for (Reservation reservation : wheel.advance(nowMillis)) {
+            withReservations(reservation.userId, reservations -> {
+                // a reservation changed since has a new timeout, this one was cancelled
+                if (reservations.get(reservation.productId) == reservation) {
+                    drop(reservations, reservation.productId);
+                    give(reservation.productId, reservation.quantity);
+                }
+                return null;
+            });
+        }
+    }
+
+    // running action holding the lock of the user's reservations. a map left empty is
+    // removed, so a thread that waited for it takes the lock of its replacement instead
+    private <R> R withReservations(long userId, Function<Map<Long, Reservation>, R> action) {
+        while (true) {
+            Map<Long, Reservation> reservations = byUser.computeIfAbsent(userId, key -> new HashMap<>());
+            synchronized (reservations) {
+                if (byUser.get(userId) != reservations) {
+                    continue;
+                }
+                R result = action.apply(reservations);
+                if (reservations.isEmpty()) {
+                    byUser.remove(userId);
+                }
+                return result;
+            }
+        }
+    }
+
+    // adding quantity to the product's total, when it still fits within onHand
+    private boolean take(long productId, int quantity, int onHand) {
+        AtomicInteger total = reserved.computeIfAbsent(productId, key -> new AtomicInteger());
+        int current;
+        do {
+            current = total.get();
+            if (onHand - current < quantity) {
+                return false;
+            }
+        } while (!total.compareAndSet(current, current + quantity));
+        return true;
+    }
+
+    private void give(long productId, int quantity) {
+        AtomicInteger total = reserved.get(productId);
+        if (total != null) {
+            total.addAndGet(-quantity);
+        }
+    }
+
+    private void replace(Map<Long, Reservation> reservations, long userId, long productId, int quantity, long nowMillis) {
+        Reservation reservation = new Reservation(userId, productId, quantity);
+        reservation.timeout = wheel.schedule(reservation, nowMillis + ttlMillis);
+        Reservation previous = reservations.put(productId, reservation);
+        if (previous != null) {
+            previous.timeout.cancel();
+        }
+    }
+
+    private Reservation drop(Map<Long, Reservation> reservations, long productId) {
+        Reservation dropped = reservations.remove(productId);
+        if (dropped != null) {
+            dropped.timeout.cancel();
+        }
+        return dropped;
+    }
+
+    // giving back part of a reservation made in a transaction that did not commit
+    private void shrink(long userId, long productId, int quantity) {
+        withReservations(userId, reservations -> {
+            Reservation current = reservations.get(productId);
+            if (current != null) {
+                int left = Math.max(0, current.quantity - quantity);
+                give(productId, current.quantity - left);
+                if (left == 0) {
+                    drop(reservations, productId);
+                } else {
+                    current.quantity = left;
+                }
+            }
+            return null;
+        });
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static void afterRollback(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    action.run();
+                }
+            }
+        });
+    }
+
+    private static final class Reservation {
+        private final long userId;
+        private final long productId;
+        private int quantity;
+        private HashedTimingWheel.Timeout<Reservation> timeout;
+
+        private Reservation(long userId, long productId, int quantity) {
+            this.userId = userId;
+            this.productId = productId;
+            this.quantity = quantity;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.cleartrip.ecommerce_management_project.inventory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+// compact image of stock levels as of a journal sequence, what lets the stock ledger
+// start warm. the layout is a header of magic, version, sequence and count, then count
+// pairs of product id and level, then a CRC32 of everything before it. an image is
+// written whole through a memory mapping into a temporary file, forced and moved over
+// the previous one, so a crash leaves one of the two intact
+final class StockSnapshot {
+    private static final int MAGIC = 0x53544b53;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = Integer.BYTES + Integer.BYTES + Long.BYTES + Integer.BYTES;
+    private static final int ENTRY_BYTES = Long.BYTES + Integer.BYTES;
+
+    record Image(long sequence, Map<Long, Integer> levels) {
+    }
+
+    private final Path file;
+
+    StockSnapshot(Path file) {
+        this.file = file;
+    }
+
+    void write(long sequence, Map<Long, Integer> levels) throws IOException {
+        long size = HEADER_BYTES + (long) levels.size() * ENTRY_BYTES + Integer.BYTES;
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Stock snapshot of " + levels.size() + " products is too large");
+        }
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temporary = directory.resolve(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.putInt(MAGIC).putInt(VERSION).putLong(sequence).putInt(levels.size());
+            levels.forEach((productId, quantity) -> buffer.putLong(productId).putInt(quantity));
+            buffer.putInt(checksum(buffer, buffer.position()));
+            buffer.force();
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // the image on disk, null when there is none or it does not check out
+    Image read() throws IOException {
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES + Integer.BYTES || size > Integer.MAX_VALUE) {
+                return null;
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                return null;
+            }
+            long sequence = buffer.getLong();
+            int count = buffer.getInt();
+            if (count < 0 || size != HEADER_BYTES + (long) count * ENTRY_BYTES + Integer.BYTES) {
+                return null;
+            }
+            int end = (int) size - Integer.BYTES;
+            if (buffer.getInt(end) != checksum(buffer, end)) {
+                return null;
+            }
+            Map<Long, Integer> levels = new HashMap<>(count * 4 / 3 + 1);
+            for (int i = 0; i < count; i++) {
+                levels.put(buffer.getLong(), buffer.getInt());
+            }
+            return new Image(sequence, levels);
+        }
+    }
+
+    private static int checksum(ByteBuffer buffer, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(0, length));
+        return (int) crc.getValue();
+    }
+}
@@ -15,9 +15,10 @@ public class Inventory {
     @Id
     private Long id;
 
-    // one inventory can have one product
+    // one inventory can have one product, loaded only when used since stock reads
+    // mostly need its id, which the proxy holds
     @JsonBackReference
-    @OneToOne
+    @OneToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "product_id", nullable = false)
     private Product product;
 
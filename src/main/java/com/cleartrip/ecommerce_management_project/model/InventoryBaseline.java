@@ -0,0 +1,36 @@
+package com.cleartrip.ecommerce_management_project.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+// what the last reconciliation run found for a product: its stock and the units ordered
+// until then. adjusted sums the stock written since by anything but checkouts, rebased
+// counts the writes since that set the level outright. see InventoryReconciler
+@Entity
+@Table(name = "inventory_baseline")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryBaseline {
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+
+    @Column(nullable = false)
+    private Integer quantity;
+
+    @Column(nullable = false)
+    private Long ordered;
+
+    @Column(nullable = false)
+    private Integer adjusted;
+
+    @Column(nullable = false)
+    private Integer rebased;
+
+    @Column(nullable = false)
+    private LocalDateTime checkedAt;
+}
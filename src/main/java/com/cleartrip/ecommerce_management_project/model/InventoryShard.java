@@ -0,0 +1,28 @@
+package com.cleartrip.ecommerce_management_project.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// part of the stock of a sharded product, split off its inventory row so that
+// concurrent checkouts lock different rows. shards of a product are numbered from 0
+@Entity
+@Table(name = "inventory_shard", uniqueConstraints = @UniqueConstraint(columnNames = {"product_id", "shard"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryShard {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(nullable = false)
+    private Integer shard;
+
+    @Column(nullable = false)
+    private Integer quantity;
+}
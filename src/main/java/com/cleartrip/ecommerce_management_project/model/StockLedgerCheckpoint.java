@@ -0,0 +1,23 @@
+package com.cleartrip.ecommerce_management_project.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// last stock journal record whose delta has been written to the inventory table.
+// a single row, updated in the same transaction as the deltas it covers
+@Entity
+@Table(name = "stock_ledger_checkpoint")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockLedgerCheckpoint {
+    public static final long ID = 1L;
+
+    @Id
+    private Long id;
+
+    @Column(name = "journal_sequence", nullable = false)
+    private Long journalSequence;
+}
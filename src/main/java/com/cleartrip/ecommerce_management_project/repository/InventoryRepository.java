@@ -1,9 +1,48 @@
 package com.cleartrip.ecommerce_management_project.repository;
 
+import com.cleartrip.ecommerce_management_project.dto.StockLevel;
 import com.cleartrip.ecommerce_management_project.model.Inventory;
 import com.cleartrip.ecommerce_management_project.model.Product;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.util.List;
 import java.util.Optional;
 public interface InventoryRepository extends JpaRepository<Inventory, Long> {
+    // stock of the row's product, the row and any shards it is split over together
+    String TOTAL_QUANTITY = "(i.quantity + COALESCE((SELECT CAST(SUM(s.quantity) AS Integer) FROM InventoryShard s " +
+            "WHERE s.productId = i.product.id), 0))";
+
     Optional<Inventory> findByProduct(Product product);
+
+    // by the product's id, the product itself is not loaded
+    Optional<Inventory> findByProductId(Long productId);
+
+    // stock level alone, read off the inventory row without touching the product
+    @Query("SELECT i.quantity FROM Inventory i WHERE i.product.id = :productId")
+    Optional<Integer> findQuantityByProductId(@Param("productId") Long productId);
+
+    // keyset scroll over the stock levels by product id, optionally only those within
+    // [minQuantity, maxQuantity]; nothing but the id and quantity is read
+    @Query("SELECT new com.cleartrip.ecommerce_management_project.dto.StockLevel(i.product.id, " + TOTAL_QUANTITY + ") " +
+           "FROM Inventory i WHERE i.product.id > :lastId " +
+           "AND (:minQuantity IS NULL OR " + TOTAL_QUANTITY + " >= :minQuantity) " +
+           "AND (:maxQuantity IS NULL OR " + TOTAL_QUANTITY + " <= :maxQuantity) " +
+           "ORDER BY i.product.id ASC")
+    List<StockLevel> scrollStockLevels(
+            @Param("lastId") Long lastId,
+            @Param("minQuantity") Integer minQuantity,
+            @Param("maxQuantity") Integer maxQuantity,
+            Limit limit
+    );
+
+    // taking stock in a single statement, only when at least keep is left afterwards.
+    // returns 1 when taken and 0 when short, the row lock serializes concurrent takers
+    @Modifying
+    @Query("UPDATE Inventory i SET i.quantity = i.quantity - :quantity " +
+           "WHERE i.product.id = :productId AND i.quantity >= :quantity + :keep")
+    int decrementIfAvailable(@Param("productId") Long productId, @Param("quantity") int quantity,
+                             @Param("keep") int keep);
 }
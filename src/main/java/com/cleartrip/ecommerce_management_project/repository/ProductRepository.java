@@ -1,5 +1,9 @@
 package com.cleartrip.ecommerce_management_project.repository;
+import com.cleartrip.ecommerce_management_project.dto.CatalogRow;
+import com.cleartrip.ecommerce_management_project.dto.ProductSuggestion;
+import com.cleartrip.ecommerce_management_project.dto.ProductSummary;
 import com.cleartrip.ecommerce_management_project.model.Product;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -11,7 +15,16 @@ import org.springframework.stereotype.Repository;
 
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long> {
+    String FILTERS = "(:category IS NULL OR p.category = :category) AND " +
+            "(:minPrice IS NULL OR p.price >= :minPrice) AND " +
+            "(:maxPrice IS NULL OR p.price <= :maxPrice)";
+
+    String SUMMARY = "SELECT new com.cleartrip.ecommerce_management_project.dto.ProductSummary(" +
+            "p.id, p.name, p.price, p.category, CASE WHEN i.quantity > 0 THEN true ELSE false END) " +
+            "FROM Product p LEFT JOIN p.inventory i WHERE ";
+
     List<Product> findByNameContainingIgnoreCase(String name);
+    Page<Product> findByNameContainingIgnoreCase(String name, Pageable pageable);
     List<Product> findByCategoryIgnoreCase(String category);
     List<Product> findByPriceBetween(Double minPrice, Double maxPrice);
     List<Product> findAll(Sort sort);
@@ -39,4 +52,90 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     Page<Product> findByCategoryAndPriceBetween(String category, Double minPrice, Double maxPrice, Pageable pageable);
 
     Page<Product> findByPriceBetween(Double minPrice, Double maxPrice, Pageable pageable);
+
+    // keyset scrolls: seek past the last (sortKey, id) seen instead of using OFFSET,
+    // and fetch without a COUNT query
+    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.inventory WHERE " + FILTERS +
+            " AND p.id > :lastId ORDER BY p.id ASC")
+    List<Product> scrollByIdAsc(
+            @Param("category") String category,
+            @Param("minPrice") Double minPrice,
+            @Param("maxPrice") Double maxPrice,
+            @Param("lastId") Long lastId,
+            Limit limit
+    );
+
+    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.inventory WHERE " + FILTERS +
+            " AND p.id < :lastId ORDER BY p.id DESC")
+    List<Product> scrollByIdDesc(
+            @Param("category") String category,
+            @Param("minPrice") Double minPrice,
+            @Param("maxPrice") Double maxPrice,
+            @Param("lastId") Long lastId,
+            Limit limit
+    );
+
+    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.inventory WHERE " + FILTERS +
+            " AND (p.price > :lastPrice OR (p.price = :lastPrice AND p.id > :lastId))" +
+            " ORDER BY p.price ASC, p.id ASC")
+    List<Product> scrollByPriceAsc(
+            @Param("category") String category,
+            @Param("minPrice") Double minPrice,
+            @Param("maxPrice") Double maxPrice,
+            @Param("lastPrice") Double lastPrice,
+            @Param("lastId") Long lastId,
+            Limit limit
+    );
+
+    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.inventory WHERE " + FILTERS +
+            " AND (p.price < :lastPrice OR (p.price = :lastPrice AND p.id < :lastId))" +
+            " ORDER BY p.price DESC, p.id DESC")
+    List<Product> scrollByPriceDesc(
+            @Param("category") String category,
+            @Param("minPrice") Double minPrice,
+            @Param("maxPrice") Double maxPrice,
+            @Param("lastPrice") Double lastPrice,
+            @Param("lastId") Long lastId,
+            Limit limit
+    );
+
+    // list views: one statement with the inventory joined in, no entities loaded
+    @Query(value = SUMMARY + FILTERS, countQuery = "SELECT COUNT(p) FROM Product p WHERE " + FILTERS)
+    Page<ProductSummary> findSummaries(
+            @Param("category") String category,
+            @Param("minPrice") Double minPrice,
+            @Param("maxPrice") Double maxPrice,
+            Pageable pageable
+    );
+
+    @Query(SUMMARY + "p.category = :category")
+    List<ProductSummary> findSummariesByCategory(@Param("category") String category);
+
+    @Query(SUMMARY + "1 = 1")
+    List<ProductSummary> findAllSummaries(Sort sort);
+
+    // catalog rows straight from the table, without loading the entities
+    @Query(value = "SELECT new com.cleartrip.ecommerce_management_project.dto.CatalogRow(p.id, p.category, p.price) " +
+            "FROM Product p WHERE " + FILTERS,
+            countQuery = "SELECT COUNT(p) FROM Product p WHERE " + FILTERS)
+    Page<CatalogRow> findCatalogRows(
+            @Param("category") String category,
+            @Param("minPrice") Double minPrice,
+            @Param("maxPrice") Double maxPrice,
+            Pageable pageable
+    );
+
+    // names starting with the prefix or having a word that does, alphabetically
+    @Query("SELECT new com.cleartrip.ecommerce_management_project.dto.ProductSuggestion(p.id, p.name) FROM Product p " +
+            "WHERE LOWER(p.name) LIKE CONCAT(:prefix, '%') OR LOWER(p.name) LIKE CONCAT('% ', :prefix, '%') " +
+            "ORDER BY LOWER(p.name), p.id")
+    List<ProductSuggestion> findSuggestions(@Param("prefix") String prefix, Limit limit);
+
+    // (category, price, products) rows the facet counts are worked out from
+    @Query("SELECT p.category, p.price, COUNT(p) FROM Product p GROUP BY p.category, p.price")
+    List<Object[]> countByCategoryAndPrice();
+
+    // batch of products after the given id, used to walk the whole table without OFFSET
+    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.inventory WHERE p.id > :lastId ORDER BY p.id ASC")
+    List<Product> findBatchAfter(@Param("lastId") Long lastId, Limit limit);
 }
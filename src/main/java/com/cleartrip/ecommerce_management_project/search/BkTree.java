@@ -0,0 +1,134 @@
+package com.cleartrip.ecommerce_management_project.search;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+
+// BK-tree over a vocabulary: every term hangs off its parent by their edit
+// distance, so by the triangle inequality a lookup within k edits of a term at
+// distance d only has to descend into the children at distances d - k to d + k.
+// not thread-safe, ProductSearchIndex guards it with its own lock
+final class BkTree {
+    private Node root;
+    private int live;
+    private int removed;
+
+    static BkTree of(Collection<String> terms) {
+        BkTree tree = new BkTree();
+        terms.forEach(tree::add);
+        return tree;
+    }
+
+    void add(String term) {
+        if (root == null) {
+            root = new Node(term);
+            live++;
+            return;
+        }
+        Node node = root;
+        while (true) {
+            int distance = distance(node.term, term);
+            if (distance == 0) {
+                if (node.removed) {
+                    node.removed = false;
+                    removed--;
+                    live++;
+                }
+                return;
+            }
+            Node child = node.children.get(distance);
+            if (child == null) {
+                node.children.put(distance, new Node(term));
+                live++;
+                return;
+            }
+            node = child;
+        }
+    }
+
+    // removed terms stay in place to keep routing the lookups below them
+    void remove(String term) {
+        Node node = root;
+        while (node != null) {
+            int distance = distance(node.term, term);
+            if (distance == 0) {
+                if (!node.removed) {
+                    node.removed = true;
+                    live--;
+                    removed++;
+                }
+                return;
+            }
+            node = node.children.get(distance);
+        }
+    }
+
+    // once most nodes are removed ones, lookups pay for terms that cannot match
+    boolean needsRebuild() {
+        return removed > live;
+    }
+
+    int size() {
+        return live;
+    }
+
+    // terms within maxEdits of the term with their distance. at most maxVisits
+    // distances are computed, so on a very large vocabulary the answer may be
+    // partial but the time it takes is bounded
+    Map<String, Integer> search(String term, int maxEdits, int maxVisits) {
+        Map<String, Integer> matches = new HashMap<>();
+        if (root == null) {
+            return matches;
+        }
+        Deque<Node> pending = new ArrayDeque<>();
+        pending.push(root);
+        int visits = 0;
+        while (!pending.isEmpty() && visits < maxVisits) {
+            Node node = pending.pop();
+            int distance = distance(node.term, term);
+            visits++;
+            if (distance <= maxEdits && !node.removed) {
+                matches.put(node.term, distance);
+            }
+            for (int edge = Math.max(1, distance - maxEdits); edge <= distance + maxEdits; edge++) {
+                Node child = node.children.get(edge);
+                if (child != null) {
+                    pending.push(child);
+                }
+            }
+        }
+        return matches;
+    }
+
+    // Levenshtein distance over two rolling rows
+    static int distance(String left, String right) {
+        int[] previous = new int[right.length() + 1];
+        int[] current = new int[right.length() + 1];
+        for (int j = 0; j <= right.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= left.length(); i++) {
+            current[0] = i;
+            for (int j = 1; j <= right.length(); j++) {
+                int substitution = previous[j - 1] + (left.charAt(i - 1) == right.charAt(j - 1) ? 0 : 1);
+                current[j] = Math.min(substitution, Math.min(previous[j], current[j - 1]) + 1);
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[right.length()];
+    }
+
+    private static final class Node {
+        final String term;
+        final Map<Integer, Node> children = new HashMap<>(4);
+        boolean removed;
+
+        Node(String term) {
+            this.term = term;
+        }
+    }
+}
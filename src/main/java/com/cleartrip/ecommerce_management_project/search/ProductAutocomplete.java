@@ -0,0 +1,365 @@
+package com.cleartrip.ecommerce_management_project.search;
+
+import com.cleartrip.ecommerce_management_project.catalog.CatalogVersions;
+import com.cleartrip.ecommerce_management_project.dto.ProductSuggestion;
+import com.cleartrip.ecommerce_management_project.event.ProductChangeEvent;
+import com.cleartrip.ecommerce_management_project.service.CatalogLoader;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// typeahead over product names: a radix trie keyed by every word suffix of a
+// normalized name, where each node keeps the top-k most viewed products below it,
+// so a completion is a walk down the prefix and a copy of that node's list
+@Component
+public class ProductAutocomplete {
+    // names with more words only get their first word suffixes indexed
+    static final int MAX_KEYS_PER_NAME = 8;
+
+    private final int topK;
+    private final CatalogLoader catalogLoader;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Node root = new Node("");
+    private final Map<Long, String> names = new HashMap<>();
+    private final Map<Long, List<String>> keys = new HashMap<>();
+    private final Map<Long, Long> views = new HashMap<>();
+
+    // views recorded by reads since the last flush, so the read path never takes the write lock
+    private final Map<Long, LongAdder> pendingViews = new ConcurrentHashMap<>();
+
+    // most viewed first, then alphabetically
+    private final Comparator<Long> ranking = Comparator.<Long>comparingLong(id -> -views.getOrDefault(id, 0L))
+            .thenComparing(names::get, String.CASE_INSENSITIVE_ORDER)
+            .thenComparing(Comparator.naturalOrder());
+
+    public ProductAutocomplete(CatalogLoader catalogLoader, @Value("${catalog.autocomplete.top-k:10}") int topK) {
+        if (topK < 1) {
+            throw new IllegalArgumentException("Autocomplete top-k must be positive");
+        }
+        this.topK = topK;
+        this.catalogLoader = catalogLoader;
+    }
+
+    // keeping the trie in step with product writes and the startup load
+    @Order(CatalogVersions.READ_MODEL_ORDER)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChange(ProductChangeEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (catalogLoader.isSuperseded(event)) {
+                return;
+            }
+            if (event.isDelete()) {
+                remove(event.getProductId());
+            } else {
+                index(event.getProductId(), event.getProduct().getName());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // adding a product or re-keying it after a rename
+    public void index(Long productId, String name) {
+        List<String> nameKeys = keysOf(name);
+        lock.writeLock().lock();
+        try {
+            if (name.equals(names.get(productId))) {
+                return;
+            }
+            removeKeys(productId);
+            names.put(productId, name);
+            keys.put(productId, nameKeys);
+            for (String key : nameKeys) {
+                insert(key, productId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            removeKeys(productId);
+            names.remove(productId);
+            views.remove(productId);
+            pendingViews.remove(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // counting a product view towards its ranking, applied on the next flush
+    public void recordView(Long productId) {
+        pendingViews.computeIfAbsent(productId, id -> new LongAdder()).increment();
+    }
+
+    // applying the buffered views. a view only ever raises a product, so each
+    // node on its paths is fixed up by offering the product again
+    @Scheduled(fixedDelayString = "${catalog.autocomplete.flush-interval:5s}")
+    public void flushViews() {
+        Map<Long, Long> counted = new HashMap<>();
+        pendingViews.forEach((productId, adder) -> {
+            long count = adder.sumThenReset();
+            if (count > 0) {
+                counted.put(productId, count);
+            }
+        });
+        if (counted.isEmpty()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            counted.forEach((productId, count) -> {
+                List<String> productKeys = keys.get(productId);
+                if (productKeys == null) {
+                    pendingViews.remove(productId);
+                    return;
+                }
+                views.merge(productId, count, Long::sum);
+                for (String key : productKeys) {
+                    for (Node node : pathTo(key)) {
+                        offer(node, productId);
+                    }
+                }
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // best completions of what has been typed so far, at most top-k of them
+    public List<ProductSuggestion> complete(String prefix, int limit) {
+        String key = normalizePrefix(prefix);
+        if (key.isEmpty() || limit < 1) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            Node node = root;
+            int position = 0;
+            while (position < key.length()) {
+                Node child = node.children.get(key.charAt(position));
+                if (child == null) {
+                    return List.of();
+                }
+                int common = commonLength(child.label, key, position);
+                if (common < child.label.length() && position + common < key.length()) {
+                    return List.of();
+                }
+                node = child;
+                position += common;
+            }
+            return node.top.stream()
+                    .limit(limit)
+                    .map(id -> new ProductSuggestion(id, names.get(id)))
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // the most suggestions a completion returns
+    public int topK() {
+        return topK;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return names.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // lower-cased words of the name joined by single spaces, from each word to the end
+    static List<String> keysOf(String name) {
+        List<String> words = words(name);
+        List<String> nameKeys = new ArrayList<>();
+        for (int i = 0; i < words.size() && i < MAX_KEYS_PER_NAME; i++) {
+            String key = String.join(" ", words.subList(i, words.size()));
+            if (!nameKeys.contains(key)) {
+                nameKeys.add(key);
+            }
+        }
+        return nameKeys;
+    }
+
+    // the typed text normalized like the keys, keeping a trailing word break
+    public static String normalizePrefix(String prefix) {
+        List<String> words = words(prefix);
+        if (words.isEmpty()) {
+            return "";
+        }
+        String key = String.join(" ", words);
+        char last = prefix.charAt(prefix.length() - 1);
+        return Character.isLetterOrDigit(last) ? key : key + " ";
+    }
+
+    private static List<String> words(String text) {
+        if (text == null) {
+            return List.of();
+        }
+        List<String> words = new ArrayList<>();
+        for (String word : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+
+    private void insert(String key, Long productId) {
+        List<Node> path = new ArrayList<>();
+        path.add(root);
+        Node node = root;
+        int position = 0;
+        while (position < key.length()) {
+            Node child = node.children.get(key.charAt(position));
+            if (child == null) {
+                child = new Node(key.substring(position));
+                node.children.put(child.label.charAt(0), child);
+                position = key.length();
+            } else {
+                int common = commonLength(child.label, key, position);
+                if (common < child.label.length()) {
+                    child = split(node, child, common);
+                }
+                position += common;
+            }
+            node = child;
+            path.add(node);
+        }
+        node.terminals.add(productId);
+        for (Node pathNode : path) {
+            offer(pathNode, productId);
+        }
+    }
+
+    // cutting the edge to a child in two, the upper half taking over the child's rankings
+    private static Node split(Node parent, Node child, int at) {
+        Node upper = new Node(child.label.substring(0, at));
+        upper.top = new ArrayList<>(child.top);
+        child.label = child.label.substring(at);
+        upper.children.put(child.label.charAt(0), child);
+        parent.children.put(upper.label.charAt(0), upper);
+        return upper;
+    }
+
+    private void removeKeys(Long productId) {
+        List<String> productKeys = keys.remove(productId);
+        if (productKeys == null) {
+            return;
+        }
+        for (String key : productKeys) {
+            List<Node> path = pathTo(key);
+            if (path.isEmpty()) {
+                continue;
+            }
+            path.get(path.size() - 1).terminals.remove(productId);
+            // a removal can let a product from another branch into a node's top-k,
+            // so the rankings are rebuilt from the children, deepest node first
+            for (int i = path.size() - 1; i >= 0; i--) {
+                Node node = path.get(i);
+                if (i > 0 && node.terminals.isEmpty() && node.children.size() <= 1) {
+                    Node parent = path.get(i - 1);
+                    if (node.children.isEmpty()) {
+                        parent.children.remove(node.label.charAt(0));
+                        continue;
+                    }
+                    merge(node);
+                }
+                rerank(node);
+            }
+        }
+    }
+
+    // folding the only child into a node that no longer ends any key
+    private static void merge(Node node) {
+        Node only = node.children.values().iterator().next();
+        node.label = node.label + only.label;
+        node.children = only.children;
+        node.terminals = only.terminals;
+        node.top = only.top;
+    }
+
+    // nodes from the root to the end of a key, empty when the key is not in the trie
+    private List<Node> pathTo(String key) {
+        List<Node> path = new ArrayList<>();
+        path.add(root);
+        Node node = root;
+        int position = 0;
+        while (position < key.length()) {
+            Node child = node.children.get(key.charAt(position));
+            if (child == null || !key.startsWith(child.label, position)) {
+                return List.of();
+            }
+            node = child;
+            position += child.label.length();
+            path.add(node);
+        }
+        return path;
+    }
+
+    private void offer(Node node, Long productId) {
+        List<Long> top = node.top;
+        if (!top.contains(productId)) {
+            if (top.size() == topK && ranking.compare(productId, top.get(topK - 1)) > 0) {
+                return;
+            }
+            top.add(productId);
+        }
+        top.sort(ranking);
+        if (top.size() > topK) {
+            top.remove(topK);
+        }
+    }
+
+    private void rerank(Node node) {
+        Set<Long> candidates = new LinkedHashSet<>(node.terminals);
+        for (Node child : node.children.values()) {
+            candidates.addAll(child.top);
+        }
+        List<Long> top = new ArrayList<>(candidates);
+        top.sort(ranking);
+        node.top = top.size() > topK ? new ArrayList<>(top.subList(0, topK)) : top;
+    }
+
+    private static int commonLength(String label, String key, int offset) {
+        int length = Math.min(label.length(), key.length() - offset);
+        int common = 0;
+        while (common < length && label.charAt(common) == key.charAt(offset + common)) {
+            common++;
+        }
+        return common;
+    }
+
+    private static final class Node {
+        String label;
+        Map<Character, Node> children = new HashMap<>();
+        Set<Long> terminals = new HashSet<>();
+        List<Long> top = new ArrayList<>();
+
+        Node(String label) {
+            this.label = label;
+        }
+    }
+}
@@ -0,0 +1,285 @@
+package com.cleartrip.ecommerce_management_project.search;
+
+import com.cleartrip.ecommerce_management_project.catalog.CatalogVersions;
+import com.cleartrip.ecommerce_management_project.event.ProductChangeEvent;
+import com.cleartrip.ecommerce_management_project.service.CatalogLoader;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// in-memory inverted index over product names.
+// every name token is indexed as a whole and as trigrams, so a query token
+// is answered as a substring match without scanning the products table.
+// the distinct tokens also form a BK-tree for typo-tolerant lookups
+@Component
+public class ProductSearchIndex {
+    static final int GRAM_SIZE = 3;
+
+    // upper bound on the edits a fuzzy query may ask for
+    private final int maxEdits;
+    // upper bound on the vocabulary terms a fuzzy query token is compared with
+    private final int maxVisits;
+    private final CatalogLoader catalogLoader;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Set<Long>> tokenPostings = new HashMap<>();
+    private final Map<String, Set<Long>> gramPostings = new HashMap<>();
+    private final Map<Long, List<String>> indexedTokens = new HashMap<>();
+    private BkTree vocabularyTree = new BkTree();
+
+    public ProductSearchIndex(CatalogLoader catalogLoader,
+                              @Value("${catalog.search.fuzzy.max-edits:2}") int maxEdits,
+                              @Value("${catalog.search.fuzzy.max-visits:20000}") int maxVisits) {
+        this.catalogLoader = catalogLoader;
+        this.maxEdits = maxEdits;
+        this.maxVisits = maxVisits;
+    }
+
+    // keeping the index in step with product writes and the startup load
+    @Order(CatalogVersions.READ_MODEL_ORDER)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChange(ProductChangeEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (catalogLoader.isSuperseded(event)) {
+                return;
+            }
+            if (event.isDelete()) {
+                remove(event.getProductId());
+            } else {
+                index(event.getProductId(), event.getProduct().getName());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // adding or replacing the name of a product
+    public void index(Long productId, String name) {
+        List<String> tokens = tokenize(name);
+        lock.writeLock().lock();
+        try {
+            unindex(productId);
+            for (String token : tokens) {
+                tokenPostings.computeIfAbsent(token, key -> {
+                    vocabularyTree.add(key);
+                    return new HashSet<>();
+                }).add(productId);
+                for (String gram : grams(token)) {
+                    gramPostings.computeIfAbsent(gram, key -> new HashSet<>()).add(productId);
+                }
+            }
+            indexedTokens.put(productId, tokens);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // removing a product from the index
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            unindex(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ids of the products whose name contains every token of the query,
+    // products matching whole tokens first and then by id
+    public List<Long> search(String query) {
+        List<String> queryTokens = tokenize(query);
+        if (queryTokens.isEmpty()) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            Set<Long> matches = null;
+            for (String token : queryTokens) {
+                Set<Long> candidates = candidates(token);
+                if (matches == null) {
+                    matches = candidates;
+                } else {
+                    matches.retainAll(candidates);
+                }
+                if (matches.isEmpty()) {
+                    return List.of();
+                }
+            }
+            Map<Long, Integer> exactHits = new HashMap<>();
+            for (Long id : matches) {
+                int hits = 0;
+                for (String token : queryTokens) {
+                    if (tokenPostings.getOrDefault(token, Set.of()).contains(id)) {
+                        hits++;
+                    }
+                }
+                exactHits.put(id, hits);
+            }
+            List<Long> result = new ArrayList<>(matches);
+            result.sort(Comparator.<Long>comparingInt(exactHits::get).reversed().thenComparing(Comparator.naturalOrder()));
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // like search, but a query token also matches name tokens a few edits away.
+    // products are ordered by the edits needed to match the whole query, then by id
+    public List<Long> fuzzySearch(String query, int edits) {
+        List<String> queryTokens = tokenize(query);
+        if (queryTokens.isEmpty()) {
+            return List.of();
+        }
+        int cappedEdits = Math.max(0, Math.min(edits, maxEdits));
+        lock.readLock().lock();
+        try {
+            Map<Long, Integer> editsById = null;
+            for (String token : queryTokens) {
+                Map<Long, Integer> tokenMatches = new HashMap<>();
+                for (Long id : candidates(token)) {
+                    tokenMatches.put(id, 0);
+                }
+                int allowed = Math.min(cappedEdits, allowedEdits(token));
+                if (allowed > 0) {
+                    vocabularyTree.search(token, allowed, maxVisits).forEach((term, distance) -> {
+                        for (Long id : tokenPostings.get(term)) {
+                            tokenMatches.merge(id, distance, Math::min);
+                        }
+                    });
+                }
+                if (editsById == null) {
+                    editsById = tokenMatches;
+                } else {
+                    editsById.keySet().retainAll(tokenMatches.keySet());
+                    editsById.replaceAll((id, total) -> total + tokenMatches.get(id));
+                }
+                if (editsById.isEmpty()) {
+                    return List.of();
+                }
+            }
+            List<Long> result = new ArrayList<>(editsById.keySet());
+            result.sort(Comparator.<Long>comparingInt(editsById::get).thenComparing(Comparator.naturalOrder()));
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // distinct tokens currently present in the index
+    public Set<String> vocabulary() {
+        lock.readLock().lock();
+        try {
+            return new HashSet<>(tokenPostings.keySet());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return indexedTokens.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // lower-cased alphanumeric tokens of a text, without duplicates
+    public static List<String> tokenize(String text) {
+        if (text == null) {
+            return List.of();
+        }
+        List<String> tokens = new ArrayList<>();
+        for (String token : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!token.isEmpty() && !tokens.contains(token)) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    // products having a name token that contains the query token
+    private Set<Long> candidates(String queryToken) {
+        Set<Long> candidates = new HashSet<>();
+        if (queryToken.length() < GRAM_SIZE) {
+            // too short for trigrams, so match it against the vocabulary instead
+            tokenPostings.forEach((token, ids) -> {
+                if (token.contains(queryToken)) {
+                    candidates.addAll(ids);
+                }
+            });
+            return candidates;
+        }
+        List<Set<Long>> postings = new ArrayList<>();
+        for (String gram : grams(queryToken)) {
+            Set<Long> ids = gramPostings.get(gram);
+            if (ids == null) {
+                return candidates;
+            }
+            postings.add(ids);
+        }
+        postings.sort(Comparator.comparingInt(Set::size));
+        candidates.addAll(postings.get(0));
+        for (int i = 1; i < postings.size() && !candidates.isEmpty(); i++) {
+            candidates.retainAll(postings.get(i));
+        }
+        // trigrams can all be present without being adjacent, so confirm the match
+        candidates.removeIf(id -> indexedTokens.get(id).stream().noneMatch(token -> token.contains(queryToken)));
+        return candidates;
+    }
+
+    private void unindex(Long productId) {
+        List<String> tokens = indexedTokens.remove(productId);
+        if (tokens == null) {
+            return;
+        }
+        for (String token : tokens) {
+            removePosting(tokenPostings, token, productId);
+            if (!tokenPostings.containsKey(token)) {
+                vocabularyTree.remove(token);
+            }
+            for (String gram : grams(token)) {
+                removePosting(gramPostings, gram, productId);
+            }
+        }
+        if (vocabularyTree.needsRebuild()) {
+            vocabularyTree = BkTree.of(tokenPostings.keySet());
+        }
+    }
+
+    // short tokens get fewer edits, otherwise one or two edits would match
+    // most of the vocabulary
+    private static int allowedEdits(String token) {
+        if (token.length() <= 2) {
+            return 0;
+        }
+        return token.length() <= 5 ? 1 : 2;
+    }
+
+    private static void removePosting(Map<String, Set<Long>> postings, String key, Long productId) {
+        Set<Long> ids = postings.get(key);
+        if (ids != null && ids.remove(productId) && ids.isEmpty()) {
+            postings.remove(key);
+        }
+    }
+
+    private static Set<String> grams(String token) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM_SIZE <= token.length(); i++) {
+            grams.add(token.substring(i, i + GRAM_SIZE));
+        }
+        return grams;
+    }
+}
@@ -42,8 +42,8 @@ public class CartService {
         if (cartOptional.isPresent()) {
             Cart cart = cartOptional.get();
 
-            Optional<Inventory> inventoryOptional = inventoryService.getInventoryByProduct(product);
-            if (inventoryOptional.isEmpty() || inventoryOptional.get().getQuantity() < quantity) {
+            // the added quantity is held for the cart until checkout, removal or expiry
+            if (!inventoryService.reserveForCart(user, product, quantity)) {
                 return Optional.empty();
             }
 
@@ -71,7 +71,9 @@ public class CartService {
         if (cartOptional.isPresent()) {
             Cart cart = cartOptional.get();
             cart.getItems().removeIf(item -> item.getProduct().getId().equals(product.getId()));
-            return Optional.of(cartRepository.save(cart));
+            Cart savedCart = cartRepository.save(cart);
+            inventoryService.releaseCartReservation(user, product);
+            return Optional.of(savedCart);
         }
         return Optional.empty();
     }
@@ -84,6 +86,7 @@ public class CartService {
     public void clearCart(Cart cart) {
         cart.getItems().clear();
         cartRepository.save(cart);
+        inventoryService.releaseCartReservations(cart.getUser());
     }
 
     @Transactional
@@ -102,6 +105,10 @@ public class CartService {
                     return cartRepository.save(newCart);
                 });
 
+        if (!inventoryService.reserveForCart(user, product, quantity)) {
+            throw new RuntimeException("Not enough stock");
+        }
+
         Optional<CartItem> existingItem = cart.getItems().stream()
                 .filter(item -> item.getProduct().getId().equals(productId))
                 .findFirst();
@@ -146,6 +153,10 @@ public class CartService {
         }
 
         CartItem item = itemOpt.get();
+        // a cart holding more has to get the difference reserved first, empty when it cannot
+        if (!inventoryService.resizeCartReservation(cart.getUser(), item.getProduct(), quantity)) {
+            return Optional.empty();
+        }
         item.setQuantity(quantity);
 
         cart.recalculateTotalPrice();
@@ -175,6 +186,7 @@ public class CartService {
 
         cart.recalculateTotalPrice();
         cartRepository.save(cart);
+        inventoryService.releaseCartReservation(cart.getUser(), item.getProduct());
 
         return Optional.of(cart);
     }
@@ -190,6 +202,8 @@ public class CartService {
         cart.getItems().clear();
         cart.setTotalPrice(0.0);
 
-        return Optional.of(cartRepository.save(cart));
+        Cart savedCart = cartRepository.save(cart);
+        inventoryService.releaseCartReservations(cart.getUser());
+        return Optional.of(savedCart);
     }
 }
\ No newline at end of file
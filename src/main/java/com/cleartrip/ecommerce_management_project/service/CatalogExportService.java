@@ -0,0 +1,65 @@
+package com.cleartrip.ecommerce_management_project.service;
+
+import com.cleartrip.ecommerce_management_project.dto.ProductImportRow;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+// writes the whole catalog as NDJSON straight from a forward-only result set,
+// one row in memory at a time. the line format is the one the import accepts
+@Service
+public class CatalogExportService {
+    private static final String EXPORT_QUERY =
+            "SELECT p.id, p.name, p.description, p.price, p.category, i.quantity " +
+            "FROM products p LEFT JOIN inventory i ON i.product_id = p.id ORDER BY p.id";
+
+    private final JdbcTemplate streamingJdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public CatalogExportService(DataSource dataSource, ObjectMapper objectMapper) {
+        this(new JdbcTemplate(dataSource), objectMapper);
+        // MySQL Connector/J only streams rows instead of buffering the whole result with this fetch size
+        this.streamingJdbcTemplate.setFetchSize(Integer.MIN_VALUE);
+    }
+
+    CatalogExportService(JdbcTemplate streamingJdbcTemplate, ObjectMapper objectMapper) {
+        this.streamingJdbcTemplate = streamingJdbcTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    // one product per line, the lines separated by newlines; an empty catalog writes nothing
+    public void exportNdjson(OutputStream output) throws IOException {
+        SequenceWriter writer = objectMapper.writerFor(ProductImportRow.class)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .withRootValueSeparator("\n")
+                .writeValues(output);
+        try {
+            streamingJdbcTemplate.query(EXPORT_QUERY, resultSet -> {
+                ProductImportRow row = new ProductImportRow(
+                        resultSet.getLong("id"),
+                        resultSet.getString("name"),
+                        resultSet.getString("description"),
+                        resultSet.getDouble("price"),
+                        resultSet.getString("category"),
+                        resultSet.getObject("quantity", Integer.class));
+                try {
+                    writer.write(row);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+        output.flush();
+    }
+}
@@ -0,0 +1,325 @@
+package com.cleartrip.ecommerce_management_project.service;
+
+import com.cleartrip.ecommerce_management_project.dto.ImportResult;
+import com.cleartrip.ecommerce_management_project.dto.ProductImportRow;
+import com.cleartrip.ecommerce_management_project.event.ProductChangeEvent;
+import com.cleartrip.ecommerce_management_project.event.StockChangeEvent;
+import com.cleartrip.ecommerce_management_project.inventory.StockLedger;
+import com.cleartrip.ecommerce_management_project.model.Product;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+// streams a catalog feed into the products and inventory tables.
+// rows are parsed one at a time and upserted in JDBC batches, one transaction
+// per batch; when a batch fails its rows are retried one by one so that only
+// the broken rows are reported. with the stock ledger the rows keep their stock and the
+// levels of the feed are set through the ledger once written, which also holds the
+// changes it has not flushed to the rows yet
+@Service
+public class CatalogImportService {
+    public static final String NDJSON = "application/x-ndjson";
+    private static final int MAX_REPORTED_ERRORS = 1000;
+
+    private static final String UPSERT_PRODUCT =
+            "INSERT INTO products (id, name, description, price, category) VALUES (?, ?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE name = VALUES(name), description = VALUES(description), " +
+            "price = VALUES(price), category = VALUES(category)";
+
+    // a missing quantity creates the row with 0 but keeps the stock of existing rows
+    private static final String UPSERT_INVENTORY =
+            "INSERT INTO inventory (id, product_id, quantity) VALUES (?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE quantity = COALESCE(?, quantity)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired(required = false)
+    private StockLedger stockLedger;
+
+    @Value("${catalog.import.batch-size:1000}")
+    private int batchSize = 1000;
+
+    // importing newline-delimited JSON, one product object per line
+    public ImportResult importNdjson(InputStream input) throws IOException {
+        ImportResult result = new ImportResult();
+        List<PendingRow> batch = new ArrayList<>(batchSize);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        String text;
+        long line = 0;
+        while ((text = reader.readLine()) != null) {
+            line++;
+            if (text.isBlank()) {
+                continue;
+            }
+            ProductImportRow row;
+            try {
+                row = objectMapper.readValue(text, ProductImportRow.class);
+            } catch (JsonProcessingException e) {
+                fail(result, line, "Malformed JSON: " + e.getOriginalMessage());
+                continue;
+            }
+            // a line holding just null parses to no row at all
+            if (row == null) {
+                fail(result, line, "Expected a product object");
+                continue;
+            }
+            accept(new PendingRow(line, row), batch, result);
+        }
+        flush(batch, result);
+        return result;
+    }
+
+    // importing CSV with a header row naming the columns
+    public ImportResult importCsv(InputStream input) throws IOException {
+        ImportResult result = new ImportResult();
+        CsvReader reader = new CsvReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        List<String> header = reader.next();
+        if (header == null) {
+            return result;
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        for (String required : List.of("id", "name", "price", "category")) {
+            if (!columns.containsKey(required)) {
+                fail(result, reader.recordLine(), "Missing column: " + required);
+                return result;
+            }
+        }
+
+        List<PendingRow> batch = new ArrayList<>(batchSize);
+        List<String> fields;
+        while ((fields = reader.next()) != null) {
+            ProductImportRow row = new ProductImportRow();
+            try {
+                row.setId(parseLong(field(fields, columns, "id")));
+                row.setName(field(fields, columns, "name"));
+                row.setDescription(field(fields, columns, "description"));
+                row.setPrice(parseDouble(field(fields, columns, "price")));
+                row.setCategory(field(fields, columns, "category"));
+                row.setQuantity(parseInteger(field(fields, columns, "quantity")));
+            } catch (NumberFormatException e) {
+                fail(result, reader.recordLine(), "Invalid number: " + e.getMessage());
+                continue;
+            }
+            accept(new PendingRow(reader.recordLine(), row), batch, result);
+        }
+        flush(batch, result);
+        return result;
+    }
+
+    private void accept(PendingRow pending, List<PendingRow> batch, ImportResult result) {
+        String problem = validate(pending.row);
+        if (problem != null) {
+            fail(result, pending.line, problem);
+            return;
+        }
+        batch.add(pending);
+        if (batch.size() >= batchSize) {
+            flush(batch, result);
+        }
+    }
+
+    private void flush(List<PendingRow> batch, ImportResult result) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<PendingRow> written = new ArrayList<>(batch.size());
+        try {
+            Set<Long> existing = transactionTemplate.execute(status -> write(batch));
+            for (PendingRow pending : batch) {
+                // a product repeated in the batch is only created by its first row
+                succeed(result, pending.row, existing.add(pending.row.getId()));
+            }
+            written.addAll(batch);
+        } catch (DataAccessException e) {
+            for (PendingRow pending : batch) {
+                try {
+                    Set<Long> existing = transactionTemplate.execute(status -> write(List.of(pending)));
+                    succeed(result, pending.row, existing.isEmpty());
+                    written.add(pending);
+                } catch (DataAccessException rowError) {
+                    fail(result, pending.line, NestedExceptionUtils.getMostSpecificCause(rowError).getMessage());
+                }
+            }
+        }
+        setLevels(written);
+        batch.clear();
+    }
+
+    // upserting the rows, returns the ids of those that existed before. they are looked up
+    // first since the update counts of a batch rewritten by the driver are SUCCESS_NO_INFO
+    private Set<Long> write(List<PendingRow> rows) {
+        Set<Long> ids = new LinkedHashSet<>();
+        rows.forEach(pending -> ids.add(pending.row.getId()));
+        String placeholders = String.join(", ", Collections.nCopies(ids.size(), "?"));
+        Set<Long> existing = new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT id FROM products WHERE id IN (" + placeholders + ")", Long.class, ids.toArray()));
+
+        jdbcTemplate.batchUpdate(UPSERT_PRODUCT, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement statement, int i) throws SQLException {
+                ProductImportRow row = rows.get(i).row;
+                statement.setLong(1, row.getId());
+                statement.setString(2, row.getName());
+                statement.setString(3, row.getDescription());
+                statement.setDouble(4, row.getPrice());
+                statement.setString(5, row.getCategory());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return rows.size();
+            }
+        });
+        jdbcTemplate.batchUpdate(UPSERT_INVENTORY, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement statement, int i) throws SQLException {
+                ProductImportRow row = rows.get(i).row;
+                statement.setLong(1, row.getId());
+                statement.setLong(2, row.getId());
+                statement.setInt(3, row.getQuantity() != null ? row.getQuantity() : 0);
+                // an existing row is left to the ledger, see setLevels
+                statement.setObject(4, stockLedger != null ? null : row.getQuantity(), Types.INTEGER);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return rows.size();
+            }
+        });
+        return existing;
+    }
+
+    private void succeed(ImportResult result, ProductImportRow row, boolean created) {
+        result.setProcessed(result.getProcessed() + 1);
+        result.setImported(result.getImported() + 1);
+
+        Product product = new Product();
+        product.setId(row.getId());
+        product.setName(row.getName());
+        product.setDescription(row.getDescription());
+        product.setPrice(row.getPrice());
+        product.setCategory(row.getCategory());
+        eventPublisher.publishEvent(created
+                ? ProductChangeEvent.created(product)
+                : ProductChangeEvent.updated(product));
+    }
+
+    // the stock levels of written rows. the upsert has put them in the table unless the
+    // ledger keeps stock, which then sets them as a checkout would see them
+    private void setLevels(List<PendingRow> rows) {
+        List<ProductImportRow> levels = new ArrayList<>();
+        rows.forEach(pending -> {
+            if (pending.row.getQuantity() != null) {
+                levels.add(pending.row);
+            }
+        });
+        if (stockLedger == null) {
+            levels.forEach(row -> eventPublisher.publishEvent(new StockChangeEvent(row.getId(), null, row.getQuantity())));
+            return;
+        }
+        if (levels.isEmpty()) {
+            return;
+        }
+        List<StockLedger.Change> changes = new ArrayList<>(levels.size());
+        levels.forEach(row -> changes.add(new StockLedger.Change(row.getId(), true, row.getQuantity())));
+        List<Integer> found = stockLedger.applyAll(changes);
+        for (int i = 0; i < levels.size(); i++) {
+            Integer previous = found.get(i);
+            int quantity = levels.get(i).getQuantity();
+            if (previous != null && previous != quantity) {
+                eventPublisher.publishEvent(new StockChangeEvent(levels.get(i).getId(), quantity - previous, quantity));
+            }
+        }
+    }
+
+    private static void fail(ImportResult result, long line, String message) {
+        result.setProcessed(result.getProcessed() + 1);
+        result.setFailed(result.getFailed() + 1);
+        if (result.getErrors().size() < MAX_REPORTED_ERRORS) {
+            result.getErrors().add(new ImportResult.RowError(line, message));
+        } else {
+            result.setErrorsTruncated(true);
+        }
+    }
+
+    private static String validate(ProductImportRow row) {
+        if (row.getId() == null || row.getId() <= 0) {
+            return "id must be a positive number";
+        }
+        if (row.getName() == null || row.getName().isBlank()) {
+            return "name is required";
+        }
+        if (row.getPrice() == null || row.getPrice() < 0) {
+            return "price must be zero or more";
+        }
+        if (row.getCategory() == null || row.getCategory().isBlank()) {
+            return "category is required";
+        }
+        if (row.getQuantity() != null && row.getQuantity() < 0) {
+            return "quantity must be zero or more";
+        }
+        return null;
+    }
+
+    private static String field(List<String> fields, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        if (index == null || index >= fields.size()) {
+            return null;
+        }
+        String value = fields.get(index);
+        return value.isEmpty() ? null : value;
+    }
+
+    private static Long parseLong(String value) {
+        return value == null ? null : Long.valueOf(value.trim());
+    }
+
+    private static Integer parseInteger(String value) {
+        return value == null ? null : Integer.valueOf(value.trim());
+    }
+
+    private static Double parseDouble(String value) {
+        return value == null ? null : Double.valueOf(value.trim());
+    }
+
+    private record PendingRow(long line, ProductImportRow row) {
+    }
+}
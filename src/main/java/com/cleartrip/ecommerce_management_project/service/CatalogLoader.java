@@ -0,0 +1,89 @@
+package com.cleartrip.ecommerce_management_project.service;
+
+import com.cleartrip.ecommerce_management_project.catalog.CatalogVersions;
+import com.cleartrip.ecommerce_management_project.event.ProductChangeEvent;
+import com.cleartrip.ecommerce_management_project.model.Product;
+import com.cleartrip.ecommerce_management_project.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// walks the products table once at startup and replays it as LOADED events,
+// so every in-memory catalog structure is warmed from a single scan
+@Component
+public class CatalogLoader {
+    private static final int BATCH_SIZE = 1000;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private CatalogVersions catalogVersions;
+
+    // set once the whole table has been replayed. the web server is up before that, and
+    // reads that would see a partly warmed structure go to the table until then
+    private volatile boolean loaded;
+
+    // products written while the load runs. a batch is read before it is replayed, so
+    // the LOADED copy of these can be older than what the read models were already given
+    private final Set<Long> writtenWhileLoading = new HashSet<>();
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    // noting a write ahead of the read models, so none of them has applied it yet
+    @Order(CatalogVersions.READ_MODEL_ORDER - 1)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChange(ProductChangeEvent event) {
+        if (event.getType() != ProductChangeEvent.Type.LOADED && !loaded) {
+            synchronized (writtenWhileLoading) {
+                if (!loaded) {
+                    writtenWhileLoading.add(event.getProductId());
+                }
+            }
+        }
+    }
+
+    // true for a LOADED event older than a write of the same product. a read model asks
+    // under the lock it applies its events with, so the write either is noted by then
+    // or is applied after the stale copy and replaces it
+    public boolean isSuperseded(ProductChangeEvent event) {
+        if (event.getType() != ProductChangeEvent.Type.LOADED) {
+            return false;
+        }
+        synchronized (writtenWhileLoading) {
+            return writtenWhileLoading.contains(event.getProductId());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadCatalog() {
+        long lastId = Long.MIN_VALUE;
+        List<Product> batch;
+        do {
+            batch = productRepository.findBatchAfter(lastId, Limit.of(BATCH_SIZE));
+            for (Product product : batch) {
+                eventPublisher.publishEvent(ProductChangeEvent.loaded(product));
+                lastId = product.getId();
+            }
+        } while (batch.size() == BATCH_SIZE);
+        synchronized (writtenWhileLoading) {
+            loaded = true;
+            // no LOADED event follows, so nothing is left to compare against
+            writtenWhileLoading.clear();
+        }
+        catalogVersions.catalogLoaded();
+    }
+}
@@ -1,61 +1,326 @@
 package com.cleartrip.ecommerce_management_project.service;
 
+import com.cleartrip.ecommerce_management_project.cache.StockLevelCache;
+import com.cleartrip.ecommerce_management_project.dto.CursorPage;
+import com.cleartrip.ecommerce_management_project.dto.StockLevel;
+import com.cleartrip.ecommerce_management_project.event.StockChangeEvent;
+import com.cleartrip.ecommerce_management_project.inventory.InventoryShards;
+import com.cleartrip.ecommerce_management_project.inventory.StockLedger;
+import com.cleartrip.ecommerce_management_project.inventory.StockReservations;
 import com.cleartrip.ecommerce_management_project.model.Inventory;
 import com.cleartrip.ecommerce_management_project.model.Product;
+import com.cleartrip.ecommerce_management_project.model.User;
 import com.cleartrip.ecommerce_management_project.repository.InventoryRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
 @Service
 public class InventoryService {
+    public static final int MAX_PAGE_SIZE = 1000;
+
     @Autowired
     private InventoryRepository inventoryRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
 
-    public Inventory addStock(Product product, Integer quantity) {
-        Optional<Inventory> existingInventory = inventoryRepository.findByProduct(product);
+    // present when inventory.ledger.enabled is set, stock levels are then kept in memory
+    // and written behind, and the rows only hold them as of the last flush
+    @Autowired(required = false)
+    private StockLedger stockLedger;
+
+    @Autowired
+    private StockReservations stockReservations;
+
+    @Autowired
+    private StockLevelCache stockLevelCache;
+
+    @Autowired
+    private InventoryShards inventoryShards;
+
+    // adding stock to the existing inventory of a product, empty when it has none yet
+    public Optional<Inventory> addStock(Long productId, Integer quantity) {
+        Optional<Inventory> existingInventory = inventoryRepository.findByProductId(productId);
+        if (existingInventory.isPresent() && stockLedger != null) {
+            Integer newQuantity = stockLedger.adjust(productId, quantity);
+            if (newQuantity != null) {
+                publishStockChange(productId, quantity, newQuantity);
+                return Optional.of(withQuantity(existingInventory.get(), newQuantity));
+            }
+        }
+        if (existingInventory.isPresent() && inventoryShards.isSharded(productId)) {
+            Integer newQuantity = inventoryShards.adjust(productId, quantity);
+            if (newQuantity != null) {
+                publishStockChange(productId, quantity, newQuantity);
+                return Optional.of(withQuantity(existingInventory.get(), newQuantity));
+            }
+        }
         if (existingInventory.isPresent()) {
             Inventory inventory = existingInventory.get();
             inventory.setQuantity(inventory.getQuantity() + quantity);
-            return inventoryRepository.save(inventory);
-        } else {
+            Inventory savedInventory = inventoryRepository.save(inventory);
+            publishStockChange(productId, quantity, savedInventory.getQuantity());
+            return Optional.of(savedInventory);
+        }
+        return Optional.empty();
+    }
+
+    public Inventory addStock(Product product, Integer quantity) {
+        return addStock(product.getId(), quantity).orElseGet(() -> {
             Inventory inventory = new Inventory();
             inventory.setProduct(product);
             inventory.setQuantity(quantity);
-            return inventoryRepository.save(inventory);
-        }
+            Inventory savedInventory = inventoryRepository.save(inventory);
+            publishStockChange(product.getId(), quantity, savedInventory.getQuantity());
+            return savedInventory;
+        });
     }
 
     // update stock
-    public Optional<Inventory> updateStock(Product product, Integer quantity) {
-        Optional<Inventory> existingInventory = inventoryRepository.findByProduct(product);
+    public Optional<Inventory> updateStock(Long productId, Integer quantity) {
+        Optional<Inventory> existingInventory = inventoryRepository.findByProductId(productId);
+        if (existingInventory.isPresent() && stockLedger != null) {
+            Integer previous = stockLedger.set(productId, quantity);
+            if (previous != null) {
+                publishStockChange(productId, quantity - previous, quantity);
+                return Optional.of(withQuantity(existingInventory.get(), quantity));
+            }
+        }
+        if (existingInventory.isPresent() && inventoryShards.isSharded(productId)) {
+            Integer previous = inventoryShards.set(productId, quantity);
+            if (previous != null) {
+                publishStockChange(productId, quantity - previous, quantity);
+                return Optional.of(withQuantity(existingInventory.get(), quantity));
+            }
+        }
         if (existingInventory.isPresent()) {
             Inventory inventory = existingInventory.get();
+            int delta = quantity - inventory.getQuantity();
             inventory.setQuantity(quantity);
-            return Optional.of(inventoryRepository.save(inventory));
+            Inventory savedInventory = inventoryRepository.save(inventory);
+            publishStockChange(productId, delta, quantity);
+            return Optional.of(savedInventory);
         }
         return Optional.empty();
     }
 
     // delete stock
-    public boolean deleteStock(Product product) {
-        Optional<Inventory> inventory = inventoryRepository.findByProduct(product);
+    public boolean deleteStock(Long productId) {
+        Optional<Inventory> inventory = inventoryRepository.findByProductId(productId);
         if (inventory.isPresent()) {
+            int quantity = withCurrentQuantity(inventory.get()).getQuantity();
             inventoryRepository.delete(inventory.get());
+            if (stockLedger != null) {
+                stockLedger.evict(productId);
+            }
+            if (inventoryShards.isSharded(productId)) {
+                inventoryShards.remove(productId);
+            }
+            publishStockChange(productId, -quantity, 0);
             return true;
         }
         return false;
     }
 
+    // splitting the stock of a product over count rows for a flash sale, so its checkouts
+    // stop queueing on one row lock. empty when the product has no inventory
+    public Optional<Inventory> enableSharding(Long productId, int count) {
+        if (stockLedger != null) {
+            throw new IllegalStateException("Stock is kept by the stock ledger, it takes no row locks to shard");
+        }
+        return inventoryRepository.findByProductId(productId)
+                .flatMap(inventory -> Optional.ofNullable(inventoryShards.enable(productId, count))
+                        .map(quantity -> withQuantity(inventory, quantity)));
+    }
+
+    // putting the stock of a product back on its inventory row
+    public Optional<Inventory> disableSharding(Long productId) {
+        return inventoryRepository.findByProductId(productId)
+                .flatMap(inventory -> Optional.ofNullable(inventoryShards.disable(productId))
+                        .map(quantity -> withQuantity(inventory, quantity)));
+    }
+
+    public int getShardCount(Long productId) {
+        return inventoryShards.shardCount(productId);
+    }
+
+    // taking stock for an order with one conditional UPDATE, false when not enough is left
+    // without dipping into the stock reserved for carts
+    @Transactional
+    public boolean tryReserve(Product product, int quantity) {
+        return tryReserve(product, quantity, stockReservations.reserved(product.getId()));
+    }
+
+    // taking stock for the order of a user, who may use what their own cart reserved
+    @Transactional
+    public boolean tryReserve(User user, Product product, int quantity) {
+        return tryReserve(product, quantity, stockReservations.reservedByOthers(user.getId(), product.getId()));
+    }
+
+    private boolean tryReserve(Product product, int quantity, int keep) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Reserved quantity must be positive");
+        }
+        if (stockLedger != null) {
+            return tryReserveFromLedger(product, quantity, keep);
+        }
+        if (inventoryShards.isSharded(product.getId())) {
+            if (!inventoryShards.tryTake(product.getId(), quantity, keep)) {
+                return false;
+            }
+        } else if (inventoryRepository.decrementIfAvailable(product.getId(), quantity, keep) == 0) {
+            return false;
+        }
+        eventPublisher.publishEvent(new StockChangeEvent(product.getId(), -quantity, null, true));
+        return true;
+    }
+
+    // holding stock for an item added to a user's cart, false when it is not available to promise
+    public boolean reserveForCart(User user, Product product, int quantity) {
+        return getAvailableQuantity(product.getId())
+                .map(onHand -> stockReservations.reserve(user.getId(), product.getId(), quantity, onHand))
+                .orElse(false);
+    }
+
+    // changing what a cart item holds to its new quantity
+    public boolean resizeCartReservation(User user, Product product, int quantity) {
+        return getAvailableQuantity(product.getId())
+                .map(onHand -> stockReservations.resize(user.getId(), product.getId(), quantity, onHand))
+                .orElse(quantity <= 0);
+    }
+
+    public void releaseCartReservation(User user, Product product) {
+        stockReservations.release(user.getId(), product.getId());
+    }
+
+    public void releaseCartReservations(User user) {
+        stockReservations.releaseAll(user.getId());
+    }
+
+    // stock on hand minus what carts hold
+    public Optional<Integer> getAvailableToPromise(Long productId) {
+        return getAvailableQuantity(productId).map(onHand -> stockReservations.availableToPromise(productId, onHand));
+    }
+
     // get all inventory
     public List<Inventory> getAllInventory() {
-        return inventoryRepository.findAll();
+        List<Inventory> inventories = inventoryRepository.findAll();
+        return inventories.stream().map(this::withCurrentQuantity).toList();
+    }
+
+    // scrolling the stock levels by product id, optionally only those within
+    // [minQuantity, maxQuantity], without loading the inventory rows. with the ledger on,
+    // the rows are picked by their flushed levels and shown with their current ones,
+    // leaving out those now outside the bounds, so a page may come out short
+    public CursorPage<StockLevel> scrollStockLevels(Integer minQuantity, Integer maxQuantity, String cursor, int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        ProductCursor position = cursor == null || cursor.isEmpty()
+                ? ProductCursor.start(ProductCursor.SortKey.ID, false)
+                : ProductCursor.decode(cursor, ProductCursor.SortKey.ID, false);
+
+        // one extra row tells whether another page exists
+        List<StockLevel> rows = inventoryRepository.scrollStockLevels(
+                position.getLastId(), minQuantity, maxQuantity, Limit.of(size + 1));
+        boolean hasNext = rows.size() > size;
+        List<StockLevel> page = hasNext ? rows.subList(0, size) : rows;
+        List<StockLevel> content = new ArrayList<>(page.size());
+        for (StockLevel level : page) {
+            Integer quantity = stockLedger != null ? stockLedger.peek(level.getProductId()) : null;
+            if (quantity != null) {
+                level.setQuantity(quantity);
+                if (!level.within(minQuantity, maxQuantity)) {
+                    continue;
+                }
+            }
+            content.add(level);
+        }
+        // the next page starts after the last row read, shown or not
+        String nextCursor = hasNext ? position.after(page.get(page.size() - 1).getProductId()).encode() : null;
+        return new CursorPage<>(content, nextCursor, hasNext, content.size());
+    }
+
+    // get inventory by product id
+    public Optional<Inventory> getInventoryByProductId(Long productId) {
+        Optional<Inventory> inventory = inventoryRepository.findByProductId(productId);
+        return inventory.map(this::withCurrentQuantity);
+    }
+
+    // stock of a product for availability checks: from memory when the ledger is on,
+    // from the stock level cache otherwise, which reads just the quantity on a miss
+    public Optional<Integer> getAvailableQuantity(Long productId) {
+        if (stockLedger != null) {
+            return stockLedger.available(productId);
+        }
+        return stockLevelCache.get(productId, this::loadQuantity);
+    }
+
+    // inside a checkout the take is only held in memory, it is journaled once the order has
+    // committed and given back when it rolls back. without a transaction it is journaled at once
+    private boolean tryReserveFromLedger(Product product, int quantity, int keep) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            int left = stockLedger.tryTake(product.getId(), quantity, keep);
+            if (left < 0) {
+                return false;
+            }
+            eventPublisher.publishEvent(new StockChangeEvent(product.getId(), -quantity, left, true));
+            return true;
+        }
+        StockLedger.Hold hold = stockLedger.tryHold(product.getId(), quantity, keep);
+        if (hold == null) {
+            return false;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                stockLedger.confirm(hold);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    stockLedger.release(hold);
+                }
+            }
+        });
+        eventPublisher.publishEvent(new StockChangeEvent(product.getId(), -quantity, hold.left(), true));
+        return true;
+    }
+
+    private Optional<Integer> loadQuantity(Long productId) {
+        if (inventoryShards.isSharded(productId)) {
+            return Optional.ofNullable(inventoryShards.totalQuantity(productId));
+        }
+        return inventoryRepository.findQuantityByProductId(productId);
+    }
+
+    // the stock of a row as reads should see it: the ledger's counter, or the row and its shards
+    private Inventory withCurrentQuantity(Inventory inventory) {
+        Long productId = inventory.getProduct().getId();
+        Integer quantity = null;
+        if (stockLedger != null) {
+            quantity = stockLedger.peek(productId);
+        } else if (inventoryShards.isSharded(productId)) {
+            quantity = inventoryShards.totalQuantity(productId);
+        }
+        return quantity == null ? inventory : withQuantity(inventory, quantity);
+    }
+
+    // a copy, the managed entity keeps the flushed level
+    private static Inventory withQuantity(Inventory inventory, int quantity) {
+        return new Inventory(inventory.getId(), inventory.getProduct(), quantity);
     }
 
-    // get inventory by product
-    public Optional<Inventory> getInventoryByProduct(Product product) {
-        return inventoryRepository.findByProduct(product);
+    private void publishStockChange(Long productId, int delta, Integer quantity) {
+        eventPublisher.publishEvent(new StockChangeEvent(productId, delta, quantity));
     }
-}
\ No newline at end of file
+}
@@ -8,8 +8,10 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
 
@@ -48,41 +50,37 @@ public class OrderService {
         if (cartOptional.isPresent() && !cartOptional.get().getItems().isEmpty()) {
             Cart cart = cartOptional.get();
 
-            double totalAmount = 0;
-            for (CartItem cartItem : cart.getItems()) {
-                Optional<Inventory> inventoryOptional = inventoryService.getInventoryByProduct(cartItem.getProduct());
-                if (inventoryOptional.isEmpty() || inventoryOptional.get().getQuantity() < cartItem.getQuantity()) {
-                    return Optional.empty();
-                }
-                totalAmount += cartItem.getProduct().getPrice() * cartItem.getQuantity();
-            }
-
             // order create kr rhe
             Order order = new Order();
             order.setUser(user);
             order.setOrderDate(LocalDateTime.now());
-            order.setTotalAmount(totalAmount);
             order.setStatus(OrderStatus.PENDING);
             order.setItems(new ArrayList<>());
 
+            // order items create kr rhe and inventory update kr rhe.
+            // items go in product id order so concurrent checkouts lock the rows in the same order
+            double totalAmount = 0;
+            List<CartItem> cartItems = new ArrayList<>(cart.getItems());
+            cartItems.sort(Comparator.comparing(cartItem -> cartItem.getProduct().getId()));
+            for (CartItem cartItem : cartItems) {
+                // one conditional UPDATE per item, a short item undoes the ones already taken.
+                // what this user's cart reserved is theirs to take, other carts' is not
+                if (!inventoryService.tryReserve(user, cartItem.getProduct(), cartItem.getQuantity())) {
+                    TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+                    return Optional.empty();
+                }
+                totalAmount += cartItem.getProduct().getPrice() * cartItem.getQuantity();
 
-
-            // order items create kr rhe and inventory update kr rhe
-            for (CartItem cartItem : cart.getItems()) {
                 OrderItem orderItem = new OrderItem();
                 orderItem.setOrder(order);
                 orderItem.setProduct(cartItem.getProduct());
                 orderItem.setQuantity(cartItem.getQuantity());
                 orderItem.setPrice(cartItem.getProduct().getPrice());
                 order.getItems().add(orderItem);
-
-                // inventory update kr rhe
-                Inventory inventory = inventoryService.getInventoryByProduct(cartItem.getProduct()).get();
-                inventory.setQuantity(inventory.getQuantity() - cartItem.getQuantity());
-                inventoryService.updateStock(cartItem.getProduct(), inventory.getQuantity());
             }
+            order.setTotalAmount(totalAmount);
 
-            // order save kiya and then cart clear kro
+            // order save kiya and then cart clear kro, which releases its reservations on commit
             Order savedOrder = orderRepository.save(order);
             cartService.clearCart(cart);
             return Optional.of(savedOrder);
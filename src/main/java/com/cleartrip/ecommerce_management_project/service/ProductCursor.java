@@ -0,0 +1,79 @@
+package com.cleartrip.ecommerce_management_project.service;
+
+import com.cleartrip.ecommerce_management_project.model.Product;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Locale;
+
+// position of a keyset scroll over products: the (sortKey, id) of the last row
+// returned, encoded as an opaque url-safe token
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class ProductCursor {
+    private static final String VERSION = "v1";
+
+    public enum SortKey {
+        ID,
+        PRICE
+    }
+
+    private final SortKey sortKey;
+    private final boolean descending;
+    private final double lastPrice;
+    private final long lastId;
+
+    // cursor positioned before the first row of the given ordering
+    public static ProductCursor start(SortKey sortKey, boolean descending) {
+        return new ProductCursor(sortKey, descending,
+                descending ? Double.MAX_VALUE : -Double.MAX_VALUE,
+                descending ? Long.MAX_VALUE : Long.MIN_VALUE);
+    }
+
+    // cursor positioned after the given product
+    public ProductCursor after(Product product) {
+        return new ProductCursor(sortKey, descending, product.getPrice(), product.getId());
+    }
+
+    // cursor positioned after the given id, for scrolls keyed by the id alone
+    public ProductCursor after(long id) {
+        return new ProductCursor(sortKey, descending, lastPrice, id);
+    }
+
+    public static SortKey parseSortKey(String sort) {
+        try {
+            return SortKey.valueOf(sort.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unsupported sort: " + sort);
+        }
+    }
+
+    public String encode() {
+        String raw = String.join(":", VERSION, sortKey.name(), descending ? "desc" : "asc",
+                Double.toString(lastPrice), Long.toString(lastId));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // decoding a cursor, which must have been issued for the same ordering
+    public static ProductCursor decode(String cursor, SortKey sortKey, boolean descending) {
+        String[] parts;
+        ProductCursor decoded;
+        try {
+            parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":");
+            if (parts.length != 5 || !VERSION.equals(parts[0])) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            decoded = new ProductCursor(SortKey.valueOf(parts[1]), "desc".equals(parts[2]),
+                    Double.parseDouble(parts[3]), Long.parseLong(parts[4]));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        if (decoded.sortKey != sortKey || decoded.descending != descending) {
+            throw new IllegalArgumentException("Cursor was issued for a different sort order");
+        }
+        return decoded;
+    }
+}
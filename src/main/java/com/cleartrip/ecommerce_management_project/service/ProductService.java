@@ -1,27 +1,81 @@
 package com.cleartrip.ecommerce_management_project.service;
 
+import com.cleartrip.ecommerce_management_project.cache.ProductCache;
+import com.cleartrip.ecommerce_management_project.cache.SingleFlight;
+import com.cleartrip.ecommerce_management_project.catalog.CatalogColumns;
+import com.cleartrip.ecommerce_management_project.catalog.FacetIndex;
+import com.cleartrip.ecommerce_management_project.catalog.PriceIndex;
+import com.cleartrip.ecommerce_management_project.dto.CacheStats;
+import com.cleartrip.ecommerce_management_project.dto.CatalogRow;
+import com.cleartrip.ecommerce_management_project.dto.CursorPage;
+import com.cleartrip.ecommerce_management_project.dto.FacetCounts;
+import com.cleartrip.ecommerce_management_project.dto.ProductSuggestion;
+import com.cleartrip.ecommerce_management_project.dto.ProductSummary;
+import com.cleartrip.ecommerce_management_project.event.ProductChangeEvent;
 import com.cleartrip.ecommerce_management_project.model.Product;
 import com.cleartrip.ecommerce_management_project.model.Inventory;
 import com.cleartrip.ecommerce_management_project.repository.ProductRepository;
+import com.cleartrip.ecommerce_management_project.search.ProductAutocomplete;
+import com.cleartrip.ecommerce_management_project.search.ProductSearchIndex;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import java.util.List;
 import java.util.Optional;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.PageImpl;
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
 
 @Service
 public class ProductService {
+    // ids accepted by one getProductsByIds call
+    public static final int MAX_BATCH_SIZE = 100;
+
+    // products loaded by one query when sortProducts reads the whole catalog by id
+    private static final int SORT_BATCH_SIZE = 1000;
+
     private final ProductRepository productRepository;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductAutocomplete productAutocomplete;
+    private final FacetIndex facetIndex;
+    private final CatalogColumns catalogColumns;
+    private final PriceIndex priceIndex;
+    private final CatalogLoader catalogLoader;
+    private final ProductCache productCache;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // concurrent identical reads share one database call
+    private final SingleFlight<Long, Optional<Product>> productLoads = new SingleFlight<>();
+    private final SingleFlight<FilterKey, Page<Product>> filterLoads = new SingleFlight<>();
     
     @Autowired
-    public ProductService(ProductRepository productRepository) {
+    public ProductService(ProductRepository productRepository,
+                          ProductSearchIndex productSearchIndex,
+                          ProductAutocomplete productAutocomplete,
+                          FacetIndex facetIndex,
+                          CatalogColumns catalogColumns,
+                          PriceIndex priceIndex,
+                          CatalogLoader catalogLoader,
+                          ProductCache productCache,
+                          ApplicationEventPublisher eventPublisher) {
         this.productRepository = productRepository;
+        this.productSearchIndex = productSearchIndex;
+        this.productAutocomplete = productAutocomplete;
+        this.facetIndex = facetIndex;
+        this.catalogColumns = catalogColumns;
+        this.priceIndex = priceIndex;
+        this.catalogLoader = catalogLoader;
+        this.productCache = productCache;
+        this.eventPublisher = eventPublisher;
     }
 
     // creating the product
@@ -35,7 +89,9 @@ public class ProductService {
             inventory.setQuantity(0);
             product.setInventory(inventory);
         }
-        return productRepository.save(product);
+        Product savedProduct = productRepository.save(product);
+        eventPublisher.publishEvent(ProductChangeEvent.created(savedProduct));
+        return savedProduct;
     }
 
     // updating the product
@@ -55,7 +111,9 @@ public class ProductService {
                     if (productDetails.getDescription() != null) {
                         existingProduct.setDescription(productDetails.getDescription());
                     }
-                    return productRepository.save(existingProduct);
+                    Product savedProduct = productRepository.save(existingProduct);
+                    eventPublisher.publishEvent(ProductChangeEvent.updated(savedProduct));
+                    return savedProduct;
                 });
     }
 
@@ -63,6 +121,7 @@ public class ProductService {
     public boolean deleteProduct(Long id) {
         if (productRepository.existsById(id)) {
             productRepository.deleteById(id);
+            eventPublisher.publishEvent(ProductChangeEvent.deleted(id));
             return true;
         }
         return false;
@@ -73,9 +132,28 @@ public class ProductService {
         return productRepository.findAll();
     }
 
-    // getting the product by the id of product
+    // getting the product by the id of product, served from the product cache when possible
     public Optional<Product> getProductById(Long id) {
-        return productRepository.findById(id);
+        return productCache.get(id, key -> productLoads.execute(key, () -> productRepository.findById(key)));
+    }
+
+    // a customer opened the product page, views rank the autocomplete suggestions
+    public void recordView(Long id) {
+        productAutocomplete.recordView(id);
+    }
+
+    // getting several products in one call, in the order of the ids.
+    // unknown ids are skipped
+    public List<Product> getProductsByIds(List<Long> ids) {
+        if (ids.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("At most " + MAX_BATCH_SIZE + " ids can be fetched at once");
+        }
+        return findAllInOrder(ids.stream().filter(Objects::nonNull).toList());
+    }
+
+    // hit, miss and eviction counters of the product cache
+    public CacheStats getCacheStats() {
+        return productCache.stats();
     }
 
     // searching the product by the name
@@ -83,6 +161,54 @@ public class ProductService {
         return productRepository.findByNameContainingIgnoreCase(name);
     }
 
+    // typeahead suggestions for a partially typed product name
+    public List<ProductSuggestion> autocomplete(String prefix, int limit) {
+        if (!catalogLoader.isLoaded()) {
+            // the trie is still being warmed, the table matches the names instead.
+            // the normalized prefix only holds letters, digits and spaces, nothing LIKE treats specially
+            String key = ProductAutocomplete.normalizePrefix(prefix);
+            if (key.isEmpty() || limit < 1) {
+                return List.of();
+            }
+            return productRepository.findSuggestions(key, Limit.of(Math.min(limit, productAutocomplete.topK())));
+        }
+        return productAutocomplete.complete(prefix, limit);
+    }
+
+    // searching the products by the name through the in-memory index
+    public Page<Product> searchProducts(String query, int page, int size) {
+        if (!catalogLoader.isLoaded()) {
+            return searchTable(query, page, size);
+        }
+        return pageOf(productSearchIndex.search(query), page, size);
+    }
+
+    // searching the products by the name, tolerating a few typos per word
+    public Page<Product> fuzzySearchProducts(String query, int maxEdits, int page, int size) {
+        if (!catalogLoader.isLoaded()) {
+            return searchTable(query, page, size);
+        }
+        return pageOf(productSearchIndex.fuzzySearch(query, maxEdits), page, size);
+    }
+
+    // the index is still being warmed, so the table answers with a plain substring
+    // match of the whole query, without typo tolerance
+    private Page<Product> searchTable(String query, int page, int size) {
+        PageRequest pageRequest = PageRequest.of(page, size, Sort.by("id"));
+        if (ProductSearchIndex.tokenize(query).isEmpty()) {
+            return Page.empty(pageRequest);
+        }
+        return productRepository.findByNameContainingIgnoreCase(query.trim(), pageRequest);
+    }
+
+    // loading one page of the products matched by an index, keeping the index order
+    private Page<Product> pageOf(List<Long> ids, int page, int size) {
+        PageRequest pageRequest = PageRequest.of(page, size);
+        int from = (int) Math.min(pageRequest.getOffset(), ids.size());
+        int to = Math.min(from + size, ids.size());
+        return new PageImpl<>(findAllInOrder(ids.subList(from, to)), pageRequest, ids.size());
+    }
+
     // searching the product by the category
     public List<Product> searchByCategory(String category) {
         return productRepository.findByCategory(category);
@@ -90,27 +216,156 @@ public class ProductService {
 
     // filtering the products by the category and price range
     public Page<Product> filterProducts(String category, Double minPrice, Double maxPrice, int page, int size) {
+        return filterLoads.execute(new FilterKey(category, minPrice, maxPrice, page, size),
+                () -> loadFilteredProducts(category, minPrice, maxPrice, page, size));
+    }
+
+    private Page<Product> loadFilteredProducts(String category, Double minPrice, Double maxPrice, int page, int size) {
         PageRequest pageRequest = PageRequest.of(page, size);
         
-        if (category != null && minPrice != null && maxPrice != null) {
-            return productRepository.findByCategoryAndPriceBetween(category, minPrice, maxPrice, pageRequest);
+        if (minPrice != null && maxPrice != null && !catalogLoader.isLoaded()) {
+            // the price index is still being warmed, the table pages in the same order
+            PageRequest byPrice = PageRequest.of(page, size, indexSort("asc"));
+            return category != null
+                    ? productRepository.findByCategoryAndPriceBetween(category, minPrice, maxPrice, byPrice)
+                    : productRepository.findByPriceBetween(minPrice, maxPrice, byPrice);
+        } else if (minPrice != null && maxPrice != null) {
+            // price ranges come from the price index, cheapest first
+            List<Long> ids = priceIndex.range(category, minPrice, maxPrice, false, pageRequest.getOffset(), size);
+            return new PageImpl<>(findAllInOrder(ids), pageRequest, priceIndex.count(category, minPrice, maxPrice));
         } else if (category != null) {
             return productRepository.findByCategory(category, pageRequest);
-        } else if (minPrice != null && maxPrice != null) {
-            return productRepository.findByPriceBetween(minPrice, maxPrice, pageRequest);
         } else {
             return productRepository.findAll(pageRequest);
         }
     }
 
+    // category and price-bucket counts for the same filter as filterProducts
+    public FacetCounts getFacets(String category, Double minPrice, Double maxPrice) {
+        if (!catalogLoader.isLoaded()) {
+            // the facet index is still being warmed, the table is grouped instead
+            return facetIndex.facetsOf(productRepository.countByCategoryAndPrice(), category, minPrice, maxPrice);
+        }
+        return facetIndex.facets(category, minPrice, maxPrice);
+    }
+
+    // summaries of the products for list pages, filtered and optionally sorted by price
+    public Page<ProductSummary> getProductSummaries(String category, Double minPrice, Double maxPrice,
+                                                    String order, int page, int size) {
+        PageRequest pageRequest = order == null
+                ? PageRequest.of(page, size)
+                : PageRequest.of(page, size, priceSort(order));
+        return productRepository.findSummaries(category, minPrice, maxPrice, pageRequest);
+    }
+
+    // summaries of the products in a category
+    public List<ProductSummary> searchSummariesByCategory(String category) {
+        return productRepository.findSummariesByCategory(category);
+    }
+
+    // summaries of all the products sorted by the price
+    public List<ProductSummary> sortProductSummaries(String order) {
+        return productRepository.findAllSummaries(priceSort(order));
+    }
+
+    // filtering and price sorting over the in-memory catalog columns,
+    // returning rows instead of product entities
+    public Page<CatalogRow> queryCatalog(String category, Double minPrice, Double maxPrice, String order, int page, int size) {
+        if (!catalogLoader.isLoaded()) {
+            // the columns are still being warmed, the table pages in the same order
+            Sort sort = order == null ? Sort.by("id") : indexSort(order);
+            return productRepository.findCatalogRows(category, minPrice, maxPrice, PageRequest.of(page, size, sort));
+        }
+        return catalogColumns.query(category, minPrice, maxPrice, order, page, size);
+    }
+
     // getting all the products with help of pagination
     public Page<Product> getAllProducts(int page, int size) {
         return productRepository.findAll(PageRequest.of(page, size));
     }
 
+    // scrolling the products with a keyset cursor, so every page costs the same
+    public CursorPage<Product> scrollProducts(String category, Double minPrice, Double maxPrice,
+                                              String sort, String order, String cursor, int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        ProductCursor.SortKey sortKey = ProductCursor.parseSortKey(sort);
+        boolean descending = "desc".equalsIgnoreCase(order);
+        ProductCursor position = cursor == null || cursor.isEmpty()
+                ? ProductCursor.start(sortKey, descending)
+                : ProductCursor.decode(cursor, sortKey, descending);
+
+        // one extra row tells whether another page exists
+        Limit limit = Limit.of(size + 1);
+        List<Product> rows;
+        if (sortKey == ProductCursor.SortKey.PRICE) {
+            rows = descending
+                    ? productRepository.scrollByPriceDesc(category, minPrice, maxPrice, position.getLastPrice(), position.getLastId(), limit)
+                    : productRepository.scrollByPriceAsc(category, minPrice, maxPrice, position.getLastPrice(), position.getLastId(), limit);
+        } else {
+            rows = descending
+                    ? productRepository.scrollByIdDesc(category, minPrice, maxPrice, position.getLastId(), limit)
+                    : productRepository.scrollByIdAsc(category, minPrice, maxPrice, position.getLastId(), limit);
+        }
+
+        boolean hasNext = rows.size() > size;
+        List<Product> content = hasNext ? rows.subList(0, size) : rows;
+        String nextCursor = hasNext ? position.after(content.get(content.size() - 1)).encode() : null;
+        return new CursorPage<>(new ArrayList<>(content), nextCursor, hasNext, content.size());
+    }
+
     // sorting the products by the price
     public List<Product> sortProducts(String order) {
+        if (!catalogLoader.isLoaded()) {
+            // the price index is still being warmed, the table sorts instead
+            return productRepository.findAll(indexSort(order));
+        }
+        // the price index already holds the order, the products are loaded by id
+        List<Long> ids = priceIndex.range(null, null, null, "desc".equalsIgnoreCase(order), 0, Integer.MAX_VALUE);
+        List<Product> products = new ArrayList<>(ids.size());
+        for (int from = 0; from < ids.size(); from += SORT_BATCH_SIZE) {
+            products.addAll(findAllInOrder(ids.subList(from, Math.min(from + SORT_BATCH_SIZE, ids.size()))));
+        }
+        return products;
+    }
+
+    // the n cheapest or dearest products, optionally within a category
+    public List<Product> topProductsByPrice(String category, String order, int n) {
+        if (!catalogLoader.isLoaded()) {
+            PageRequest top = PageRequest.of(0, n, indexSort(order));
+            return category != null
+                    ? productRepository.findByCategory(category, top).getContent()
+                    : productRepository.findAll(top).getContent();
+        }
+        return findAllInOrder(priceIndex.top(category, "desc".equalsIgnoreCase(order), n));
+    }
+
+    private static Sort priceSort(String order) {
         Sort.Direction direction = "desc".equalsIgnoreCase(order) ? Sort.Direction.DESC : Sort.Direction.ASC;
-        return productRepository.findAll(Sort.by(direction, "price"));
+        return Sort.by(direction, "price");
+    }
+
+    // by price and then id, the order the price index keeps
+    private static Sort indexSort(String order) {
+        Sort.Direction direction = "desc".equalsIgnoreCase(order) ? Sort.Direction.DESC : Sort.Direction.ASC;
+        return Sort.by(direction, "price", "id");
+    }
+
+    // loading the products for the ids in one query, keeping the order of the ids
+    // cached products come from the product cache and all the others from a
+    // single IN query, whose results then go through the cache admission
+    private List<Product> findAllInOrder(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Product> productsById = productCache.getAll(new LinkedHashSet<>(ids), productRepository::findAllById);
+        return ids.stream()
+                .map(productsById::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    private record FilterKey(String category, Double minPrice, Double maxPrice, int page, int size) {
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,208 @@
+package com.cleartrip.ecommerce_management_project.service;
+
+import com.cleartrip.ecommerce_management_project.dto.StockAdjustment;
+import com.cleartrip.ecommerce_management_project.dto.StockAdjustmentResult;
+import com.cleartrip.ecommerce_management_project.dto.StockAdjustmentResult.SkuResult;
+import com.cleartrip.ecommerce_management_project.dto.StockAdjustmentResult.Status;
+import com.cleartrip.ecommerce_management_project.event.StockChangeEvent;
+import com.cleartrip.ecommerce_management_project.inventory.InventoryShards;
+import com.cleartrip.ecommerce_management_project.inventory.StockLedger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// applies warehouse stock feeds in bulk. the lines of a feed are first folded per
+// product, a level followed by changes becomes a single level, so every product is
+// written once. without the stock ledger the feed is one transaction: the rows are read
+// and locked with a few IN queries, the new levels worked out in memory and written
+// back in one JDBC batch. with the ledger the changes go through it, journaled together
+@Service
+public class StockAdjustmentService {
+    private static final int BATCH_SIZE = 1000;
+
+    private static final String SET_QUANTITY = "UPDATE inventory SET quantity = ? WHERE product_id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired(required = false)
+    private StockLedger stockLedger;
+
+    @Autowired
+    private InventoryShards inventoryShards;
+
+    @Value("${inventory.bulk.max-adjustments:50000}")
+    private int maxAdjustments = 50000;
+
+    public StockAdjustmentResult adjust(List<StockAdjustment> adjustments) {
+        if (adjustments.size() > maxAdjustments) {
+            throw new IllegalArgumentException("At most " + maxAdjustments + " adjustments per request");
+        }
+        Map<Long, Fold> folds = new LinkedHashMap<>();
+        List<SkuResult> invalid = new ArrayList<>();
+        for (StockAdjustment adjustment : adjustments) {
+            String problem = validate(adjustment);
+            if (problem != null) {
+                invalid.add(new SkuResult(adjustment == null ? null : adjustment.getProductId(), Status.INVALID, null, problem));
+                continue;
+            }
+            folds.merge(adjustment.getProductId(), Fold.of(adjustment), Fold::then);
+        }
+
+        StockAdjustmentResult result = new StockAdjustmentResult();
+        if (!folds.isEmpty()) {
+            result.getResults().addAll(stockLedger != null ? applyThroughLedger(folds) : applyToTable(folds));
+        }
+        result.getResults().addAll(invalid);
+        for (SkuResult skuResult : result.getResults()) {
+            if (skuResult.getStatus() == Status.APPLIED) {
+                result.setApplied(result.getApplied() + 1);
+            } else {
+                result.setFailed(result.getFailed() + 1);
+            }
+        }
+        return result;
+    }
+
+    private List<SkuResult> applyToTable(Map<Long, Fold> folds) {
+        return transactionTemplate.execute(status -> {
+            Map<Long, Integer> current = lockQuantities(folds.keySet());
+            List<SkuResult> results = new ArrayList<>(folds.size());
+            List<Map.Entry<Long, Integer>> writes = new ArrayList<>();
+            folds.forEach((productId, fold) -> {
+                Integer previous = current.get(productId);
+                SkuResult result = outcome(productId, fold, previous);
+                if (result.getStatus() == Status.APPLIED && !result.getQuantity().equals(previous)) {
+                    writes.add(Map.entry(productId, result.getQuantity()));
+                    publishStockChange(productId, result.getQuantity() - previous, result.getQuantity());
+                }
+                results.add(result);
+            });
+            jdbcTemplate.batchUpdate(SET_QUANTITY, writes, BATCH_SIZE, (statement, write) -> {
+                statement.setInt(1, write.getValue());
+                statement.setLong(2, write.getKey());
+            });
+            return results;
+        });
+    }
+
+    // the ledger skips a delta that would go below zero, as outcome reports it
+    private List<SkuResult> applyThroughLedger(Map<Long, Fold> folds) {
+        List<StockLedger.Change> changes = new ArrayList<>(folds.size());
+        folds.forEach((productId, fold) -> changes.add(new StockLedger.Change(productId, fold.absolute(), fold.value())));
+        List<Integer> found = stockLedger.applyAll(changes);
+
+        List<SkuResult> results = new ArrayList<>(folds.size());
+        int i = 0;
+        for (Map.Entry<Long, Fold> fold : folds.entrySet()) {
+            Integer previous = found.get(i++);
+            SkuResult result = outcome(fold.getKey(), fold.getValue(), previous);
+            if (result.getStatus() == Status.APPLIED && !result.getQuantity().equals(previous)) {
+                publishStockChange(fold.getKey(), result.getQuantity() - previous, result.getQuantity());
+            }
+            results.add(result);
+        }
+        return results;
+    }
+
+    // current stock of the products, read with row locks taken in product id order.
+    // sharded products have their stock moved back onto the row, in that same order
+    private Map<Long, Integer> lockQuantities(Collection<Long> productIds) {
+        Map<Long, Integer> quantities = new HashMap<>();
+        List<Long> ids = new ArrayList<>(productIds);
+        Collections.sort(ids);
+        List<Long> chunk = new ArrayList<>();
+        for (Long productId : ids) {
+            if (inventoryShards.isSharded(productId)) {
+                lockChunk(chunk, quantities);
+                Integer quantity = inventoryShards.collapse(productId);
+                if (quantity != null) {
+                    quantities.put(productId, quantity);
+                }
+            } else {
+                chunk.add(productId);
+                if (chunk.size() == BATCH_SIZE) {
+                    lockChunk(chunk, quantities);
+                }
+            }
+        }
+        lockChunk(chunk, quantities);
+        return quantities;
+    }
+
+    private void lockChunk(List<Long> chunk, Map<Long, Integer> quantities) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        String placeholders = String.join(", ", Collections.nCopies(chunk.size(), "?"));
+        jdbcTemplate.query("SELECT product_id, quantity FROM inventory WHERE product_id IN (" + placeholders + ") " +
+                        "ORDER BY product_id FOR UPDATE",
+                row -> {
+                    quantities.put(row.getLong(1), row.getInt(2));
+                }, chunk.toArray());
+        chunk.clear();
+    }
+
+    private static SkuResult outcome(Long productId, Fold fold, Integer previous) {
+        if (previous == null) {
+            return new SkuResult(productId, Status.NOT_FOUND, null, "No inventory for product");
+        }
+        long next = fold.absolute() ? fold.value() : previous + fold.value();
+        if (next < 0) {
+            return new SkuResult(productId, Status.INSUFFICIENT_STOCK, previous, "Stock cannot go below zero");
+        }
+        if (next > Integer.MAX_VALUE) {
+            return new SkuResult(productId, Status.INSUFFICIENT_STOCK, previous, "Stock cannot exceed " + Integer.MAX_VALUE);
+        }
+        return new SkuResult(productId, Status.APPLIED, (int) next, null);
+    }
+
+    private static String validate(StockAdjustment adjustment) {
+        if (adjustment == null || adjustment.getProductId() == null) {
+            return "Missing productId";
+        }
+        if (adjustment.getType() == null) {
+            return "Missing type";
+        }
+        if (adjustment.getQuantity() == null) {
+            return "Missing quantity";
+        }
+        if (adjustment.getType() == StockAdjustment.Type.SET && adjustment.getQuantity() < 0) {
+            return "Stock level cannot be negative";
+        }
+        return null;
+    }
+
+    private void publishStockChange(Long productId, int delta, int quantity) {
+        eventPublisher.publishEvent(new StockChangeEvent(productId, delta, quantity));
+    }
+
+    // the lines of a product folded into one: a level when any of them set one,
+    // the sum of the changes otherwise. summed in a long, so many large lines cannot
+    // wrap around into a valid level, outcome checks the range
+    private record Fold(boolean absolute, long value) {
+        static Fold of(StockAdjustment adjustment) {
+            return new Fold(adjustment.getType() == StockAdjustment.Type.SET, adjustment.getQuantity());
+        }
+
+        Fold then(Fold next) {
+            return next.absolute() ? next : new Fold(absolute, value + next.value());
+        }
+    }
+}
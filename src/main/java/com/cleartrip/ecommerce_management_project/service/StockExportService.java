@@ -0,0 +1,86 @@
+package com.cleartrip.ecommerce_management_project.service;
+
+import com.cleartrip.ecommerce_management_project.dto.StockLevel;
+import com.cleartrip.ecommerce_management_project.inventory.StockLedger;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+// writes the stock level of every product as NDJSON straight from a forward-only
+// result set, one row in memory at a time, like the catalog export
+@Service
+public class StockExportService {
+    // the row and any shards it is split over, see InventoryShards
+    private static final String STOCK_LEVELS =
+            "SELECT i.product_id, i.quantity + (SELECT COALESCE(SUM(s.quantity), 0) FROM inventory_shard s " +
+            "WHERE s.product_id = i.product_id) AS quantity FROM inventory i";
+
+    private final JdbcTemplate streamingJdbcTemplate;
+    private final ObjectMapper objectMapper;
+    // present when inventory.ledger.enabled is set, the rows then lag its counters
+    private final Optional<StockLedger> stockLedger;
+
+    @Autowired
+    public StockExportService(DataSource dataSource, ObjectMapper objectMapper, Optional<StockLedger> stockLedger) {
+        this(new JdbcTemplate(dataSource), objectMapper, stockLedger);
+        // MySQL Connector/J only streams rows instead of buffering the whole result with this fetch size
+        this.streamingJdbcTemplate.setFetchSize(Integer.MIN_VALUE);
+    }
+
+    StockExportService(JdbcTemplate streamingJdbcTemplate, ObjectMapper objectMapper, Optional<StockLedger> stockLedger) {
+        this.streamingJdbcTemplate = streamingJdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.stockLedger = stockLedger;
+    }
+
+    // the levels within [minQuantity, maxQuantity], either bound optional, by product id,
+    // one per line. with the ledger on, the rows are picked by their flushed levels and
+    // those whose current level is outside the bounds left out
+    public void exportNdjson(OutputStream output, Integer minQuantity, Integer maxQuantity) throws IOException {
+        StringBuilder sql = new StringBuilder("SELECT product_id, quantity FROM (" + STOCK_LEVELS + ") levels");
+        List<Object> args = new ArrayList<>(2);
+        if (minQuantity != null) {
+            sql.append(" WHERE quantity >= ?");
+            args.add(minQuantity);
+        }
+        if (maxQuantity != null) {
+            sql.append(args.isEmpty() ? " WHERE" : " AND").append(" quantity <= ?");
+            args.add(maxQuantity);
+        }
+        sql.append(" ORDER BY product_id");
+
+        SequenceWriter writer = objectMapper.writerFor(StockLevel.class)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .withRootValueSeparator("\n")
+                .writeValues(output);
+        try {
+            streamingJdbcTemplate.query(sql.toString(), resultSet -> {
+                long productId = resultSet.getLong("product_id");
+                Integer quantity = stockLedger.map(ledger -> ledger.peek(productId)).orElse(null);
+                StockLevel level = new StockLevel(productId, quantity != null ? quantity : resultSet.getInt("quantity"));
+                if (!level.within(minQuantity, maxQuantity)) {
+                    return;
+                }
+                try {
+                    writer.write(level);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, args.toArray());
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+        output.flush();
+    }
+}
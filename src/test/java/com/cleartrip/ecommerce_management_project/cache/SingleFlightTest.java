@@ -0,0 +1,89 @@
+package com.cleartrip.ecommerce_management_project.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class SingleFlightTest {
+
+    @Test
+    void execute_WhenCalledConcurrently_ShouldRunLoaderOnce() throws Exception {
+        // Given
+        SingleFlight<Long, String> singleFlight = new SingleFlight<>();
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        // When
+        List<Future<String>> results = new ArrayList<>();
+        results.add(executor.submit(() -> singleFlight.execute(1L, () -> {
+            loads.incrementAndGet();
+            loaderStarted.countDown();
+            await(release);
+            return "product";
+        })));
+        loaderStarted.await(5, TimeUnit.SECONDS);
+        for (int i = 0; i < 7; i++) {
+            results.add(executor.submit(() -> singleFlight.execute(1L, () -> {
+                loads.incrementAndGet();
+                return "duplicate";
+            })));
+        }
+        Thread.sleep(100);
+        release.countDown();
+
+        // Then
+        for (Future<String> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("product");
+        }
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(singleFlight.inFlight()).isZero();
+        executor.shutdown();
+    }
+
+    @Test
+    void execute_AfterCallCompletes_ShouldLoadAgain() {
+        // Given
+        SingleFlight<Long, Integer> singleFlight = new SingleFlight<>();
+        AtomicInteger loads = new AtomicInteger();
+
+        // When
+        singleFlight.execute(1L, loads::incrementAndGet);
+        int result = singleFlight.execute(1L, loads::incrementAndGet);
+
+        // Then
+        assertThat(result).isEqualTo(2);
+    }
+
+    @Test
+    void execute_WhenLoaderFails_ShouldPropagateAndForgetKey() {
+        // Given
+        SingleFlight<Long, String> singleFlight = new SingleFlight<>();
+
+        // When / Then
+        assertThatThrownBy(() -> singleFlight.execute(1L, () -> {
+            throw new IllegalStateException("database down");
+        })).isInstanceOf(IllegalStateException.class);
+        assertThat(singleFlight.inFlight()).isZero();
+        assertThat(singleFlight.execute(1L, () -> "recovered")).isEqualTo("recovered");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
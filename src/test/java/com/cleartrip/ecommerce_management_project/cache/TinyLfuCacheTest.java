@@ -0,0 +1,124 @@
+package com.cleartrip.ecommerce_management_project.cache;
+
+import com.cleartrip.ecommerce_management_project.dto.CacheStats;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TinyLfuCacheTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    void get_ShouldLoadOnceAndThenHit() {
+        // Given
+        TinyLfuCache<Long, String> cache = new TinyLfuCache<>(10, Duration.ofMinutes(1), now::get);
+        AtomicInteger loads = new AtomicInteger();
+
+        // When
+        cache.get(1L, key -> "value-" + loads.incrementAndGet());
+        String result = cache.get(1L, key -> "value-" + loads.incrementAndGet());
+
+        // Then
+        assertThat(result).isEqualTo("value-1");
+        CacheStats stats = cache.stats();
+        assertThat(stats.getHits()).isEqualTo(1);
+        assertThat(stats.getMisses()).isEqualTo(1);
+    }
+
+    @Test
+    void get_WhenEntryExpired_ShouldReload() {
+        // Given
+        TinyLfuCache<Long, String> cache = new TinyLfuCache<>(10, Duration.ofSeconds(5), now::get);
+        cache.put(1L, "old");
+
+        // When
+        now.addAndGet(Duration.ofSeconds(6).toNanos());
+        String result = cache.get(1L, key -> "new");
+
+        // Then
+        assertThat(result).isEqualTo("new");
+    }
+
+    @Test
+    void get_WhenFull_ShouldKeepFrequentlyUsedEntries() {
+        // Given
+        TinyLfuCache<Long, String> cache = new TinyLfuCache<>(2, Duration.ofMinutes(1), now::get);
+        for (int i = 0; i < 5; i++) {
+            cache.get(1L, key -> "hot");
+            cache.get(2L, key -> "warm");
+        }
+
+        // When - a one-off key should not push out the hot ones
+        cache.get(3L, key -> "cold");
+
+        // Then
+        assertThat(cache.getIfPresent(3L)).isNull();
+        assertThat(cache.getIfPresent(1L)).isEqualTo("hot");
+        assertThat(cache.stats().getRejections()).isEqualTo(1);
+
+        // When - a key that keeps being asked for gets admitted
+        for (int i = 0; i < 10; i++) {
+            cache.get(3L, key -> "rising");
+        }
+
+        // Then
+        assertThat(cache.getIfPresent(3L)).isEqualTo("rising");
+        assertThat(cache.stats().getEvictions()).isEqualTo(1);
+        assertThat(cache.stats().getSize()).isEqualTo(2);
+    }
+
+    @Test
+    void get_WhenInvalidatedDuringLoad_ShouldNotCacheStaleValue() {
+        // Given
+        TinyLfuCache<Long, String> cache = new TinyLfuCache<>(10, Duration.ofMinutes(1), now::get);
+
+        // When
+        cache.get(1L, key -> {
+            cache.invalidate(1L);
+            return "stale";
+        });
+
+        // Then
+        assertThat(cache.getIfPresent(1L)).isNull();
+    }
+
+    @Test
+    void getAll_ShouldLoadOnlyTheMissesAndNotCacheThemWhenInvalidatedDuringLoad() {
+        // Given
+        TinyLfuCache<Long, String> cache = new TinyLfuCache<>(10, Duration.ofMinutes(1), now::get);
+        cache.put(1L, "cached");
+
+        // When
+        Map<Long, String> result = cache.getAll(List.of(1L, 2L, 3L), misses -> {
+            assertThat(misses).containsExactly(2L, 3L);
+            cache.invalidate(3L);
+            return Map.of(2L, "stale-2", 3L, "stale-3");
+        });
+
+        // Then
+        assertThat(result).containsOnly(Map.entry(1L, "cached"), Map.entry(2L, "stale-2"), Map.entry(3L, "stale-3"));
+        assertThat(cache.getIfPresent(2L)).isNull();
+        assertThat(cache.getIfPresent(3L)).isNull();
+        assertThat(cache.getIfPresent(1L)).isEqualTo("cached");
+    }
+
+    @Test
+    void get_WhenLoaderReturnsNull_ShouldNotCache() {
+        // Given
+        TinyLfuCache<Long, String> cache = new TinyLfuCache<>(10, Duration.ofMinutes(1), now::get);
+
+        // When
+        String result = cache.get(1L, key -> null);
+
+        // Then
+        assertThat(result).isNull();
+        assertThat(cache.stats().getSize()).isZero();
+    }
+}
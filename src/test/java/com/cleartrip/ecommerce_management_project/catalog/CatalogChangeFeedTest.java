@@ -0,0 +1,160 @@
+package com.cleartrip.ecommerce_management_project.catalog;
+
+import com.cleartrip.ecommerce_management_project.dto.CatalogChange;
+import com.cleartrip.ecommerce_management_project.event.ProductChangeEvent;
+import com.cleartrip.ecommerce_management_project.event.StockChangeEvent;
+import com.cleartrip.ecommerce_management_project.model.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class CatalogChangeFeedTest {
+
+    private CatalogChangeFeed feed;
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        feed = new CatalogChangeFeed(3, 2, Duration.ofMinutes(1), Runnable::run);
+        product = new Product();
+        product.setId(1L);
+        product.setName("Test Product");
+        product.setPrice(99.99);
+        product.setCategory("Electronics");
+    }
+
+    @Test
+    void subscribe_WithoutLastEventId_ShouldOnlySendNewChanges() {
+        // Given
+        feed.onProductChange(ProductChangeEvent.created(product));
+        RecordingEmitter emitter = new RecordingEmitter();
+        feed.register(null, emitter);
+
+        // When
+        feed.onProductChange(ProductChangeEvent.loaded(product));
+        feed.onStockChange(new StockChangeEvent(1L, -2, 8));
+
+        // Then
+        assertThat(emitter.names).containsExactly(CatalogChangeFeed.CHANGE_EVENT);
+        CatalogChange change = (CatalogChange) emitter.data.get(0);
+        assertThat(change.getSequence()).isEqualTo(2);
+        assertThat(change.getType()).isEqualTo(CatalogChange.Type.STOCK_CHANGED);
+        assertThat(change.getQuantity()).isEqualTo(8);
+        assertThat(emitter.ids.get(0)).endsWith("-2");
+    }
+
+    @Test
+    void subscribe_WithLastEventId_ShouldReplayMissedChanges() {
+        // Given
+        RecordingEmitter first = new RecordingEmitter();
+        feed.register(null, first);
+        feed.onProductChange(ProductChangeEvent.created(product));
+        feed.onProductChange(ProductChangeEvent.updated(product));
+        feed.onProductChange(ProductChangeEvent.deleted(1L));
+
+        // When
+        RecordingEmitter resumed = new RecordingEmitter();
+        feed.register(first.ids.get(0), resumed);
+
+        // Then
+        assertThat(resumed.data).extracting(change -> ((CatalogChange) change).getType())
+                .containsExactly(CatalogChange.Type.PRODUCT_UPDATED, CatalogChange.Type.PRODUCT_DELETED);
+        assertThat(resumed.ids).containsExactly(first.ids.get(1), first.ids.get(2));
+    }
+
+    @Test
+    void subscribe_WhenMissedChangesLeftTheHistory_ShouldSendReset() {
+        // Given
+        RecordingEmitter first = new RecordingEmitter();
+        feed.register(null, first);
+        for (int i = 0; i < 5; i++) {
+            feed.onStockChange(new StockChangeEvent(1L, 1, null));
+        }
+
+        // When
+        RecordingEmitter resumed = new RecordingEmitter();
+        feed.register(first.ids.get(0), resumed);
+        feed.onStockChange(new StockChangeEvent(1L, 1, null));
+
+        // Then
+        assertThat(resumed.names).containsExactly(CatalogChangeFeed.RESET_EVENT, CatalogChangeFeed.CHANGE_EVENT);
+        assertThat(resumed.data.get(0)).isEqualTo(Map.of("sequence", 5L));
+        assertThat(resumed.ids).containsExactly(first.ids.get(4), first.ids.get(5));
+    }
+
+    @Test
+    void subscribe_WithEventIdFromAnotherBoot_ShouldSendReset() {
+        // Given
+        feed.onStockChange(new StockChangeEvent(1L, 1, null));
+
+        // When
+        RecordingEmitter emitter = new RecordingEmitter();
+        feed.register("abc-1", emitter);
+
+        // Then
+        assertThat(emitter.names).containsExactly(CatalogChangeFeed.RESET_EVENT);
+        assertThat(emitter.data).containsExactly(Map.of("sequence", 1L));
+    }
+
+    @Test
+    void subscribe_WhenLimitReached_ShouldThrowException() {
+        // Given
+        feed.register(null, new RecordingEmitter());
+        feed.register(null, new RecordingEmitter());
+
+        // When / Then
+        assertThatThrownBy(() -> feed.register(null, new RecordingEmitter()))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(feed.subscriberCount()).isEqualTo(2);
+    }
+
+    @Test
+    void heartbeat_WhenIdle_ShouldSendComment() {
+        // Given
+        RecordingEmitter emitter = new RecordingEmitter();
+        feed.register(null, emitter);
+
+        // When
+        feed.heartbeat();
+
+        // Then
+        assertThat(emitter.comments).isEqualTo(1);
+        assertThat(emitter.data).isEmpty();
+    }
+
+    // keeps what would have been written to the client
+    private static class RecordingEmitter extends SseEmitter {
+        private final List<String> ids = new ArrayList<>();
+        private final List<String> names = new ArrayList<>();
+        private final List<Object> data = new ArrayList<>();
+        private int comments;
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            for (ResponseBodyEmitter.DataWithMediaType part : builder.build()) {
+                if (!(part.getData() instanceof String text)) {
+                    data.add(part.getData());
+                    continue;
+                }
+                for (String line : text.split("\n")) {
+                    if (line.startsWith("id:")) {
+                        ids.add(line.substring(3));
+                    } else if (line.startsWith("event:")) {
+                        names.add(line.substring(6));
+                    } else if (line.startsWith(":")) {
+                        comments++;
+                    }
+                }
+            }
+        }
+    }
+}
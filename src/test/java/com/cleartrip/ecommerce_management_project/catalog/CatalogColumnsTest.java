@@ -0,0 +1,122 @@
+package com.cleartrip.ecommerce_management_project.catalog;
+
+import com.cleartrip.ecommerce_management_project.dto.CatalogRow;
+import com.cleartrip.ecommerce_management_project.event.ProductChangeEvent;
+import com.cleartrip.ecommerce_management_project.model.Product;
+import com.cleartrip.ecommerce_management_project.service.CatalogLoader;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+public class CatalogColumnsTest {
+
+    private final CatalogLoader catalogLoader = new CatalogLoader();
+
+    private CatalogColumns columns;
+
+    @BeforeEach
+    void setUp() {
+        columns = new CatalogColumns(catalogLoader);
+        columns.put(1L, "Electronics", 999.99);
+        columns.put(2L, "Clothing", 19.99);
+        columns.put(3L, "Electronics", 499.99);
+        columns.put(4L, "Electronics", 499.99);
+        columns.put(5L, "Clothing", 59.99);
+    }
+
+    @Test
+    void query_WithFilters_ShouldReturnMatchingRowsInCatalogOrder() {
+        // When
+        Page<CatalogRow> result = columns.query("Electronics", 100.0, 600.0, null, 0, 10);
+
+        // Then
+        assertThat(result.getTotalElements()).isEqualTo(2);
+        assertThat(result.getContent()).extracting(CatalogRow::getId).containsExactly(3L, 4L);
+    }
+
+    @Test
+    void query_SortedByPrice_ShouldBreakTiesById() {
+        // When
+        Page<CatalogRow> ascending = columns.query(null, null, null, "asc", 0, 10);
+        Page<CatalogRow> descending = columns.query(null, null, null, "desc", 0, 10);
+
+        // Then
+        assertThat(ascending.getContent()).extracting(CatalogRow::getId).containsExactly(2L, 5L, 3L, 4L, 1L);
+        assertThat(descending.getContent()).extracting(CatalogRow::getId).containsExactly(1L, 4L, 3L, 5L, 2L);
+    }
+
+    @Test
+    void query_WithPaging_ShouldCountAllMatches() {
+        // When
+        Page<CatalogRow> result = columns.query(null, null, null, "asc", 1, 2);
+
+        // Then
+        assertThat(result.getTotalElements()).isEqualTo(5);
+        assertThat(result.getContent()).extracting(CatalogRow::getId).containsExactly(3L, 4L);
+    }
+
+    @Test
+    void put_AndRemove_ShouldRefreshColumns() {
+        // When
+        columns.put(2L, "Electronics", 1500.0);
+        columns.remove(1L);
+
+        // Then
+        assertThat(columns.size()).isEqualTo(4);
+        assertThat(columns.query("Electronics", null, null, "desc", 0, 10).getContent())
+                .extracting(CatalogRow::getId).containsExactly(2L, 4L, 3L);
+        assertThat(columns.query("Unknown", null, null, null, 0, 10).getContent()).isEmpty();
+    }
+
+    @Test
+    void remove_WhenManyRowsDeleted_ShouldCompactAndKeepResults() {
+        // Given
+        for (long id = 100; id < 3100; id++) {
+            columns.put(id, "Bulk", id);
+        }
+
+        // When
+        for (long id = 100; id < 3000; id++) {
+            columns.remove(id);
+        }
+
+        // Then
+        assertThat(columns.size()).isEqualTo(105);
+        Page<CatalogRow> result = columns.query("Bulk", null, null, "asc", 0, 200);
+        assertThat(result.getTotalElements()).isEqualTo(100);
+        assertThat(result.getContent().get(0).getId()).isEqualTo(3000L);
+    }
+
+    @Test
+    void onProductChange_WhenLoadedCopiesAreOlderThanWritesDuringTheLoad_ShouldKeepTheWrites() {
+        // Given
+        commit(ProductChangeEvent.updated(product(2L, "Clothing", 29.99)));
+        commit(ProductChangeEvent.deleted(5L));
+
+        // When
+        columns.onProductChange(ProductChangeEvent.loaded(product(2L, "Clothing", 19.99)));
+        columns.onProductChange(ProductChangeEvent.loaded(product(5L, "Clothing", 59.99)));
+
+        // Then
+        Page<CatalogRow> result = columns.query("Clothing", null, null, null, 0, 10);
+        assertThat(result.getContent()).extracting(CatalogRow::getId, CatalogRow::getPrice)
+                .containsExactly(tuple(2L, 29.99));
+    }
+
+    // a committed write reaches the loader ahead of the read models, as their order has it
+    private void commit(ProductChangeEvent event) {
+        catalogLoader.onProductChange(event);
+        columns.onProductChange(event);
+    }
+
+    private static Product product(Long id, String category, double price) {
+        Product product = new Product();
+        product.setId(id);
+        product.setCategory(category);
+        product.setPrice(price);
+        return product;
+    }
+}
@@ -0,0 +1,84 @@
+package com.cleartrip.ecommerce_management_project.catalog;
+
+import com.cleartrip.ecommerce_management_project.event.ProductChangeEvent;
+import com.cleartrip.ecommerce_management_project.event.StockChangeEvent;
+import com.cleartrip.ecommerce_management_project.model.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CatalogVersionsTest {
+
+    private CatalogVersions catalogVersions;
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        catalogVersions = new CatalogVersions();
+        product = new Product();
+        product.setId(1L);
+        product.setName("Test Product");
+        product.setPrice(99.99);
+        product.setCategory("Electronics");
+    }
+
+    @Test
+    void onProductChange_WhenLoaded_ShouldKeepVersions() {
+        // Given
+        String catalogETag = catalogVersions.catalogETag();
+        String productETag = catalogVersions.productETag(1L);
+
+        // When
+        catalogVersions.onProductChange(ProductChangeEvent.loaded(product));
+
+        // Then
+        assertThat(catalogVersions.catalogETag()).isEqualTo(catalogETag);
+        assertThat(catalogVersions.productETag(1L)).isEqualTo(productETag);
+    }
+
+    @Test
+    void catalogLoaded_ShouldChangeOnlyTheCatalogTag() {
+        // Given
+        String catalogETag = catalogVersions.catalogETag();
+        String productETag = catalogVersions.productETag(1L);
+
+        // When
+        catalogVersions.catalogLoaded();
+
+        // Then
+        assertThat(catalogVersions.catalogETag()).isNotEqualTo(catalogETag);
+        assertThat(catalogVersions.productETag(1L)).isEqualTo(productETag);
+    }
+
+    @Test
+    void onProductChange_WhenUpdated_ShouldChangeOnlyThatProductTag() {
+        // Given
+        String catalogETag = catalogVersions.catalogETag();
+        String productETag = catalogVersions.productETag(1L);
+        String otherETag = catalogVersions.productETag(2L);
+
+        // When
+        catalogVersions.onProductChange(ProductChangeEvent.updated(product));
+
+        // Then
+        assertThat(catalogVersions.catalogETag()).isNotEqualTo(catalogETag);
+        assertThat(catalogVersions.productETag(1L)).isNotEqualTo(productETag);
+        assertThat(catalogVersions.productETag(2L)).isEqualTo(otherETag);
+    }
+
+    @Test
+    void onStockChange_ShouldIncreaseVersions() {
+        // Given
+        catalogVersions.onProductChange(ProductChangeEvent.deleted(2L));
+
+        // When
+        catalogVersions.onStockChange(new StockChangeEvent(1L, -1, 4));
+
+        // Then
+        assertThat(catalogVersions.catalogVersion()).isEqualTo(2);
+        assertThat(catalogVersions.productVersion(1L)).isEqualTo(2);
+        assertThat(catalogVersions.productVersion(2L)).isEqualTo(1);
+        assertThat(catalogVersions.productETag(1L)).startsWith("\"").endsWith("-1-2\"");
+    }
+}
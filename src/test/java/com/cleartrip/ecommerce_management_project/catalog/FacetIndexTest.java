@@ -0,0 +1,119 @@
+package com.cleartrip.ecommerce_management_project.catalog;
+
+import com.cleartrip.ecommerce_management_project.dto.FacetCounts;
+import com.cleartrip.ecommerce_management_project.event.ProductChangeEvent;
+import com.cleartrip.ecommerce_management_project.model.Product;
+import com.cleartrip.ecommerce_management_project.service.CatalogLoader;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FacetIndexTest {
+
+    private final CatalogLoader catalogLoader = new CatalogLoader();
+
+    private FacetIndex facetIndex;
+
+    @BeforeEach
+    void setUp() {
+        facetIndex = new FacetIndex(catalogLoader, new double[]{0, 50, 100});
+        facetIndex.put(1L, "Electronics", 99.99);
+        facetIndex.put(2L, "Electronics", 499.99);
+        facetIndex.put(3L, "Home", 49.99);
+        facetIndex.put(4L, "Home", 19.99);
+    }
+
+    @Test
+    void facets_WithoutFilter_ShouldCountWholeCatalog() {
+        // When
+        FacetCounts result = facetIndex.facets(null, null, null);
+
+        // Then
+        assertThat(result.getTotal()).isEqualTo(4);
+        assertThat(result.getCategories()).containsEntry("Electronics", 2L).containsEntry("Home", 2L);
+        assertThat(result.getPriceBuckets()).extracting(FacetCounts.PriceBucket::getCount).containsExactly(2L, 1L, 1L);
+        assertThat(result.getPriceBuckets().get(2).getTo()).isNull();
+    }
+
+    @Test
+    void facets_WithPriceFilter_ShouldNarrowCategoryCounts() {
+        // When
+        FacetCounts result = facetIndex.facets(null, 40.0, 100.0);
+
+        // Then
+        assertThat(result.getTotal()).isEqualTo(2);
+        assertThat(result.getCategories()).containsEntry("Electronics", 1L).containsEntry("Home", 1L);
+        assertThat(result.getPriceBuckets()).extracting(FacetCounts.PriceBucket::getCount).containsExactly(2L, 1L, 1L);
+    }
+
+    @Test
+    void facets_WithCategoryFilter_ShouldNarrowPriceBuckets() {
+        // When
+        FacetCounts result = facetIndex.facets("Electronics", null, null);
+
+        // Then
+        assertThat(result.getTotal()).isEqualTo(2);
+        assertThat(result.getCategories()).hasSize(2);
+        assertThat(result.getPriceBuckets()).extracting(FacetCounts.PriceBucket::getCount).containsExactly(0L, 1L, 1L);
+    }
+
+    @Test
+    void put_WhenProductMoves_ShouldMoveItsCounts() {
+        // When
+        facetIndex.put(2L, "Home", 10.0);
+        facetIndex.remove(1L);
+
+        // Then
+        FacetCounts result = facetIndex.facets(null, null, null);
+        assertThat(result.getCategories()).containsOnlyKeys("Home").containsEntry("Home", 3L);
+        assertThat(result.getPriceBuckets()).extracting(FacetCounts.PriceBucket::getCount).containsExactly(3L, 0L, 0L);
+    }
+
+    @Test
+    void facetsOf_ShouldCountGroupedRowsLikeTheIndex() {
+        // Given
+        List<Object[]> grouped = List.of(
+                new Object[]{"Electronics", 99.99, 1L},
+                new Object[]{"Electronics", 499.99, 1L},
+                new Object[]{"Home", 49.99, 1L},
+                new Object[]{"Home", 19.99, 1L});
+
+        // When
+        FacetCounts result = facetIndex.facetsOf(grouped, "Home", 40.0, 100.0);
+
+        // Then
+        assertThat(result).isEqualTo(facetIndex.facets("Home", 40.0, 100.0));
+        assertThat(result.getTotal()).isEqualTo(1);
+    }
+
+    @Test
+    void onProductChange_WhenLoadedCopyIsOfAProductDeletedDuringTheLoad_ShouldNotCountIt() {
+        // Given
+        commit(ProductChangeEvent.deleted(2L));
+
+        // When
+        facetIndex.onProductChange(ProductChangeEvent.loaded(product(2L, "Electronics", 499.99)));
+
+        // Then
+        FacetCounts result = facetIndex.facets(null, null, null);
+        assertThat(result.getTotal()).isEqualTo(3);
+        assertThat(result.getCategories()).containsEntry("Electronics", 1L);
+    }
+
+    // a committed write reaches the loader ahead of the read models, as their order has it
+    private void commit(ProductChangeEvent event) {
+        catalogLoader.onProductChange(event);
+        facetIndex.onProductChange(event);
+    }
+
+    private static Product product(Long id, String category, double price) {
+        Product product = new Product();
+        product.setId(id);
+        product.setCategory(category);
+        product.setPrice(price);
+        return product;
+    }
+}
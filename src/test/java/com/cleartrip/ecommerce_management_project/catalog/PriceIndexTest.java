@@ -0,0 +1,137 @@
+package com.cleartrip.ecommerce_management_project.catalog;
+
+import com.cleartrip.ecommerce_management_project.event.ProductChangeEvent;
+import com.cleartrip.ecommerce_management_project.model.Product;
+import com.cleartrip.ecommerce_management_project.repository.ProductRepository;
+import com.cleartrip.ecommerce_management_project.service.CatalogLoader;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class PriceIndexTest {
+
+    private final CatalogLoader catalogLoader = new CatalogLoader();
+
+    private PriceIndex priceIndex;
+
+    @BeforeEach
+    void setUp() {
+        priceIndex = new PriceIndex(catalogLoader);
+        priceIndex.put(1L, "Electronics", 99.99);
+        priceIndex.put(2L, "Electronics", 499.99);
+        priceIndex.put(3L, "Home", 49.99);
+        priceIndex.put(4L, "Home", 99.99);
+    }
+
+    @Test
+    void range_ShouldReturnIdsByPriceThenId() {
+        // When
+        List<Long> result = priceIndex.range(null, 50.0, 500.0, false, 0, 10);
+
+        // Then
+        assertThat(result).containsExactly(1L, 4L, 2L);
+        assertThat(priceIndex.count(null, 50.0, 500.0)).isEqualTo(3);
+    }
+
+    @Test
+    void range_WithCategoryAndOffset_ShouldPageWithinCategory() {
+        // When
+        List<Long> result = priceIndex.range("Home", null, null, true, 1, 10);
+
+        // Then
+        assertThat(result).containsExactly(3L);
+        assertThat(priceIndex.range("Garden", null, null, false, 0, 10)).isEmpty();
+        assertThat(priceIndex.range(null, 100.0, 50.0, false, 0, 10)).isEmpty();
+    }
+
+    @Test
+    void range_WithOffsetAfterWrites_ShouldPageAndCountTheCurrentEntries() {
+        // Given
+        priceIndex.count("Home", null, null);
+        priceIndex.put(5L, "Home", 75.0);
+        priceIndex.remove(3L);
+
+        // When
+        List<Long> ascending = priceIndex.range("Home", 50.0, null, false, 1, 10);
+        List<Long> descending = priceIndex.range(null, null, 100.0, true, 1, 2);
+
+        // Then
+        assertThat(ascending).containsExactly(4L);
+        assertThat(descending).containsExactly(1L, 5L);
+        assertThat(priceIndex.count("Home", null, null)).isEqualTo(2);
+        assertThat(priceIndex.count(null, 99.99, 99.99)).isEqualTo(2);
+        assertThat(priceIndex.range(null, null, null, false, 10, 10)).isEmpty();
+    }
+
+    @Test
+    void top_ShouldReturnDearestProducts() {
+        // When
+        List<Long> result = priceIndex.top(null, true, 2);
+
+        // Then
+        assertThat(result).containsExactly(2L, 4L);
+    }
+
+    @Test
+    void put_WhenPriceAndCategoryChange_ShouldMoveProduct() {
+        // When
+        priceIndex.put(2L, "Home", 9.99);
+        priceIndex.remove(1L);
+
+        // Then
+        assertThat(priceIndex.top(null, false, 10)).containsExactly(2L, 3L, 4L);
+        assertThat(priceIndex.range("Electronics", null, null, false, 0, 10)).isEmpty();
+        assertThat(priceIndex.count("Home", null, 50.0)).isEqualTo(2);
+    }
+
+    @Test
+    void loadCatalog_WhenWritesRaceTheLoad_ShouldKeepTheWrites() {
+        // Given
+        ProductRepository productRepository = mock(ProductRepository.class);
+        when(productRepository.findBatchAfter(eq(Long.MIN_VALUE), any()))
+                .thenReturn(List.of(product(5L, "Garden", 10.0), product(6L, "Garden", 20.0)));
+        ApplicationEventPublisher eventPublisher = event -> {
+            ProductChangeEvent loaded = (ProductChangeEvent) event;
+            if (loaded.getProductId() == 5L) {
+                // the batch was read, then these writes committed before it was replayed
+                commit(ProductChangeEvent.updated(product(5L, "Garden", 30.0)));
+                commit(ProductChangeEvent.deleted(6L));
+            }
+            priceIndex.onProductChange(loaded);
+        };
+        ReflectionTestUtils.setField(catalogLoader, "productRepository", productRepository);
+        ReflectionTestUtils.setField(catalogLoader, "eventPublisher", eventPublisher);
+        ReflectionTestUtils.setField(catalogLoader, "catalogVersions", new CatalogVersions());
+
+        // When
+        catalogLoader.loadCatalog();
+
+        // Then
+        assertThat(priceIndex.range("Garden", null, null, false, 0, 10)).containsExactly(5L);
+        assertThat(priceIndex.count("Garden", 25.0, null)).isEqualTo(1);
+        assertThat(catalogLoader.isLoaded()).isTrue();
+    }
+
+    // a committed write reaches the loader ahead of the read models, as their order has it
+    private void commit(ProductChangeEvent event) {
+        catalogLoader.onProductChange(event);
+        priceIndex.onProductChange(event);
+    }
+
+    private static Product product(Long id, String category, double price) {
+        Product product = new Product();
+        product.setId(id);
+        product.setCategory(category);
+        product.setPrice(price);
+        return product;
+    }
+}
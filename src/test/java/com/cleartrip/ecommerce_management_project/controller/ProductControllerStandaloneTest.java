@@ -0,0 +1,264 @@
+package com.cleartrip.ecommerce_management_project.controller;
+
+import com.cleartrip.ecommerce_management_project.catalog.CatalogChangeFeed;
+import com.cleartrip.ecommerce_management_project.catalog.CatalogVersions;
+import com.cleartrip.ecommerce_management_project.dto.ImportResult;
+import com.cleartrip.ecommerce_management_project.model.Product;
+import com.cleartrip.ecommerce_management_project.model.User;
+import com.cleartrip.ecommerce_management_project.model.UserRole;
+import com.cleartrip.ecommerce_management_project.service.CatalogExportService;
+import com.cleartrip.ecommerce_management_project.service.CatalogImportService;
+import com.cleartrip.ecommerce_management_project.service.ProductService;
+import com.cleartrip.ecommerce_management_project.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// the controller on its own, without an application context: conditional requests,
+// the bulk import and export and the change feed
+@ExtendWith(MockitoExtension.class)
+public class ProductControllerStandaloneTest {
+
+    @Mock
+    private ProductService productService;
+
+    @Mock
+    private UserService userService;
+
+    @Mock
+    private CatalogImportService catalogImportService;
+
+    @Mock
+    private CatalogExportService catalogExportService;
+
+    @Mock
+    private CatalogVersions catalogVersions;
+
+    @Mock
+    private CatalogChangeFeed catalogChangeFeed;
+
+    @InjectMocks
+    private ProductController productController;
+
+    private MockMvc mockMvc;
+
+    private Product testProduct;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(productController).build();
+
+        testProduct = new Product();
+        testProduct.setId(1L);
+        testProduct.setName("Test Product");
+        testProduct.setPrice(99.99);
+        testProduct.setCategory("Electronics");
+
+        lenient().when(catalogVersions.catalogETag()).thenReturn("\"test-7\"");
+        lenient().when(catalogVersions.productETag(1L)).thenReturn("\"test-1-7\"");
+    }
+
+    @Test
+    void getProductById_ShouldReturnProductWithItsETag() throws Exception {
+        // Given
+        when(productService.getProductById(1L)).thenReturn(Optional.of(testProduct));
+
+        // When / Then
+        mockMvc.perform(get("/api/products/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"test-1-7\""))
+                .andExpect(jsonPath("$.name", is("Test Product")));
+        verify(productService).recordView(1L);
+    }
+
+    @Test
+    void getProductById_WithCurrentETag_ShouldReturnNotModifiedWithoutLoading() throws Exception {
+        // When / Then
+        mockMvc.perform(get("/api/products/1").header(HttpHeaders.IF_NONE_MATCH, "\"test-1-7\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"test-1-7\""))
+                .andExpect(content().string(""));
+        verify(productService, never()).getProductById(anyLong());
+        verify(productService, never()).recordView(anyLong());
+    }
+
+    @Test
+    void getAllProducts_WithCurrentETag_ShouldReturnNotModifiedWithoutReading() throws Exception {
+        // When / Then
+        mockMvc.perform(get("/api/products").header(HttpHeaders.IF_NONE_MATCH, "W/\"test-7\""))
+                .andExpect(status().isNotModified());
+        verifyNoInteractions(productService);
+    }
+
+    @Test
+    void getAllProducts_WithStaleETag_ShouldReturnPageWithCurrentETag() throws Exception {
+        // Given
+        when(productService.getAllProducts(0, 10)).thenReturn(page(testProduct));
+
+        // When / Then
+        mockMvc.perform(get("/api/products").header(HttpHeaders.IF_NONE_MATCH, "\"test-6\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"test-7\""))
+                .andExpect(jsonPath("$.content", hasSize(1)));
+    }
+
+    @Test
+    void searchProducts_ShouldReturnPageOfMatches() throws Exception {
+        // Given
+        when(productService.searchProducts("test", 0, 10)).thenReturn(page(testProduct));
+
+        // When / Then
+        mockMvc.perform(get("/api/products/search").param("q", "test"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"test-7\""))
+                .andExpect(jsonPath("$.content[0].name", is("Test Product")));
+    }
+
+    @Test
+    void searchProducts_WithFuzzy_ShouldSearchWithinMaxEdits() throws Exception {
+        // Given
+        when(productService.fuzzySearchProducts("tset", 1, 0, 10)).thenReturn(page(testProduct));
+
+        // When / Then
+        mockMvc.perform(get("/api/products/search").param("q", "tset").param("fuzzy", "true").param("maxEdits", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(1)));
+        verify(productService, never()).searchProducts(any(), anyInt(), anyInt());
+    }
+
+    @Test
+    void importProducts_WithCsv_ShouldImportTheCsvFeed() throws Exception {
+        // Given
+        when(userService.getUserById(1L)).thenReturn(Optional.of(user(UserRole.ADMIN)));
+        ImportResult result = new ImportResult();
+        result.setImported(1);
+        when(catalogImportService.importCsv(any(InputStream.class))).thenReturn(result);
+
+        // When / Then
+        mockMvc.perform(post("/api/products/import")
+                        .param("userId", "1")
+                        .contentType("text/csv")
+                        .content("id,name,price,category\n1,Phone,9.99,Electronics\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported", is(1)));
+        verify(catalogImportService, never()).importNdjson(any());
+    }
+
+    @Test
+    void importProducts_WithNdjson_ShouldImportTheNdjsonFeed() throws Exception {
+        // Given
+        when(userService.getUserById(1L)).thenReturn(Optional.of(user(UserRole.ADMIN)));
+        when(catalogImportService.importNdjson(any(InputStream.class))).thenReturn(new ImportResult());
+
+        // When / Then
+        mockMvc.perform(post("/api/products/import")
+                        .param("userId", "1")
+                        .contentType(CatalogImportService.NDJSON + ";charset=UTF-8")
+                        .content("{\"id\": 1, \"name\": \"Phone\", \"price\": 9.99, \"category\": \"Electronics\"}\n"))
+                .andExpect(status().isOk());
+        verify(catalogImportService, never()).importCsv(any());
+    }
+
+    @Test
+    void importProducts_WhenUserNotAdmin_ShouldReturnForbidden() throws Exception {
+        // Given
+        when(userService.getUserById(2L)).thenReturn(Optional.of(user(UserRole.CUSTOMER)));
+
+        // When / Then
+        mockMvc.perform(post("/api/products/import")
+                        .param("userId", "2")
+                        .contentType("text/csv")
+                        .content("id,name,price,category\n"))
+                .andExpect(status().isForbidden());
+        verifyNoInteractions(catalogImportService);
+    }
+
+    @Test
+    void exportProducts_ShouldStreamTheCatalogWithItsETag() throws Exception {
+        // Given
+        doAnswer(invocation -> {
+            invocation.<OutputStream>getArgument(0).write("{\"id\":1}\n".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(catalogExportService).exportNdjson(any(OutputStream.class));
+
+        // When
+        MvcResult started = mockMvc.perform(get("/api/products/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Then
+        mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"test-7\""))
+                .andExpect(content().contentType(CatalogImportService.NDJSON))
+                .andExpect(content().string("{\"id\":1}\n"));
+    }
+
+    @Test
+    void exportProducts_WithCurrentETag_ShouldReturnNotModifiedWithoutExporting() throws Exception {
+        // When / Then
+        mockMvc.perform(get("/api/products/export").header(HttpHeaders.IF_NONE_MATCH, "\"test-7\""))
+                .andExpect(status().isNotModified());
+        verifyNoInteractions(catalogExportService);
+    }
+
+    @Test
+    void streamChanges_ShouldSubscribeFromTheLastEventId() throws Exception {
+        // Given
+        when(catalogChangeFeed.subscribe("42")).thenReturn(new SseEmitter());
+
+        // When / Then
+        mockMvc.perform(get("/api/products/changes").header("Last-Event-ID", "42"))
+                .andExpect(request().asyncStarted());
+        verify(catalogChangeFeed).subscribe("42");
+    }
+
+    @Test
+    void streamChanges_WhenFeedIsFull_ShouldReturnServiceUnavailable() throws Exception {
+        // Given
+        when(catalogChangeFeed.subscribe(null)).thenThrow(new IllegalStateException("Too many subscribers"));
+
+        // When / Then
+        mockMvc.perform(get("/api/products/changes"))
+                .andExpect(status().isServiceUnavailable());
+    }
+
+    // a page with a pageable, an unpaged one cannot be written without Spring Data's web support
+    private static Page<Product> page(Product product) {
+        return new PageImpl<>(List.of(product), PageRequest.of(0, 10), 1);
+    }
+
+    private static User user(UserRole role) {
+        User user = new User();
+        user.setId(role == UserRole.ADMIN ? 1L : 2L);
+        user.setRole(role);
+        return user;
+    }
+}
@@ -1,8 +1,12 @@
 package com.cleartrip.ecommerce_management_project.controller;
 
+import com.cleartrip.ecommerce_management_project.catalog.CatalogChangeFeed;
+import com.cleartrip.ecommerce_management_project.catalog.CatalogVersions;
 import com.cleartrip.ecommerce_management_project.model.Product;
 import com.cleartrip.ecommerce_management_project.model.User;
 import com.cleartrip.ecommerce_management_project.model.UserRole;
+import com.cleartrip.ecommerce_management_project.service.CatalogExportService;
+import com.cleartrip.ecommerce_management_project.service.CatalogImportService;
 import com.cleartrip.ecommerce_management_project.service.ProductService;
 import com.cleartrip.ecommerce_management_project.service.UserService;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -43,6 +47,18 @@ public class ProductControllerTest {
     @MockBean
     private UserService userService;
 
+    @MockBean
+    private CatalogImportService catalogImportService;
+
+    @MockBean
+    private CatalogExportService catalogExportService;
+
+    @MockBean
+    private CatalogVersions catalogVersions;
+
+    @MockBean
+    private CatalogChangeFeed catalogChangeFeed;
+
     private Product testProduct;
     private User adminUser;
 
@@ -60,6 +76,9 @@ public class ProductControllerTest {
         adminUser.setUsername("admin");
         adminUser.setEmail("admin@example.com");
         adminUser.setRole(UserRole.ADMIN);
+
+        when(catalogVersions.catalogETag()).thenReturn("\"test-7\"");
+        when(catalogVersions.productETag(anyLong())).thenReturn("\"test-1-7\"");
     }
 
     @Test
@@ -131,6 +150,7 @@ public class ProductControllerTest {
                 .andExpect(jsonPath("$.name", is("Test Product")));
         
         verify(productService, times(1)).getProductById(1L);
+        verify(productService, times(1)).recordView(1L);
     }
 
     @Test
@@ -202,5 +222,7 @@ public class ProductControllerTest {
 
         mockMvc.perform(get("/api/products/99"))
                 .andExpect(status().isNotFound());
+
+        verify(productService, never()).recordView(anyLong());
     }
 } 
\ No newline at end of file
@@ -0,0 +1,72 @@
+package com.cleartrip.ecommerce_management_project.inventory;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class HashedTimingWheelTest {
+
+    private HashedTimingWheel<String> wheel;
+
+    @BeforeEach
+    void setUp() {
+        wheel = new HashedTimingWheel<>(100, 8, 0);
+    }
+
+    @Test
+    void advance_ShouldExpireOnlyWhatIsDue() {
+        // Given
+        wheel.schedule("early", 250);
+        wheel.schedule("late", 420);
+
+        // When / Then
+        assertThat(wheel.advance(200)).isEmpty();
+        assertThat(wheel.advance(300)).containsExactly("early");
+        assertThat(wheel.advance(500)).containsExactly("late");
+    }
+
+    @Test
+    void advance_WithDeadlineSeveralTurnsAway_ShouldWaitForItsRound() {
+        // Given
+        wheel.schedule("far", 2_050);
+
+        // When / Then
+        assertThat(wheel.advance(2_000)).isEmpty();
+        assertThat(wheel.advance(2_100)).containsExactly("far");
+    }
+
+    @Test
+    void advance_WhenCancelled_ShouldNotExpire() {
+        // Given
+        HashedTimingWheel.Timeout<String> timeout = wheel.schedule("cancelled", 150);
+        wheel.schedule("kept", 150);
+
+        // When
+        timeout.cancel();
+
+        // Then
+        assertThat(wheel.advance(1_000)).containsExactly("kept");
+    }
+
+    @Test
+    void advance_WithDeadlineAlreadyPassed_ShouldExpireAtTheNextTick() {
+        // Given
+        wheel.advance(1_000);
+
+        // When
+        wheel.schedule("overdue", 500);
+
+        // Then
+        assertThat(wheel.advance(1_000)).isEmpty();
+        assertThat(wheel.advance(1_100)).containsExactly("overdue");
+    }
+
+    @Test
+    void constructor_WithTicksNotAPowerOfTwo_ShouldThrowException() {
+        // When / Then
+        assertThatThrownBy(() -> new HashedTimingWheel<String>(100, 10, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,255 @@
+package com.cleartrip.ecommerce_management_project.inventory;
+
+import com.cleartrip.ecommerce_management_project.cache.StockLevelCache;
+import com.cleartrip.ecommerce_management_project.dto.ReconciliationStatus;
+import com.cleartrip.ecommerce_management_project.dto.StockDiscrepancy;
+import com.cleartrip.ecommerce_management_project.event.StockChangeEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class InventoryReconcilerTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @TempDir
+    Path directory;
+
+    private InventoryReconciler reconciler;
+
+    @BeforeEach
+    void setUp() {
+        reconciler = new InventoryReconciler(jdbcTemplate, transactionManager,
+                new StockLevelCache(100, Duration.ofMinutes(1)), Optional.empty(), directory.toString(), 1000, 2, 1);
+    }
+
+    private ReconciliationStatus awaitRun() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (reconciler.status().getState() == ReconciliationStatus.State.RUNNING) {
+            if (System.nanoTime() > deadline) {
+                fail("Reconciliation run did not finish");
+            }
+            Thread.sleep(10);
+        }
+        return reconciler.status();
+    }
+
+    private static ResultSet row(long productId, int quantity) throws SQLException {
+        ResultSet row = mock(ResultSet.class);
+        when(row.getLong(1)).thenReturn(productId);
+        when(row.getInt(2)).thenReturn(quantity);
+        return row;
+    }
+
+    @AfterEach
+    void tearDown() {
+        reconciler.shutdown();
+    }
+
+    @Test
+    void compare_WhenStockFollowsOrdersAndWrites_ShouldFindNothing() {
+        // Given
+        InventoryReconciler.Baseline baseline = new InventoryReconciler.Baseline(10, 4L, 5, 0);
+
+        // When
+        List<StockDiscrepancy> found = InventoryReconciler.compare(1L, 12, 7L, baseline, 12);
+
+        // Then
+        assertThat(found).isEmpty();
+    }
+
+    @Test
+    void compare_WhenStockDrifted_ShouldReportDriftAndNegativeStock() {
+        // Given
+        InventoryReconciler.Baseline baseline = new InventoryReconciler.Baseline(10, 0L, 0, 0);
+
+        // When
+        List<StockDiscrepancy> found = InventoryReconciler.compare(1L, -1, 3L, baseline, null);
+
+        // Then
+        assertThat(found).extracting(StockDiscrepancy::getType, StockDiscrepancy::getExpected, StockDiscrepancy::getActual)
+                .containsExactly(
+                        tuple(StockDiscrepancy.Type.ORDER_DRIFT, 7, -1),
+                        tuple(StockDiscrepancy.Type.NEGATIVE_STOCK, 0, -1));
+    }
+
+    @Test
+    void compare_AfterLevelWasSet_ShouldOnlyCheckTheCache() {
+        // Given
+        InventoryReconciler.Baseline baseline = new InventoryReconciler.Baseline(10, 0L, 0, 1);
+
+        // When
+        List<StockDiscrepancy> found = InventoryReconciler.compare(1L, 40, 3L, baseline, 35);
+
+        // Then
+        assertThat(found).singleElement().satisfies(discrepancy -> {
+            assertThat(discrepancy.getType()).isEqualTo(StockDiscrepancy.Type.CACHE_DRIFT);
+            assertThat(discrepancy.getExpected()).isEqualTo(40);
+            assertThat(discrepancy.getActual()).isEqualTo(35);
+        });
+    }
+
+    @Test
+    void flushWrites_ShouldAddWritesOtherThanCheckoutsToTheBaselines() {
+        // Given
+        reconciler.onStockChange(new StockChangeEvent(1L, 5, 15));
+        reconciler.onStockChange(new StockChangeEvent(1L, -2, 13));
+        reconciler.onStockChange(new StockChangeEvent(1L, -3, 10, true));
+        reconciler.onStockChange(new StockChangeEvent(2L, null, 40));
+
+        // When
+        reconciler.flushWrites();
+        reconciler.flushWrites();
+
+        // Then
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Object[]>> updates = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(startsWith("UPDATE inventory_baseline SET adjusted"), updates.capture());
+        assertThat(updates.getValue()).containsExactlyInAnyOrder(new Object[]{3, 0, 1L}, new Object[]{0, 1, 2L});
+    }
+
+    @Test
+    void checkpoint_ShouldReadBackTheLastProgressUntilCleared() throws IOException {
+        // Given
+        ReconciliationCheckpoint checkpoint = new ReconciliationCheckpoint(directory.resolve("checkpoint"));
+        Instant startedAt = Instant.parse("2026-01-01T03:30:00Z");
+        checkpoint.write(new ReconciliationCheckpoint.Progress("run", startedAt, 1000L, 120L, 1000L, 2L));
+        checkpoint.write(new ReconciliationCheckpoint.Progress("run", startedAt, 2000L, 160L, 2000L, 3L));
+
+        // When
+        ReconciliationCheckpoint.Progress progress = checkpoint.read();
+        checkpoint.clear();
+
+        // Then
+        assertThat(progress).isEqualTo(new ReconciliationCheckpoint.Progress("run", startedAt, 2000L, 160L, 2000L, 3L));
+        assertThat(checkpoint.read()).isNull();
+    }
+
+    @Test
+    void start_WithChunksCompletingOutOfOrderAndOneFailing_ShouldReportAndWriteBaselinesInOrderThenResume() throws Exception {
+        // Given
+        reconciler.shutdown();
+        reconciler = new InventoryReconciler(jdbcTemplate, transactionManager,
+                new StockLevelCache(100, Duration.ofMinutes(1)), Optional.empty(), directory.toString(), 1, 2, 3);
+        when(jdbcTemplate.queryForList(startsWith("SELECT product_id FROM inventory"), eq(Long.class), any(Object[].class)))
+                .thenAnswer(invocation -> {
+                    long after = invocation.getArgument(2);
+                    return after < 3 ? List.of(after == Long.MIN_VALUE ? 1L : after + 1) : List.of();
+                });
+        List<ResultSet> rows = List.of(row(1L, -1), row(2L, -2), row(3L, -3));
+        // the first chunk waits until the pool has moved on to the third, the third fails once
+        CountDownLatch thirdStarted = new CountDownLatch(1);
+        AtomicBoolean thirdFails = new AtomicBoolean(true);
+        doAnswer(invocation -> {
+            long last = invocation.getArgument(3);
+            if (last == 1L) {
+                assertThat(thirdStarted.await(10, TimeUnit.SECONDS)).isTrue();
+            } else if (last == 3L) {
+                thirdStarted.countDown();
+                if (thirdFails.getAndSet(false)) {
+                    throw new IllegalStateException("Connection reset");
+                }
+            }
+            invocation.<RowCallbackHandler>getArgument(1).processRow(rows.get((int) last - 1));
+            return null;
+        }).when(jdbcTemplate).query(startsWith("SELECT i.product_id"), any(RowCallbackHandler.class), any(Object[].class));
+
+        // When
+        reconciler.start();
+        ReconciliationStatus failed = awaitRun();
+        reconciler.start();
+        ReconciliationStatus resumed = awaitRun();
+
+        // Then
+        assertThat(failed.getState()).isEqualTo(ReconciliationStatus.State.FAILED);
+        assertThat(failed.getCheckedThrough()).isEqualTo(2L);
+        assertThat(resumed.getState()).isEqualTo(ReconciliationStatus.State.COMPLETED);
+        assertThat(resumed.getRunId()).isEqualTo(failed.getRunId());
+        assertThat(resumed.getProducts()).isEqualTo(3L);
+        assertThat(Files.readString(Path.of(resumed.getReport()))).isEqualTo("product_id,type,expected,actual\n"
+                + "1,NEGATIVE_STOCK,0,-1\n2,NEGATIVE_STOCK,0,-2\n3,NEGATIVE_STOCK,0,-3\n");
+        assertThat(directory.resolve("checkpoint")).doesNotExist();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Object[]>> inserts = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(3)).batchUpdate(startsWith("INSERT INTO inventory_baseline"), inserts.capture());
+        assertThat(inserts.getAllValues()).extracting(batch -> batch.get(0)[0]).containsExactly(1L, 2L, 3L);
+        InOrder order = inOrder(jdbcTemplate);
+        order.verify(jdbcTemplate).queryForList(anyString(), eq(Long.class), eq(Long.MIN_VALUE), eq(1));
+        order.verify(jdbcTemplate).queryForList(anyString(), eq(Long.class), eq(2L), eq(1));
+    }
+
+    @Test
+    void start_WithLedger_ShouldLeaveProductsWrittenDuringTheCheckForALaterRun() throws Exception {
+        // Given
+        StockLedger stockLedger = mock(StockLedger.class);
+        when(stockLedger.peek(1L)).thenReturn(7);
+        when(stockLedger.peek(2L)).thenReturn(7);
+        reconciler.shutdown();
+        reconciler = new InventoryReconciler(jdbcTemplate, transactionManager,
+                new StockLevelCache(100, Duration.ofMinutes(1)), Optional.of(stockLedger), directory.toString(), 1000, 2, 2);
+        when(jdbcTemplate.queryForList(startsWith("SELECT product_id FROM inventory"), eq(Long.class), any(Object[].class)))
+                .thenAnswer(invocation -> invocation.<Long>getArgument(2) == Long.MIN_VALUE ? List.of(1L, 2L) : List.of());
+        ResultSet first = row(1L, 10);
+        ResultSet second = row(2L, 10);
+        doAnswer(invocation -> {
+            // a checkout of the first product commits while the chunk is read
+            reconciler.onStockChange(new StockChangeEvent(1L, -3, 7, true));
+            invocation.<RowCallbackHandler>getArgument(1).processRow(first);
+            invocation.<RowCallbackHandler>getArgument(1).processRow(second);
+            return null;
+        }).when(jdbcTemplate).query(startsWith("SELECT i.product_id"), any(RowCallbackHandler.class), any(Object[].class));
+        doAnswer(invocation -> {
+            invocation.<RowCallbackHandler>getArgument(1).processRow(first);
+            invocation.<RowCallbackHandler>getArgument(1).processRow(second);
+            return null;
+        }).when(jdbcTemplate).query(startsWith("SELECT product_id, quantity"), any(RowCallbackHandler.class), any(Object[].class));
+        doNothing().when(jdbcTemplate).query(startsWith("SELECT product_id, SUM"), any(RowCallbackHandler.class), any(Object[].class));
+
+        // When
+        reconciler.start();
+        ReconciliationStatus finished = awaitRun();
+
+        // Then
+        assertThat(finished.getState()).isEqualTo(ReconciliationStatus.State.COMPLETED);
+        assertThat(Files.readString(Path.of(finished.getReport())))
+                .isEqualTo("product_id,type,expected,actual\n2,ORDER_DRIFT,10,7\n");
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Object[]>> updates = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(startsWith("UPDATE inventory_baseline SET quantity"), updates.capture());
+        assertThat(updates.getValue()).extracting(update -> update[5]).containsExactly(2L);
+    }
+}
@@ -0,0 +1,223 @@
+package com.cleartrip.ecommerce_management_project.inventory;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class InventoryShardsTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @InjectMocks
+    private InventoryShards inventoryShards;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        ReflectionTestUtils.setField(inventoryShards, "maxCount", 64);
+        sharded(1L, 4);
+    }
+
+    @Test
+    void split_ShouldGiveTheRemainderToTheFirstShards() {
+        // When / Then
+        assertThat(InventoryShards.split(10, 4)).containsExactly(3, 3, 2, 2);
+        assertThat(InventoryShards.split(2, 4)).containsExactly(1, 1, 0, 0);
+    }
+
+    @Test
+    void tryTake_WhenPickedShardHasStock_ShouldNotLockTheRow() {
+        // Given
+        shardStock(5, 5, 5, 5);
+
+        // When
+        boolean result = inventoryShards.tryTake(1L, 2, 0);
+
+        // Then
+        assertThat(result).isTrue();
+        verify(jdbcTemplate).update(eq("UPDATE inventory_shard SET quantity = quantity - ? WHERE product_id = ? AND shard = ?"),
+                eq(2), eq(1L), anyInt());
+        verify(jdbcTemplate, never()).queryForList(startsWith("SELECT quantity FROM inventory WHERE"), eq(Integer.class),
+                any(Object[].class));
+    }
+
+    @Test
+    void tryTake_WithPoolOfOneConnection_ShouldTakeOnTheCheckoutConnection() {
+        // Given
+        TransactionTemplate checkout = new TransactionTemplate(new OneConnectionPool());
+        ReflectionTestUtils.setField(inventoryShards, "transactionTemplate", checkout);
+        shardStock(5, 5, 5, 5);
+
+        // When
+        Boolean result = checkout.execute(status -> inventoryShards.tryTake(1L, 2, 0));
+
+        // Then
+        assertThat(result).isTrue();
+    }
+
+    @Test
+    void tryTake_WhenShardsAreLockedByOtherCheckouts_ShouldSkipThem() {
+        // Given
+        shardStock(null, null, 5, null);
+
+        // When
+        boolean result = inventoryShards.tryTake(1L, 2, 0);
+
+        // Then
+        assertThat(result).isTrue();
+        verify(jdbcTemplate).update("UPDATE inventory_shard SET quantity = quantity - ? WHERE product_id = ? AND shard = ?",
+                2, 1L, 2);
+    }
+
+    @Test
+    void tryTake_WhenEveryShardIsShort_ShouldRebalanceTheRest() {
+        // Given
+        shardStock(0, 1, 0, 0);
+        rowStock(2);
+
+        // When
+        boolean result = inventoryShards.tryTake(1L, 2, 0);
+
+        // Then
+        assertThat(result).isTrue();
+        verify(jdbcTemplate).update("UPDATE inventory SET quantity = ? WHERE product_id = ?", 0, 1L);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Object[]>> shards = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(startsWith("UPDATE inventory_shard SET quantity = ?"), shards.capture());
+        assertThat(shards.getValue()).extracting(shard -> shard[0]).containsExactly(1, 0, 0, 0);
+        assertThat(shards.getValue()).extracting(shard -> shard[2]).containsExactlyInAnyOrder(0, 1, 2, 3);
+    }
+
+    @Test
+    void tryTake_WhenRowIsLocked_ShouldRebalanceOnlyTheShardsItHolds() {
+        // Given
+        shardStock(0, 2, null, 2);
+        rowStock(null);
+
+        // When
+        boolean result = inventoryShards.tryTake(1L, 3, 0);
+
+        // Then
+        assertThat(result).isTrue();
+        verify(jdbcTemplate, never()).update(startsWith("UPDATE inventory SET"), any(Object[].class));
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Object[]>> shards = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(startsWith("UPDATE inventory_shard SET quantity = ?"), shards.capture());
+        assertThat(shards.getValue()).extracting(shard -> shard[0]).containsExactly(1, 0, 0);
+        assertThat(shards.getValue()).extracting(shard -> shard[2]).containsExactlyInAnyOrder(0, 1, 3);
+    }
+
+    @Test
+    void tryTake_WhenTakingWouldDipIntoKeep_ShouldRefuse() {
+        // Given
+        shardStock(2, 2, 1, 1);
+        rowStock(0);
+
+        // When
+        boolean result = inventoryShards.tryTake(1L, 3, 4);
+
+        // Then
+        assertThat(result).isFalse();
+        verify(jdbcTemplate, never()).update(anyString(), any(Object[].class));
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+    }
+
+    @Test
+    void enable_WithOutOfRangeCount_ShouldThrowException() {
+        // When / Then
+        assertThatThrownBy(() -> inventoryShards.enable(2L, 1))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> inventoryShards.enable(2L, 65))
+                .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    // the stock of every shard of product 1, null for one another checkout has locked
+    private void shardStock(Integer... shards) {
+        when(jdbcTemplate.queryForList(startsWith("SELECT quantity FROM inventory_shard"), eq(Integer.class), any(Object[].class)))
+                .thenAnswer(invocation -> {
+                    Integer quantity = shards[invocation.<Integer>getArgument(3)];
+                    return quantity == null ? List.of() : List.of(quantity);
+                });
+    }
+
+    private void rowStock(Integer onRow) {
+        when(jdbcTemplate.queryForList(startsWith("SELECT quantity FROM inventory WHERE"), eq(Integer.class), any(Object[].class)))
+                .thenReturn(onRow == null ? List.of() : List.of(onRow));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void sharded(long productId, int count) {
+        ((Map<Long, Integer>) ReflectionTestUtils.getField(inventoryShards, "counts")).put(productId, count);
+    }
+
+    // a transaction manager over a pool of a single connection, which a checkout holds
+    // from its start. a second transaction would wait on the pool until it times out
+    private static class OneConnectionPool extends AbstractPlatformTransactionManager {
+        private boolean inUse;
+
+        @Override
+        protected Object doGetTransaction() {
+            return new boolean[]{inUse};
+        }
+
+        @Override
+        protected boolean isExistingTransaction(Object transaction) {
+            return ((boolean[]) transaction)[0];
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+            if (inUse) {
+                throw new CannotCreateTransactionException("Connection is not available, request timed out");
+            }
+            inUse = true;
+        }
+
+        @Override
+        protected Object doSuspend(Object transaction) {
+            // the suspended transaction keeps its connection
+            return transaction;
+        }
+
+        @Override
+        protected void doResume(Object transaction, Object suspendedResources) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+            inUse = false;
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+            inUse = false;
+        }
+    }
+}
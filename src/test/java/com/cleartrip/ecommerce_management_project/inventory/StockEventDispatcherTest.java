@@ -0,0 +1,168 @@
+package com.cleartrip.ecommerce_management_project.inventory;
+
+import com.cleartrip.ecommerce_management_project.dto.StockUpdate;
+import com.cleartrip.ecommerce_management_project.dto.StockUpdatePage;
+import com.cleartrip.ecommerce_management_project.event.StockChangeEvent;
+import com.cleartrip.ecommerce_management_project.event.StockUpdatesEvent;
+import com.cleartrip.ecommerce_management_project.service.InventoryService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class StockEventDispatcherTest {
+
+    @Mock
+    private InventoryService inventoryService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private StockEventDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        dispatcher = new StockEventDispatcher(inventoryService, eventPublisher, 10, 3, Runnable::run);
+    }
+
+    @Test
+    void dispatch_ShouldFoldTheChangesOfAProductIntoOneUpdate() {
+        // Given
+        when(inventoryService.getAvailableQuantity(1L)).thenReturn(Optional.of(40));
+        dispatcher.onStockChange(new StockChangeEvent(1L, -3, null));
+        dispatcher.onStockChange(new StockChangeEvent(1L, -2, 45));
+        dispatcher.onStockChange(new StockChangeEvent(1L, -5, null));
+
+        // When
+        dispatcher.dispatch();
+
+        // Then
+        ArgumentCaptor<StockUpdatesEvent> event = ArgumentCaptor.forClass(StockUpdatesEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertThat(event.getValue().getUpdates()).singleElement().satisfies(update -> {
+            assertThat(update.getType()).isEqualTo(StockUpdate.Type.CHANGED);
+            assertThat(update.getDelta()).isEqualTo(-10);
+            assertThat(update.getQuantity()).isEqualTo(40);
+            assertThat(update.getChanges()).isEqualTo(3);
+        });
+    }
+
+    @Test
+    void dispatch_WhenStockCrossesThreshold_ShouldMarkLowStockOnce() {
+        // Given
+        when(inventoryService.getAvailableQuantity(1L)).thenReturn(Optional.of(8)).thenReturn(Optional.of(6));
+        String cursor = dispatcher.updatesAfter(null, 10).getCursor();
+
+        // When
+        dispatcher.onStockChange(new StockChangeEvent(1L, -4, 8));
+        dispatcher.dispatch();
+        dispatcher.onStockChange(new StockChangeEvent(1L, -2, 6));
+        dispatcher.dispatch();
+
+        // Then
+        StockUpdatePage page = dispatcher.updatesAfter(cursor, 10);
+        assertThat(page.getUpdates()).extracting(StockUpdate::getType)
+                .containsExactly(StockUpdate.Type.LOW_STOCK, StockUpdate.Type.CHANGED);
+    }
+
+    @Test
+    void dispatch_WhenProductUpdatesLeftTheHistory_ShouldForgetItsLastLevel() {
+        // Given
+        when(inventoryService.getAvailableQuantity(1L)).thenReturn(Optional.of(8)).thenReturn(Optional.of(6));
+        dispatcher.onStockChange(new StockChangeEvent(1L, -4, 8));
+        dispatcher.dispatch();
+        for (long productId = 2; productId <= 4; productId++) {
+            when(inventoryService.getAvailableQuantity(productId)).thenReturn(Optional.of(100));
+            dispatcher.onStockChange(new StockChangeEvent(productId, 1, 100));
+            dispatcher.dispatch();
+        }
+        String cursor = dispatcher.updatesAfter(null, 10).getCursor();
+
+        // When
+        dispatcher.onStockChange(new StockChangeEvent(1L, null, 6));
+        dispatcher.dispatch();
+
+        // Then
+        StockUpdatePage page = dispatcher.updatesAfter(cursor, 10);
+        assertThat(page.getUpdates()).extracting(StockUpdate::getType).containsExactly(StockUpdate.Type.LOW_STOCK);
+    }
+
+    @Test
+    void dispatch_WithAbsoluteLevel_ShouldLeaveDeltaUnknown() {
+        // Given
+        when(inventoryService.getAvailableQuantity(2L)).thenReturn(Optional.of(50));
+        String cursor = dispatcher.updatesAfter(null, 10).getCursor();
+        dispatcher.onStockChange(new StockChangeEvent(2L, 5, 20));
+        dispatcher.onStockChange(new StockChangeEvent(2L, null, 50));
+
+        // When
+        dispatcher.dispatch();
+
+        // Then
+        StockUpdatePage page = dispatcher.updatesAfter(cursor, 10);
+        assertThat(page.getUpdates()).singleElement().satisfies(update -> {
+            assertThat(update.getDelta()).isNull();
+            assertThat(update.getQuantity()).isEqualTo(50);
+        });
+    }
+
+    @Test
+    void updatesAfter_ShouldPageFromCursorAndResetOnceOvertaken() {
+        // Given
+        StockUpdatePage start = dispatcher.updatesAfter(null, 10);
+        for (long productId = 1; productId <= 2; productId++) {
+            when(inventoryService.getAvailableQuantity(productId)).thenReturn(Optional.of(100));
+            dispatcher.onStockChange(new StockChangeEvent(productId, 1, 100));
+        }
+        dispatcher.dispatch();
+
+        // When
+        StockUpdatePage first = dispatcher.updatesAfter(start.getCursor(), 1);
+        StockUpdatePage second = dispatcher.updatesAfter(first.getCursor(), 1);
+        StockUpdatePage last = dispatcher.updatesAfter(second.getCursor(), 1);
+
+        // Then
+        assertThat(start.isReset()).isTrue();
+        assertThat(first.getUpdates()).extracting(StockUpdate::getProductId).containsExactly(1L);
+        assertThat(second.getUpdates()).extracting(StockUpdate::getProductId).containsExactly(2L);
+        assertThat(last.getUpdates()).isEmpty();
+        assertThat(last.getCursor()).isEqualTo(second.getCursor());
+
+        // When
+        for (long productId = 3; productId <= 6; productId++) {
+            when(inventoryService.getAvailableQuantity(productId)).thenReturn(Optional.of(100));
+            dispatcher.onStockChange(new StockChangeEvent(productId, 1, 100));
+        }
+        dispatcher.dispatch();
+
+        // Then
+        assertThat(dispatcher.updatesAfter(second.getCursor(), 10).isReset()).isTrue();
+    }
+
+    @Test
+    void dispatch_WhenStockCannotBeRead_ShouldKeepChangesForNextWindow() {
+        // Given
+        when(inventoryService.getAvailableQuantity(1L))
+                .thenThrow(new IllegalStateException("database down"))
+                .thenReturn(Optional.of(30));
+        dispatcher.onStockChange(new StockChangeEvent(1L, -1, 30));
+        dispatcher.dispatch();
+        verifyNoInteractions(eventPublisher);
+
+        // When
+        dispatcher.dispatch();
+
+        // Then
+        verify(eventPublisher).publishEvent(any(StockUpdatesEvent.class));
+    }
+}
@@ -0,0 +1,118 @@
+package com.cleartrip.ecommerce_management_project.inventory;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class StockJournalTest {
+
+    @TempDir
+    Path directory;
+
+    private StockJournal journal;
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    @Test
+    void append_ShouldHandRecordsOverOnceDurable() throws IOException {
+        // Given
+        List<StockJournal.Entry> durable = new CopyOnWriteArrayList<>();
+        journal = new StockJournal(directory, 1024);
+        journal.open(0, durable::addAll);
+
+        // When
+        journal.append(1L, -2).join();
+        journal.append(2L, 5).join();
+
+        // Then
+        assertThat(durable).containsExactly(new StockJournal.Entry(1, 1L, -2), new StockJournal.Entry(2, 2L, 5));
+    }
+
+    @Test
+    void open_AfterRestart_ShouldReturnRecordsPastTheCheckpoint() throws IOException {
+        // Given
+        journal = new StockJournal(directory, 1024);
+        journal.open(0, entries -> { });
+        journal.append(1L, -1).join();
+        journal.append(1L, -2).join();
+        journal.append(2L, 3).join();
+        journal.close();
+
+        // When
+        List<StockJournal.Entry> durable = new CopyOnWriteArrayList<>();
+        journal = new StockJournal(directory, 1024);
+        List<StockJournal.Entry> unflushed = journal.open(1, durable::addAll);
+        journal.append(3L, 4).join();
+
+        // Then
+        assertThat(unflushed).containsExactly(new StockJournal.Entry(2, 1L, -2), new StockJournal.Entry(3, 2L, 3));
+        assertThat(durable).containsExactly(new StockJournal.Entry(4, 3L, 4));
+    }
+
+    @Test
+    void open_WithTornRecord_ShouldStopBeforeIt() throws IOException {
+        // Given
+        journal = new StockJournal(directory, 1024);
+        journal.open(0, entries -> { });
+        journal.append(1L, -1).join();
+        journal.close();
+        try (Stream<Path> files = Files.list(directory)) {
+            Path segment = files.findFirst().orElseThrow();
+            Files.write(segment, new byte[StockJournal.RECORD_BYTES - 3], StandardOpenOption.APPEND);
+        }
+
+        // When
+        journal = new StockJournal(directory, 1024);
+        List<StockJournal.Entry> unflushed = journal.open(0, entries -> { });
+
+        // Then
+        assertThat(unflushed).containsExactly(new StockJournal.Entry(1, 1L, -1));
+    }
+
+    @Test
+    void truncateThrough_ShouldDeleteOnlyFullyFlushedSegments() throws IOException {
+        // Given
+        journal = new StockJournal(directory, StockJournal.RECORD_BYTES * 2L);
+        journal.open(0, entries -> { });
+        for (int i = 0; i < 5; i++) {
+            journal.append(1L, -1).join();
+        }
+        assertThat(journal.segmentCount()).isEqualTo(3);
+
+        // When
+        journal.truncateThrough(3);
+
+        // Then
+        assertThat(journal.segmentCount()).isEqualTo(2);
+        journal.close();
+        journal = new StockJournal(directory, 1024);
+        assertThat(journal.open(0, entries -> { })).extracting(StockJournal.Entry::sequence).containsExactly(3L, 4L, 5L);
+    }
+
+    @Test
+    void append_WhenClosed_ShouldFail() throws IOException {
+        // Given
+        journal = new StockJournal(directory, 1024);
+        journal.open(0, entries -> { });
+        journal.close();
+
+        // When / Then
+        assertThatThrownBy(() -> journal.append(1L, -1).join()).hasCauseInstanceOf(IOException.class);
+    }
+}
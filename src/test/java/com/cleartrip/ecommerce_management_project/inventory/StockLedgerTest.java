@@ -0,0 +1,279 @@
+package com.cleartrip.ecommerce_management_project.inventory;
+
+import com.cleartrip.ecommerce_management_project.cache.ProductCache;
+import com.cleartrip.ecommerce_management_project.catalog.CatalogVersions;
+import com.cleartrip.ecommerce_management_project.event.StockChangeEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class StockLedgerTest {
+
+    @TempDir
+    Path directory;
+
+    @Mock
+    private StockLedgerStore store;
+
+    @Mock
+    private ProductCache productCache;
+
+    @Mock
+    private CatalogVersions catalogVersions;
+
+    private StockLedger ledger;
+
+    private StockJournal journal;
+
+    @BeforeEach
+    void setUp() {
+        ledger = newLedger();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        ledger.shutdown();
+    }
+
+    @Test
+    void tryTake_WhenEnoughStock_ShouldTakeFromMemory() {
+        // Given
+        when(store.loadQuantity(1L)).thenReturn(5);
+
+        // When
+        int first = ledger.tryTake(1L, 3);
+        int second = ledger.tryTake(1L, 3);
+
+        // Then
+        assertThat(first).isEqualTo(2);
+        assertThat(second).isEqualTo(-1);
+        assertThat(ledger.available(1L)).contains(2);
+        verify(store, times(1)).loadQuantity(1L);
+    }
+
+    @Test
+    void tryTake_WithoutInventoryRow_ShouldReturnMinusOne() {
+        // Given
+        when(store.loadQuantity(1L)).thenReturn(null);
+
+        // When / Then
+        assertThat(ledger.tryTake(1L, 1)).isEqualTo(-1);
+        assertThat(ledger.available(1L)).isEmpty();
+    }
+
+    @Test
+    void tryTake_FromManyThreads_ShouldNeverOversell() throws Exception {
+        // Given
+        when(store.loadQuantity(1L)).thenReturn(100);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<Integer>> takes = new ArrayList<>();
+
+        // When
+        for (int i = 0; i < 200; i++) {
+            takes.add(executor.submit(() -> ledger.tryTake(1L, 1)));
+        }
+        int taken = 0;
+        for (Future<Integer> take : takes) {
+            taken += take.get() >= 0 ? 1 : 0;
+        }
+        executor.shutdown();
+
+        // Then
+        assertThat(taken).isEqualTo(100);
+        assertThat(ledger.available(1L)).contains(0);
+    }
+
+    @Test
+    void flush_ShouldWriteSummedDeltasWithTheirJournalPosition() {
+        // Given
+        when(store.loadQuantity(1L)).thenReturn(10);
+        when(store.loadQuantity(2L)).thenReturn(10);
+        ledger.tryTake(1L, 2);
+        ledger.tryTake(1L, 3);
+        ledger.set(2L, 4);
+
+        // When
+        ledger.flush();
+
+        // Then
+        verify(store).apply(Map.of(1L, -5, 2L, -6), 3L);
+        verify(productCache).invalidate(1L);
+        verify(catalogVersions).bump(2L);
+    }
+
+    @Test
+    void flush_WhenWriteFails_ShouldKeepDeltasForTheNextOne() {
+        // Given
+        when(store.loadQuantity(1L)).thenReturn(10);
+        ledger.tryTake(1L, 2);
+        doThrow(new IllegalStateException("database down")).doNothing().when(store).apply(anyMap(), anyLong());
+
+        // When
+        assertThatThrownBy(ledger::flush).isInstanceOf(IllegalStateException.class);
+        ledger.tryTake(1L, 1);
+        ledger.flush();
+
+        // Then
+        verify(store).apply(Map.of(1L, -3), 2L);
+    }
+
+    @Test
+    void recover_ShouldWriteBackWhatTheLastRunDidNotFlush() throws IOException {
+        // Given
+        when(store.loadQuantity(1L)).thenReturn(10);
+        ledger.tryTake(1L, 2);
+        ledger.tryTake(1L, 3);
+        ledger.tryTake(1L, 4);
+        ledger.shutdown();
+        reset(store);
+        when(store.checkpoint()).thenReturn(1L);
+
+        // When
+        ledger = newLedger();
+
+        // Then
+        verify(store).apply(Map.of(1L, -7), 3L);
+    }
+
+    @Test
+    void recover_AfterRolledBackCheckout_ShouldReplayOnlyCommittedTakes() throws IOException {
+        // Given
+        when(store.loadQuantity(1L)).thenReturn(10);
+        StockLedger.Hold committed = ledger.tryHold(1L, 2, 0);
+        StockLedger.Hold rolledBack = ledger.tryHold(1L, 3, 0);
+        ledger.tryHold(1L, 4, 0);
+        ledger.confirm(committed);
+        ledger.release(rolledBack);
+        assertThat(ledger.peek(1L)).isEqualTo(4);
+        journal.close();
+        reset(store);
+
+        // When
+        ledger = newLedger();
+
+        // Then
+        verify(store).apply(Map.of(1L, -2), 1L);
+    }
+
+    @Test
+    void applyAll_ShouldLoadCountersTogetherAndSkipChangesBelowZero() {
+        // Given
+        when(store.loadQuantities(anyCollection())).thenReturn(Map.of(1L, 10, 2L, 1));
+
+        // When
+        List<Integer> found = ledger.applyAll(List.of(
+                new StockLedger.Change(1L, true, 4),
+                new StockLedger.Change(2L, false, -2),
+                new StockLedger.Change(3L, false, 5),
+                new StockLedger.Change(1L, false, 3)));
+        ledger.flush();
+
+        // Then
+        assertThat(found).containsExactly(10, 1, null, 4);
+        assertThat(ledger.peek(1L)).isEqualTo(7);
+        assertThat(ledger.peek(2L)).isEqualTo(1);
+        verify(store, never()).loadQuantity(anyLong());
+        verify(store).apply(Map.of(1L, -3), 2L);
+    }
+
+    @Test
+    void onStockChange_WithAbsoluteLevel_ShouldReloadTheCounterWithoutTheUnflushedDeltas() {
+        // Given
+        when(store.loadQuantity(1L)).thenReturn(10, 50);
+        ledger.tryTake(1L, 2);
+
+        // When
+        ledger.onStockChange(new StockChangeEvent(1L, null, 50));
+
+        // Then
+        assertThat(ledger.peek(1L)).isNull();
+        assertThat(ledger.available(1L)).contains(50);
+        ledger.flush();
+        verify(store).apply(Map.of(1L, 0), 2L);
+    }
+
+    @Test
+    void recover_FromSnapshot_ShouldStartWarmWithoutReadingTheTable() throws IOException {
+        // Given
+        when(store.loadQuantity(1L)).thenReturn(10);
+        ledger.tryTake(1L, 2);
+        ledger.shutdown();
+        reset(store);
+        when(store.checkpoint()).thenReturn(1L);
+
+        // When
+        ledger = newLedger();
+
+        // Then
+        assertThat(ledger.peek(1L)).isEqualTo(8);
+        verify(store, never()).loadQuantity(anyLong());
+    }
+
+    @Test
+    void recover_WithRecordsPastTheSnapshot_ShouldReplayThemOnTop() throws IOException {
+        // Given
+        when(store.loadQuantity(1L)).thenReturn(10);
+        ledger.tryTake(1L, 2);
+        ledger.flush();
+        ledger.snapshot();
+        ledger.tryTake(1L, 3);
+        ledger.flush();
+        journal.close();
+        reset(store);
+        when(store.checkpoint()).thenReturn(2L);
+
+        // When
+        ledger = newLedger();
+
+        // Then
+        assertThat(ledger.peek(1L)).isEqualTo(5);
+        verify(store, never()).apply(anyMap(), anyLong());
+        verify(store, never()).loadQuantity(anyLong());
+    }
+
+    @Test
+    void reconcile_ShouldCatchWarmCountersUpWithTheTable() throws IOException {
+        // Given
+        when(store.loadQuantities(anyCollection())).thenReturn(Map.of(1L, 10, 2L, 10));
+        ledger.applyAll(List.of(new StockLedger.Change(1L, false, -2), new StockLedger.Change(2L, false, -1)));
+        ledger.shutdown();
+        reset(store);
+        when(store.checkpoint()).thenReturn(2L);
+        ledger = newLedger();
+        when(store.loadQuantities(anyCollection())).thenReturn(Map.of(1L, 20));
+
+        // When
+        ledger.reconcile();
+
+        // Then
+        assertThat(ledger.peek(1L)).isEqualTo(20);
+        assertThat(ledger.peek(2L)).isNull();
+    }
+
+    private StockLedger newLedger() {
+        journal = new StockJournal(directory, 1024 * 1024);
+        StockLedger created = new StockLedger(store, productCache, catalogVersions, journal,
+                new StockSnapshot(directory.resolve("stock.snapshot")));
+        created.recover();
+        return created;
+    }
+}
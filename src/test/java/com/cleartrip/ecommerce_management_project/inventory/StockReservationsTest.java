@@ -0,0 +1,118 @@
+package com.cleartrip.ecommerce_management_project.inventory;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class StockReservationsTest {
+
+    private StockReservations reservations;
+
+    @BeforeEach
+    void setUp() {
+        reservations = new StockReservations(Duration.ofSeconds(60), Duration.ofSeconds(1), 0);
+    }
+
+    @Test
+    void reserve_ShouldOnlyPromiseWhatIsNotHeldByOtherCarts() {
+        // Given
+        reservations.reserve(1L, 10L, 3, 5, 0);
+
+        // When
+        boolean second = reservations.reserve(2L, 10L, 3, 5, 0);
+        boolean third = reservations.reserve(2L, 10L, 2, 5, 0);
+
+        // Then
+        assertThat(second).isFalse();
+        assertThat(third).isTrue();
+        assertThat(reservations.reserved(10L)).isEqualTo(5);
+        assertThat(reservations.availableToPromise(10L, 5)).isZero();
+        assertThat(reservations.reservedByOthers(1L, 10L)).isEqualTo(2);
+    }
+
+    @Test
+    void release_ShouldGiveStockBack() {
+        // Given
+        reservations.reserve(1L, 10L, 3, 5, 0);
+        reservations.reserve(1L, 11L, 1, 5, 0);
+
+        // When
+        reservations.release(1L, 10L);
+
+        // Then
+        assertThat(reservations.reserved(10L)).isZero();
+        assertThat(reservations.reserved(11L)).isEqualTo(1);
+        reservations.releaseAll(1L);
+        assertThat(reservations.reserved(11L)).isZero();
+    }
+
+    @Test
+    void expire_ShouldReleaseReservationsPastTheirTtl() {
+        // Given
+        reservations.reserve(1L, 10L, 3, 5, 0);
+        reservations.reserve(2L, 10L, 1, 5, 30_000);
+
+        // When
+        reservations.expire(61_000);
+
+        // Then
+        assertThat(reservations.reserved(10L)).isEqualTo(1);
+        reservations.expire(91_000);
+        assertThat(reservations.reserved(10L)).isZero();
+    }
+
+    @Test
+    void reserve_AgainForSameProduct_ShouldRestartTheTtl() {
+        // Given
+        reservations.reserve(1L, 10L, 1, 5, 0);
+
+        // When
+        reservations.reserve(1L, 10L, 1, 5, 50_000);
+        reservations.expire(61_000);
+
+        // Then
+        assertThat(reservations.reserved(10L)).isEqualTo(2);
+        reservations.expire(111_000);
+        assertThat(reservations.reserved(10L)).isZero();
+    }
+
+    @Test
+    void resize_ShouldGrowOnlyWithinStockOnHand() {
+        // Given
+        reservations.reserve(1L, 10L, 2, 5, 0);
+
+        // When
+        boolean tooMuch = reservations.resize(1L, 10L, 6, 5);
+        boolean shrunk = reservations.resize(1L, 10L, 1, 5);
+
+        // Then
+        assertThat(tooMuch).isFalse();
+        assertThat(shrunk).isTrue();
+        assertThat(reservations.reserved(10L)).isEqualTo(1);
+    }
+
+    @Test
+    void resize_InTransactionThatRollsBack_ShouldGiveTheGrowthBack() {
+        // Given
+        reservations.reserve(1L, 10L, 2, 5, 0);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            reservations.resize(1L, 10L, 4, 5);
+
+            // When
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        // Then
+        assertThat(reservations.reserved(10L)).isEqualTo(2);
+        assertThat(reservations.reservedByOthers(2L, 10L)).isEqualTo(2);
+    }
+}
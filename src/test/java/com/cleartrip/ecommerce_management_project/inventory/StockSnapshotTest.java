@@ -0,0 +1,53 @@
+package com.cleartrip.ecommerce_management_project.inventory;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class StockSnapshotTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void read_ShouldReturnTheLastImageWritten() throws IOException {
+        // Given
+        StockSnapshot snapshot = new StockSnapshot(directory.resolve("stock.snapshot"));
+        snapshot.write(7L, Map.of(1L, 5, 2L, 0));
+        snapshot.write(9L, Map.of(1L, 4, 3L, 12));
+
+        // When
+        StockSnapshot.Image image = snapshot.read();
+
+        // Then
+        assertThat(image.sequence()).isEqualTo(9L);
+        assertThat(image.levels()).isEqualTo(Map.of(1L, 4, 3L, 12));
+    }
+
+    @Test
+    void read_WithoutFile_ShouldReturnNull() throws IOException {
+        // When / Then
+        assertThat(new StockSnapshot(directory.resolve("missing.snapshot")).read()).isNull();
+    }
+
+    @Test
+    void read_WhenCorrupt_ShouldReturnNull() throws IOException {
+        // Given
+        Path file = directory.resolve("stock.snapshot");
+        StockSnapshot snapshot = new StockSnapshot(file);
+        snapshot.write(7L, Map.of(1L, 5));
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            raf.seek(24);
+            raf.writeInt(6);
+        }
+
+        // When / Then
+        assertThat(snapshot.read()).isNull();
+    }
+}
@@ -0,0 +1,48 @@
+package com.cleartrip.ecommerce_management_project.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BkTreeTest {
+
+    @Test
+    void distance_ShouldCountInsertionsDeletionsAndSubstitutions() {
+        assertThat(BkTree.distance("kitten", "sitting")).isEqualTo(3);
+        assertThat(BkTree.distance("phone", "phone")).isZero();
+        assertThat(BkTree.distance("", "case")).isEqualTo(4);
+    }
+
+    @Test
+    void search_ShouldReturnTermsWithinEdits() {
+        // Given
+        BkTree tree = BkTree.of(List.of("phone", "phones", "iphone", "case", "galaxy", "phase"));
+
+        // When
+        Map<String, Integer> result = tree.search("phine", 1, Integer.MAX_VALUE);
+
+        // Then
+        assertThat(result).containsOnly(Map.entry("phone", 1));
+        assertThat(tree.search("phone", 2, Integer.MAX_VALUE)).containsOnlyKeys("phone", "phones", "iphone", "phase");
+    }
+
+    @Test
+    void remove_ShouldHideTermAndAddShouldRestoreIt() {
+        // Given
+        BkTree tree = BkTree.of(List.of("phone", "phones", "case"));
+
+        // When
+        tree.remove("phone");
+        tree.remove("case");
+
+        // Then
+        assertThat(tree.search("phone", 1, Integer.MAX_VALUE)).containsOnlyKeys("phones");
+        assertThat(tree.needsRebuild()).isTrue();
+        tree.add("phone");
+        assertThat(tree.search("phone", 1, Integer.MAX_VALUE)).containsOnlyKeys("phone", "phones");
+        assertThat(tree.size()).isEqualTo(2);
+    }
+}
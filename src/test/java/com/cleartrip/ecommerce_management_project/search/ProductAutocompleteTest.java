@@ -0,0 +1,122 @@
+package com.cleartrip.ecommerce_management_project.search;
+
+import com.cleartrip.ecommerce_management_project.dto.ProductSuggestion;
+import com.cleartrip.ecommerce_management_project.event.ProductChangeEvent;
+import com.cleartrip.ecommerce_management_project.model.Product;
+import com.cleartrip.ecommerce_management_project.service.CatalogLoader;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ProductAutocompleteTest {
+
+    private final CatalogLoader catalogLoader = new CatalogLoader();
+
+    private ProductAutocomplete autocomplete;
+
+    @BeforeEach
+    void setUp() {
+        autocomplete = new ProductAutocomplete(catalogLoader, 2);
+        autocomplete.index(1L, "Apple iPhone 15");
+        autocomplete.index(2L, "Apple iPad Air");
+        autocomplete.index(3L, "iPhone 15 Case");
+        autocomplete.index(4L, "Samsung Galaxy");
+    }
+
+    @Test
+    void complete_ShouldMatchPrefixOfAnyWord() {
+        // When
+        List<ProductSuggestion> result = autocomplete.complete("IPH", 10);
+
+        // Then
+        assertThat(result).extracting(ProductSuggestion::getName).containsExactly("Apple iPhone 15", "iPhone 15 Case");
+    }
+
+    @Test
+    void complete_WithWordBreak_ShouldOnlyMatchFollowingWords() {
+        // When
+        List<ProductSuggestion> result = autocomplete.complete("apple ", 10);
+
+        // Then
+        assertThat(result).extracting(ProductSuggestion::getId).containsExactly(2L, 1L);
+        assertThat(autocomplete.complete("apple i", 10)).hasSize(2);
+        assertThat(autocomplete.complete("applei", 10)).isEmpty();
+    }
+
+    @Test
+    void complete_ShouldKeepOnlyTopKMostViewed() {
+        // Given
+        autocomplete.index(5L, "iPhone 14");
+        autocomplete.recordView(5L);
+        autocomplete.recordView(5L);
+        autocomplete.recordView(3L);
+
+        // When
+        List<ProductSuggestion> before = autocomplete.complete("iphone", 10);
+        autocomplete.flushViews();
+        List<ProductSuggestion> after = autocomplete.complete("iphone", 10);
+
+        // Then
+        assertThat(before).extracting(ProductSuggestion::getId).containsExactly(1L, 5L);
+        assertThat(after).extracting(ProductSuggestion::getId).containsExactly(5L, 3L);
+    }
+
+    @Test
+    void remove_ShouldLetNextBestProductIntoTopK() {
+        // Given
+        autocomplete.index(5L, "iPhone 14");
+
+        // When
+        autocomplete.remove(1L);
+
+        // Then
+        assertThat(autocomplete.complete("iphone", 10)).extracting(ProductSuggestion::getId).containsExactly(5L, 3L);
+        assertThat(autocomplete.complete("apple", 10)).extracting(ProductSuggestion::getId).containsExactly(2L);
+        assertThat(autocomplete.size()).isEqualTo(4);
+    }
+
+    @Test
+    void index_WhenRenamed_ShouldDropOldCompletions() {
+        // When
+        autocomplete.index(4L, "Samsung Galaxy S24");
+        autocomplete.index(2L, "Google Pixel");
+
+        // Then
+        assertThat(autocomplete.complete("ipad", 10)).isEmpty();
+        assertThat(autocomplete.complete("pix", 10)).extracting(ProductSuggestion::getId).containsExactly(2L);
+        assertThat(autocomplete.complete("galaxy s", 10)).extracting(ProductSuggestion::getId).containsExactly(4L);
+        assertThat(autocomplete.complete("apple", 10)).extracting(ProductSuggestion::getId).containsExactly(1L);
+    }
+
+    @Test
+    void onProductChange_WhenLoadedCopiesAreOlderThanWritesDuringTheLoad_ShouldKeepTheWrites() {
+        // Given
+        commit(ProductChangeEvent.updated(product(4L, "Samsung Tablet")));
+        commit(ProductChangeEvent.deleted(2L));
+
+        // When
+        autocomplete.onProductChange(ProductChangeEvent.loaded(product(4L, "Samsung Galaxy")));
+        autocomplete.onProductChange(ProductChangeEvent.loaded(product(2L, "Apple iPad Air")));
+
+        // Then
+        assertThat(autocomplete.complete("galaxy", 10)).isEmpty();
+        assertThat(autocomplete.complete("tablet", 10)).extracting(ProductSuggestion::getId).containsExactly(4L);
+        assertThat(autocomplete.complete("ipad", 10)).isEmpty();
+    }
+
+    // a committed write reaches the loader ahead of the read models, as their order has it
+    private void commit(ProductChangeEvent event) {
+        catalogLoader.onProductChange(event);
+        autocomplete.onProductChange(event);
+    }
+
+    private static Product product(Long id, String name) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        return product;
+    }
+}
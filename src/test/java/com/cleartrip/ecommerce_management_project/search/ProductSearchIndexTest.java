@@ -0,0 +1,190 @@
+package com.cleartrip.ecommerce_management_project.search;
+
+import com.cleartrip.ecommerce_management_project.event.ProductChangeEvent;
+import com.cleartrip.ecommerce_management_project.model.Product;
+import com.cleartrip.ecommerce_management_project.service.CatalogLoader;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ProductSearchIndexTest {
+
+    private final CatalogLoader catalogLoader = new CatalogLoader();
+
+    private ProductSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new ProductSearchIndex(catalogLoader, 2, 20000);
+        index.index(1L, "Apple iPhone 15 Pro");
+        index.index(2L, "Samsung Galaxy Phone");
+        index.index(3L, "Phone Case");
+    }
+
+    @Test
+    void search_ShouldMatchSubstringsOfNameTokens() {
+        // When
+        List<Long> result = index.search("hon");
+
+        // Then
+        assertThat(result).containsExactlyInAnyOrder(1L, 2L, 3L);
+    }
+
+    @Test
+    void search_ShouldRankWholeTokenMatchesFirst() {
+        // When
+        List<Long> result = index.search("phone");
+
+        // Then
+        assertThat(result).containsExactly(2L, 3L, 1L);
+    }
+
+    @Test
+    void search_WithSeveralTokens_ShouldRequireAllOfThem() {
+        // When
+        List<Long> result = index.search("PHONE case");
+
+        // Then
+        assertThat(result).containsExactly(3L);
+    }
+
+    @Test
+    void search_WithShortToken_ShouldUseVocabulary() {
+        // When
+        List<Long> result = index.search("15");
+
+        // Then
+        assertThat(result).containsExactly(1L);
+    }
+
+    @Test
+    void search_WhenTrigramsAreNotAdjacent_ShouldNotMatch() {
+        // Given
+        index.index(4L, "abcx bcdy");
+
+        // When
+        List<Long> result = index.search("abcd");
+
+        // Then
+        assertThat(result).isEmpty();
+    }
+
+    @Test
+    void index_WhenNameChanges_ShouldReplaceOldTokens() {
+        // When
+        index.index(3L, "Laptop Sleeve");
+
+        // Then
+        assertThat(index.search("case")).isEmpty();
+        assertThat(index.search("sleeve")).containsExactly(3L);
+        assertThat(index.size()).isEqualTo(3);
+    }
+
+    @Test
+    void remove_ShouldDropProductAndUnusedTokens() {
+        // When
+        index.remove(2L);
+
+        // Then
+        assertThat(index.search("galaxy")).isEmpty();
+        assertThat(index.vocabulary()).doesNotContain("galaxy", "samsung");
+        assertThat(index.size()).isEqualTo(2);
+    }
+
+    @Test
+    void fuzzySearch_ShouldMatchMisspelledTokens() {
+        // When
+        List<Long> result = index.fuzzySearch("samsng galaxi", 2);
+
+        // Then
+        assertThat(result).containsExactly(2L);
+        assertThat(index.search("samsng galaxi")).isEmpty();
+    }
+
+    @Test
+    void fuzzySearch_ShouldRankExactMatchesBeforeTypos() {
+        // Given
+        index.index(4L, "Phine Stand");
+
+        // When
+        List<Long> result = index.fuzzySearch("phone", 1);
+
+        // Then
+        assertThat(result).containsExactly(1L, 2L, 3L, 4L);
+    }
+
+    @Test
+    void fuzzySearch_WithShortToken_ShouldNotAllowEdits() {
+        // When
+        List<Long> result = index.fuzzySearch("16", 2);
+
+        // Then
+        assertThat(result).isEmpty();
+    }
+
+    @Test
+    void fuzzySearch_WhenProductRemoved_ShouldNotMatchItsTokens() {
+        // Given
+        index.remove(2L);
+
+        // When
+        List<Long> result = index.fuzzySearch("samsng", 2);
+
+        // Then
+        assertThat(result).isEmpty();
+    }
+
+    @Test
+    void onProductChange_WhenLoadedCopyIsOlderThanAnAppliedUpdate_ShouldKeepTheUpdate() {
+        // Given
+        commit(ProductChangeEvent.updated(product(3L, "Laptop Sleeve")));
+
+        // When
+        index.onProductChange(ProductChangeEvent.loaded(product(3L, "Phone Case")));
+
+        // Then
+        assertThat(index.search("case")).isEmpty();
+        assertThat(index.search("sleeve")).containsExactly(3L);
+    }
+
+    @Test
+    void onProductChange_WhenLoadedCopyIsOfADeletedProduct_ShouldNotIndexIt() {
+        // Given
+        commit(ProductChangeEvent.deleted(2L));
+
+        // When
+        index.onProductChange(ProductChangeEvent.loaded(product(2L, "Samsung Galaxy Phone")));
+
+        // Then
+        assertThat(index.search("galaxy")).isEmpty();
+        assertThat(index.size()).isEqualTo(2);
+    }
+
+    @Test
+    void onProductChange_WhenLoadedCopyIsOfAnUnwrittenProduct_ShouldIndexIt() {
+        // Given
+        commit(ProductChangeEvent.updated(product(3L, "Laptop Sleeve")));
+
+        // When
+        index.onProductChange(ProductChangeEvent.loaded(product(4L, "Phone Stand")));
+
+        // Then
+        assertThat(index.search("stand")).containsExactly(4L);
+    }
+
+    // a committed write reaches the loader ahead of the read models, as their order has it
+    private void commit(ProductChangeEvent event) {
+        catalogLoader.onProductChange(event);
+        index.onProductChange(event);
+    }
+
+    private static Product product(Long id, String name) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        return product;
+    }
+}
@@ -0,0 +1,101 @@
+package com.cleartrip.ecommerce_management_project.service;
+
+import com.cleartrip.ecommerce_management_project.dto.ProductImportRow;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class CatalogExportServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private CatalogExportService catalogExportService;
+
+    @BeforeEach
+    void setUp() {
+        catalogExportService = new CatalogExportService(jdbcTemplate, objectMapper);
+    }
+
+    @Test
+    void exportNdjson_ShouldWriteOneImportableProductPerLine() throws Exception {
+        // Given
+        rows(row(1L, "Phone", 99.99, "Electronics", 5), row(2L, "Lamp", 19.99, "Home", null));
+
+        // When
+        String exported = export();
+
+        // Then
+        assertThat(exported).doesNotEndWith("\n");
+        assertThat(parse(exported)).containsExactly(
+                new ProductImportRow(1L, "Phone", "About Phone", 99.99, "Electronics", 5),
+                new ProductImportRow(2L, "Lamp", "About Lamp", 19.99, "Home", null));
+    }
+
+    @Test
+    void exportNdjson_WithEmptyCatalog_ShouldWriteNothing() throws Exception {
+        // Given
+        rows();
+
+        // When
+        String exported = export();
+
+        // Then
+        assertThat(exported).isEmpty();
+    }
+
+    private void rows(ResultSet... rows) {
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (ResultSet row : rows) {
+                handler.processRow(row);
+            }
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class));
+    }
+
+    private static ResultSet row(long id, String name, double price, String category, Integer quantity) throws SQLException {
+        ResultSet row = mock(ResultSet.class);
+        when(row.getLong("id")).thenReturn(id);
+        when(row.getString("name")).thenReturn(name);
+        when(row.getString("description")).thenReturn("About " + name);
+        when(row.getDouble("price")).thenReturn(price);
+        when(row.getString("category")).thenReturn(category);
+        when(row.getObject("quantity", Integer.class)).thenReturn(quantity);
+        return row;
+    }
+
+    private String export() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        catalogExportService.exportNdjson(output);
+        return output.toString(StandardCharsets.UTF_8);
+    }
+
+    private List<ProductImportRow> parse(String exported) throws IOException {
+        List<ProductImportRow> rows = new ArrayList<>();
+        for (String line : exported.split("\n", -1)) {
+            rows.add(objectMapper.readValue(line, ProductImportRow.class));
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,205 @@
+package com.cleartrip.ecommerce_management_project.service;
+
+import com.cleartrip.ecommerce_management_project.dto.ImportResult;
+import com.cleartrip.ecommerce_management_project.event.ProductChangeEvent;
+import com.cleartrip.ecommerce_management_project.event.StockChangeEvent;
+import com.cleartrip.ecommerce_management_project.inventory.StockLedger;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class CatalogImportServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks
+    private CatalogImportService catalogImportService;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    }
+
+    @Test
+    void importNdjson_ShouldWriteValidRowsInOneBatchAndReportInvalidOnes() throws IOException {
+        // Given
+        allBatchesSucceed();
+        String feed = """
+                {"id": 1, "name": "Phone", "price": 99.99, "category": "Electronics", "quantity": 5}
+                {"id": 2, "name": "", "price": 10.0, "category": "Home"}
+                not json
+                {"id": 3, "name": "Lamp", "price": 19.99, "category": "Home"}
+                """;
+
+        // When
+        ImportResult result = catalogImportService.importNdjson(stream(feed));
+
+        // Then
+        assertThat(result.getProcessed()).isEqualTo(4);
+        assertThat(result.getImported()).isEqualTo(2);
+        assertThat(result.getFailed()).isEqualTo(2);
+        assertThat(result.getErrors()).extracting(ImportResult.RowError::getLine).containsExactly(2L, 3L);
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), any(BatchPreparedStatementSetter.class));
+        verify(eventPublisher, times(2)).publishEvent(any(ProductChangeEvent.class));
+        verify(eventPublisher, times(1)).publishEvent(any(StockChangeEvent.class));
+    }
+
+    @Test
+    void importNdjson_WithRewrittenBatch_ShouldTellCreatedFromUpdatedByTheExistingIds() throws IOException {
+        // Given
+        // a batch rewritten by the driver only reports SUCCESS_NO_INFO
+        when(jdbcTemplate.batchUpdate(anyString(), any(BatchPreparedStatementSetter.class))).thenAnswer(invocation -> {
+            int[] counts = new int[invocation.<BatchPreparedStatementSetter>getArgument(1).getBatchSize()];
+            Arrays.fill(counts, Statement.SUCCESS_NO_INFO);
+            return counts;
+        });
+        when(jdbcTemplate.queryForList(startsWith("SELECT id FROM products"), eq(Long.class), any(Object[].class)))
+                .thenReturn(List.of(1L));
+        String feed = """
+                null
+                {"id": 1, "name": "Phone", "price": 99.99, "category": "Electronics"}
+                {"id": 2, "name": "Lamp", "price": 19.99, "category": "Home"}
+                {"id": 2, "name": "Desk Lamp", "price": 24.99, "category": "Home"}
+                """;
+
+        // When
+        ImportResult result = catalogImportService.importNdjson(stream(feed));
+
+        // Then
+        assertThat(result.getImported()).isEqualTo(3);
+        assertThat(result.getErrors()).extracting(ImportResult.RowError::getLine, ImportResult.RowError::getMessage)
+                .containsExactly(tuple(1L, "Expected a product object"));
+        ArgumentCaptor<ProductChangeEvent> events = ArgumentCaptor.forClass(ProductChangeEvent.class);
+        verify(eventPublisher, times(3)).publishEvent(events.capture());
+        assertThat(events.getAllValues()).extracting(ProductChangeEvent::getProductId, ProductChangeEvent::getType)
+                .containsExactly(
+                        tuple(1L, ProductChangeEvent.Type.UPDATED),
+                        tuple(2L, ProductChangeEvent.Type.CREATED),
+                        tuple(2L, ProductChangeEvent.Type.UPDATED));
+    }
+
+    @Test
+    void importCsv_WhenBatchFails_ShouldRetryRowsToFindTheBrokenOne() throws IOException {
+        // Given
+        // the whole batch fails, then row by row: row 1 (product, inventory), row 2 fails, row 3
+        AtomicInteger singleRowCalls = new AtomicInteger();
+        when(jdbcTemplate.batchUpdate(anyString(), any(BatchPreparedStatementSetter.class))).thenAnswer(invocation -> {
+            BatchPreparedStatementSetter setter = invocation.getArgument(1);
+            if (setter.getBatchSize() > 1) {
+                throw new DataIntegrityViolationException("batch failed");
+            }
+            if (singleRowCalls.incrementAndGet() == 3) {
+                throw new DataIntegrityViolationException("Data too long for column 'name'");
+            }
+            return new int[]{1};
+        });
+        String feed = "id,name,price,category,quantity\n1,Phone,99.99,Electronics,5\n2,Bad,1.0,Home,\n3,Lamp,19.99,Home,2\n";
+
+        // When
+        ImportResult result = catalogImportService.importCsv(stream(feed));
+
+        // Then
+        assertThat(result.getImported()).isEqualTo(2);
+        assertThat(result.getFailed()).isEqualTo(1);
+        assertThat(result.getErrors()).hasSize(1);
+        assertThat(result.getErrors().get(0).getLine()).isEqualTo(3L);
+        assertThat(result.getErrors().get(0).getMessage()).contains("Data too long");
+    }
+
+    @Test
+    void importNdjson_WithStockLedger_ShouldSetTheLevelsThroughTheLedger() throws IOException, SQLException {
+        // Given
+        StockLedger stockLedger = mock(StockLedger.class);
+        ReflectionTestUtils.setField(catalogImportService, "stockLedger", stockLedger);
+        PreparedStatement inventoryRow = mock(PreparedStatement.class);
+        when(jdbcTemplate.batchUpdate(anyString(), any(BatchPreparedStatementSetter.class))).thenAnswer(invocation -> {
+            BatchPreparedStatementSetter setter = invocation.getArgument(1);
+            if (invocation.<String>getArgument(0).startsWith("INSERT INTO inventory")) {
+                setter.setValues(inventoryRow, 0);
+            }
+            return new int[setter.getBatchSize()];
+        });
+        when(stockLedger.applyAll(List.of(new StockLedger.Change(1L, true, 5)))).thenReturn(Arrays.asList(3));
+        String feed = """
+                {"id": 1, "name": "Phone", "price": 99.99, "category": "Electronics", "quantity": 5}
+                {"id": 2, "name": "Lamp", "price": 19.99, "category": "Home"}
+                """;
+
+        // When
+        catalogImportService.importNdjson(stream(feed));
+
+        // Then
+        // a new row is created with the level, an existing one keeps its stock
+        verify(inventoryRow).setInt(3, 5);
+        verify(inventoryRow).setObject(4, null, Types.INTEGER);
+        ArgumentCaptor<StockChangeEvent> events = ArgumentCaptor.forClass(StockChangeEvent.class);
+        verify(eventPublisher).publishEvent(events.capture());
+        assertThat(events.getValue()).extracting(StockChangeEvent::getProductId, StockChangeEvent::getDelta, StockChangeEvent::getQuantity)
+                .containsExactly(1L, 2, 5);
+    }
+
+    @Test
+    void importCsv_WithoutRequiredColumn_ShouldRejectFeed() throws IOException {
+        // When
+        ImportResult result = catalogImportService.importCsv(stream("id,name,price\n1,Phone,9.99\n"));
+
+        // Then
+        assertThat(result.getFailed()).isEqualTo(1);
+        assertThat(result.getErrors().get(0).getMessage()).isEqualTo("Missing column: category");
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    private void allBatchesSucceed() {
+        when(jdbcTemplate.batchUpdate(anyString(), any(BatchPreparedStatementSetter.class))).thenAnswer(invocation -> {
+            int[] counts = new int[invocation.<BatchPreparedStatementSetter>getArgument(1).getBatchSize()];
+            Arrays.fill(counts, 1);
+            return counts;
+        });
+    }
+
+    private static InputStream stream(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
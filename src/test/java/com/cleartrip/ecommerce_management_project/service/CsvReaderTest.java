@@ -0,0 +1,45 @@
+package com.cleartrip.ecommerce_management_project.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class CsvReaderTest {
+
+    @Test
+    void next_ShouldSplitPlainAndQuotedFields() throws IOException {
+        // Given
+        CsvReader reader = new CsvReader(new StringReader("id,name\n1,\"Phone, \"\"Pro\"\"\"\n\n2,Case\n"));
+
+        // When / Then
+        assertThat(reader.next()).containsExactly("id", "name");
+        assertThat(reader.next()).containsExactly("1", "Phone, \"Pro\"");
+        assertThat(reader.next()).containsExactly("2", "Case");
+        assertThat(reader.recordLine()).isEqualTo(4);
+        assertThat(reader.next()).isNull();
+    }
+
+    @Test
+    void next_WithQuotedNewline_ShouldReadOneRecord() throws IOException {
+        // Given
+        CsvReader reader = new CsvReader(new StringReader("1,\"first line\nsecond line\",9.99\n2,x,1\n"));
+
+        // When / Then
+        assertThat(reader.next()).containsExactly("1", "first line\nsecond line", "9.99");
+        assertThat(reader.next()).containsExactly("2", "x", "1");
+        assertThat(reader.recordLine()).isEqualTo(3);
+    }
+
+    @Test
+    void next_WithUnterminatedQuote_ShouldFail() {
+        // Given
+        CsvReader reader = new CsvReader(new StringReader("1,\"never closed\n"));
+
+        // When / Then
+        assertThatThrownBy(reader::next).isInstanceOf(IOException.class);
+    }
+}
@@ -0,0 +1,345 @@
+package com.cleartrip.ecommerce_management_project.service;
+
+import com.cleartrip.ecommerce_management_project.cache.StockLevelCache;
+import com.cleartrip.ecommerce_management_project.dto.CursorPage;
+import com.cleartrip.ecommerce_management_project.dto.StockLevel;
+import com.cleartrip.ecommerce_management_project.event.StockChangeEvent;
+import com.cleartrip.ecommerce_management_project.inventory.InventoryShards;
+import com.cleartrip.ecommerce_management_project.inventory.StockLedger;
+import com.cleartrip.ecommerce_management_project.inventory.StockReservations;
+import com.cleartrip.ecommerce_management_project.model.Inventory;
+import com.cleartrip.ecommerce_management_project.model.Product;
+import com.cleartrip.ecommerce_management_project.model.User;
+import com.cleartrip.ecommerce_management_project.repository.InventoryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class InventoryServiceTest {
+
+    @Mock
+    private InventoryRepository inventoryRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private StockReservations stockReservations;
+
+    @Mock
+    private InventoryShards inventoryShards;
+
+    @Spy
+    private StockLevelCache stockLevelCache = new StockLevelCache(100, Duration.ofMinutes(1));
+
+    @InjectMocks
+    private InventoryService inventoryService;
+
+    private Product testProduct;
+    private User testUser;
+
+    @BeforeEach
+    void setUp() {
+        testProduct = new Product();
+        testProduct.setId(1L);
+        testProduct.setName("Test Product");
+        testProduct.setPrice(99.99);
+        testProduct.setCategory("Electronics");
+
+        testUser = new User();
+        testUser.setId(5L);
+    }
+
+    @Test
+    void tryReserve_WhenEnoughStock_ShouldDecrementAndPublishChange() {
+        // Given
+        when(inventoryRepository.decrementIfAvailable(1L, 3, 0)).thenReturn(1);
+
+        // When
+        boolean result = inventoryService.tryReserve(testProduct, 3);
+
+        // Then
+        assertThat(result).isTrue();
+        ArgumentCaptor<StockChangeEvent> event = ArgumentCaptor.forClass(StockChangeEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertThat(event.getValue().getDelta()).isEqualTo(-3);
+        assertThat(event.getValue().getQuantity()).isNull();
+        verify(inventoryRepository, never()).findByProductId(any());
+    }
+
+    @Test
+    void tryReserve_WhenNotEnoughStock_ShouldReturnFalse() {
+        // Given
+        when(inventoryRepository.decrementIfAvailable(1L, 3, 0)).thenReturn(0);
+
+        // When
+        boolean result = inventoryService.tryReserve(testProduct, 3);
+
+        // Then
+        assertThat(result).isFalse();
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void tryReserve_WithNonPositiveQuantity_ShouldThrowException() {
+        // When / Then
+        assertThatThrownBy(() -> inventoryService.tryReserve(testProduct, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(inventoryRepository);
+    }
+
+    @Test
+    void tryReserve_WithLedger_ShouldTakeFromMemory() {
+        // Given
+        StockLedger stockLedger = mock(StockLedger.class);
+        ReflectionTestUtils.setField(inventoryService, "stockLedger", stockLedger);
+        when(stockLedger.tryTake(1L, 3, 0)).thenReturn(7);
+
+        // When
+        boolean result = inventoryService.tryReserve(testProduct, 3);
+
+        // Then
+        assertThat(result).isTrue();
+        ArgumentCaptor<StockChangeEvent> event = ArgumentCaptor.forClass(StockChangeEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertThat(event.getValue().getQuantity()).isEqualTo(7);
+        verifyNoInteractions(inventoryRepository);
+    }
+
+    @Test
+    void tryReserve_WithLedgerInTransaction_ShouldJournalTheTakeOnlyOnCommit() {
+        // Given
+        StockLedger stockLedger = mock(StockLedger.class);
+        ReflectionTestUtils.setField(inventoryService, "stockLedger", stockLedger);
+        StockLedger.Hold hold = mock(StockLedger.Hold.class);
+        when(stockLedger.tryHold(1L, 3, 0)).thenReturn(hold);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // When
+            boolean result = inventoryService.tryReserve(testProduct, 3);
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+            // Then
+            assertThat(result).isTrue();
+            verify(stockLedger).release(hold);
+            verify(stockLedger, never()).confirm(any());
+            verify(stockLedger, never()).tryTake(anyLong(), anyInt(), anyInt());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void tryReserve_ForUser_ShouldKeepOnlyWhatOtherCartsReserved() {
+        // Given
+        when(stockReservations.reservedByOthers(5L, 1L)).thenReturn(4);
+        when(inventoryRepository.decrementIfAvailable(1L, 3, 4)).thenReturn(0);
+
+        // When
+        boolean result = inventoryService.tryReserve(testUser, testProduct, 3);
+
+        // Then
+        assertThat(result).isFalse();
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void reserveForCart_ShouldReserveAgainstStockOnHand() {
+        // Given
+        when(inventoryRepository.findQuantityByProductId(1L)).thenReturn(Optional.of(10));
+        when(stockReservations.reserve(5L, 1L, 3, 10)).thenReturn(true);
+
+        // When
+        boolean result = inventoryService.reserveForCart(testUser, testProduct, 3);
+
+        // Then
+        assertThat(result).isTrue();
+    }
+
+    @Test
+    void reserveForCart_WithoutInventory_ShouldReturnFalse() {
+        // Given
+        when(inventoryRepository.findQuantityByProductId(1L)).thenReturn(Optional.empty());
+
+        // When
+        boolean result = inventoryService.reserveForCart(testUser, testProduct, 3);
+
+        // Then
+        assertThat(result).isFalse();
+        verifyNoInteractions(stockReservations);
+    }
+
+    @Test
+    void getAvailableQuantity_ShouldReadQuantityOnceThenServeFromCache() {
+        // Given
+        when(inventoryRepository.findQuantityByProductId(1L)).thenReturn(Optional.of(10));
+
+        // When
+        Optional<Integer> first = inventoryService.getAvailableQuantity(1L);
+        Optional<Integer> second = inventoryService.getAvailableQuantity(1L);
+
+        // Then
+        assertThat(first).contains(10);
+        assertThat(second).contains(10);
+        verify(inventoryRepository, times(1)).findQuantityByProductId(1L);
+        verify(inventoryRepository, never()).findByProduct(any());
+    }
+
+    @Test
+    void getAvailableQuantity_AfterStockChange_ShouldReadAgain() {
+        // Given
+        when(inventoryRepository.findQuantityByProductId(1L)).thenReturn(Optional.of(10)).thenReturn(Optional.of(7));
+        inventoryService.getAvailableQuantity(1L);
+
+        // When
+        stockLevelCache.onStockChange(new StockChangeEvent(1L, -3, 7));
+        Optional<Integer> result = inventoryService.getAvailableQuantity(1L);
+
+        // Then
+        assertThat(result).contains(7);
+        verify(inventoryRepository, times(2)).findQuantityByProductId(1L);
+    }
+
+    @Test
+    void updateStock_ShouldLookUpInventoryByProductId() {
+        // Given
+        when(inventoryRepository.findByProductId(1L)).thenReturn(Optional.of(new Inventory(1L, testProduct, 10)));
+        when(inventoryRepository.save(any(Inventory.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        Optional<Inventory> result = inventoryService.updateStock(1L, 4);
+
+        // Then
+        assertThat(result).map(Inventory::getQuantity).contains(4);
+        ArgumentCaptor<StockChangeEvent> event = ArgumentCaptor.forClass(StockChangeEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertThat(event.getValue().getDelta()).isEqualTo(-6);
+    }
+
+    @Test
+    void tryReserve_WhenSharded_ShouldTakeFromTheShards() {
+        // Given
+        when(inventoryShards.isSharded(1L)).thenReturn(true);
+        when(inventoryShards.tryTake(1L, 3, 0)).thenReturn(true);
+
+        // When
+        boolean result = inventoryService.tryReserve(testProduct, 3);
+
+        // Then
+        assertThat(result).isTrue();
+        verify(inventoryRepository, never()).decrementIfAvailable(anyLong(), anyInt(), anyInt());
+        verify(eventPublisher).publishEvent(any(StockChangeEvent.class));
+    }
+
+    @Test
+    void getAvailableQuantity_WhenSharded_ShouldAddUpTheShards() {
+        // Given
+        when(inventoryShards.isSharded(1L)).thenReturn(true);
+        when(inventoryShards.totalQuantity(1L)).thenReturn(12);
+
+        // When
+        Optional<Integer> result = inventoryService.getAvailableQuantity(1L);
+
+        // Then
+        assertThat(result).contains(12);
+        verify(inventoryRepository, never()).findQuantityByProductId(any());
+    }
+
+    @Test
+    void enableSharding_WithLedger_ShouldThrowException() {
+        // Given
+        ReflectionTestUtils.setField(inventoryService, "stockLedger", mock(StockLedger.class));
+
+        // When / Then
+        assertThatThrownBy(() -> inventoryService.enableSharding(1L, 4))
+                .isInstanceOf(IllegalStateException.class);
+        verifyNoInteractions(inventoryShards);
+    }
+
+    @Test
+    void scrollStockLevels_WhenMoreRowsExist_ShouldSeekPastLastProduct() {
+        // Given
+        when(inventoryRepository.scrollStockLevels(Long.MIN_VALUE, null, 10, Limit.of(3)))
+                .thenReturn(List.of(new StockLevel(2L, 4), new StockLevel(5L, 0), new StockLevel(9L, 7)));
+        when(inventoryRepository.scrollStockLevels(5L, null, 10, Limit.of(3)))
+                .thenReturn(List.of(new StockLevel(9L, 7)));
+
+        // When
+        CursorPage<StockLevel> first = inventoryService.scrollStockLevels(null, 10, null, 2);
+        CursorPage<StockLevel> second = inventoryService.scrollStockLevels(null, 10, first.getNextCursor(), 2);
+
+        // Then
+        assertThat(first.getContent()).extracting(StockLevel::getProductId).containsExactly(2L, 5L);
+        assertThat(first.isHasNext()).isTrue();
+        assertThat(second.getContent()).extracting(StockLevel::getProductId).containsExactly(9L);
+        assertThat(second.getNextCursor()).isNull();
+        verify(inventoryRepository, never()).findAll();
+    }
+
+    @Test
+    void scrollStockLevels_WithLedger_ShouldShowCurrentLevels() {
+        // Given
+        StockLedger stockLedger = mock(StockLedger.class);
+        ReflectionTestUtils.setField(inventoryService, "stockLedger", stockLedger);
+        when(inventoryRepository.scrollStockLevels(Long.MIN_VALUE, null, null, Limit.of(11)))
+                .thenReturn(List.of(new StockLevel(1L, 8), new StockLevel(2L, 3)));
+        when(stockLedger.peek(1L)).thenReturn(6);
+        when(stockLedger.peek(2L)).thenReturn(null);
+
+        // When
+        CursorPage<StockLevel> result = inventoryService.scrollStockLevels(null, null, null, 10);
+
+        // Then
+        assertThat(result.getContent()).extracting(StockLevel::getQuantity).containsExactly(6, 3);
+    }
+
+    @Test
+    void scrollStockLevels_WithLedger_ShouldLeaveOutLevelsNowOutsideTheBounds() {
+        // Given
+        StockLedger stockLedger = mock(StockLedger.class);
+        ReflectionTestUtils.setField(inventoryService, "stockLedger", stockLedger);
+        when(inventoryRepository.scrollStockLevels(Long.MIN_VALUE, 5, 10, Limit.of(3)))
+                .thenReturn(List.of(new StockLevel(1L, 8), new StockLevel(2L, 6), new StockLevel(3L, 9)));
+        when(stockLedger.peek(1L)).thenReturn(12);
+        when(stockLedger.peek(2L)).thenReturn(4);
+
+        // When
+        CursorPage<StockLevel> result = inventoryService.scrollStockLevels(5, 10, null, 2);
+
+        // Then
+        assertThat(result.getContent()).isEmpty();
+        assertThat(result.isHasNext()).isTrue();
+        assertThat(ProductCursor.decode(result.getNextCursor(), ProductCursor.SortKey.ID, false).getLastId()).isEqualTo(2L);
+    }
+
+    @Test
+    void scrollStockLevels_WithOutOfRangeSize_ShouldThrowException() {
+        // When / Then
+        assertThatThrownBy(() -> inventoryService.scrollStockLevels(null, null, null, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> inventoryService.scrollStockLevels(null, null, null, InventoryService.MAX_PAGE_SIZE + 1))
+                .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(inventoryRepository);
+    }
+}
@@ -1,20 +1,38 @@
 package com.cleartrip.ecommerce_management_project.service;
 
 import com.cleartrip.ecommerce_management_project.model.Product;
+import com.cleartrip.ecommerce_management_project.cache.ProductCache;
+import com.cleartrip.ecommerce_management_project.catalog.CatalogColumns;
+import com.cleartrip.ecommerce_management_project.catalog.FacetIndex;
+import com.cleartrip.ecommerce_management_project.catalog.PriceIndex;
+import com.cleartrip.ecommerce_management_project.dto.CatalogRow;
+import com.cleartrip.ecommerce_management_project.dto.CursorPage;
+import com.cleartrip.ecommerce_management_project.dto.ProductSuggestion;
+import com.cleartrip.ecommerce_management_project.dto.FacetCounts;
+import com.cleartrip.ecommerce_management_project.dto.ProductSummary;
+import com.cleartrip.ecommerce_management_project.event.ProductChangeEvent;
 import com.cleartrip.ecommerce_management_project.repository.ProductRepository;
+import com.cleartrip.ecommerce_management_project.search.ProductAutocomplete;
+import com.cleartrip.ecommerce_management_project.search.ProductSearchIndex;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.*;
 
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.LongStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
@@ -24,6 +42,30 @@ public class ProductServiceTest {
     @Mock
     private ProductRepository productRepository;
 
+    @Mock
+    private ProductSearchIndex productSearchIndex;
+
+    @Mock
+    private ProductAutocomplete productAutocomplete;
+
+    @Mock
+    private FacetIndex facetIndex;
+
+    @Mock
+    private CatalogColumns catalogColumns;
+
+    @Mock
+    private PriceIndex priceIndex;
+
+    @Mock
+    private CatalogLoader catalogLoader;
+
+    @Spy
+    private ProductCache productCache = new ProductCache(100, Duration.ofMinutes(10));
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private ProductService productService;
 
@@ -60,6 +102,7 @@ public class ProductServiceTest {
         assertThat(result.getId()).isEqualTo(1L);
         assertThat(result.getName()).isEqualTo("Test Product");
         verify(productRepository, times(1)).save(testProduct);
+        verify(eventPublisher, times(1)).publishEvent(any(ProductChangeEvent.class));
     }
 
     @Test
@@ -77,6 +120,32 @@ public class ProductServiceTest {
         verify(productRepository, times(1)).findById(1L);
     }
 
+    @Test
+    void getProductById_WhenCalledTwice_ShouldServeSecondCallFromCache() {
+        // Given
+        when(productRepository.findById(1L)).thenReturn(Optional.of(testProduct));
+
+        // When
+        productService.getProductById(1L);
+        Optional<Product> result = productService.getProductById(1L);
+
+        // Then
+        assertThat(result).contains(testProduct);
+        assertThat(productService.getCacheStats().getHits()).isEqualTo(1);
+        verify(productRepository, times(1)).findById(1L);
+        verify(productAutocomplete, never()).recordView(anyLong());
+    }
+
+    @Test
+    void recordView_ShouldRankTheProductInTheAutocomplete() {
+        // When
+        productService.recordView(1L);
+
+        // Then
+        verify(productAutocomplete, times(1)).recordView(1L);
+        verifyNoInteractions(productRepository);
+    }
+
     @Test
     void getProductById_WhenProductDoesNotExist_ShouldReturnEmpty() {
         // Given
@@ -197,11 +266,10 @@ public class ProductServiceTest {
     @Test
     void filterProducts_WithAllParameters_ShouldReturnFilteredProducts() {
         // Given
-        List<Product> products = Arrays.asList(testProduct);
-        Page<Product> productPage = new PageImpl<>(products);
-        when(productRepository.findByCategoryAndPriceBetween(
-                eq("Electronics"), eq(50.0), eq(150.0), any(Pageable.class)))
-                .thenReturn(productPage);
+        when(catalogLoader.isLoaded()).thenReturn(true);
+        when(priceIndex.range("Electronics", 50.0, 150.0, false, 0, 10)).thenReturn(Arrays.asList(1L));
+        when(priceIndex.count("Electronics", 50.0, 150.0)).thenReturn(1);
+        when(productRepository.findAllById(Arrays.asList(1L))).thenReturn(Arrays.asList(testProduct));
 
         // When
         Page<Product> result = productService.filterProducts("Electronics", 50.0, 150.0, 0, 10);
@@ -209,8 +277,9 @@ public class ProductServiceTest {
         // Then
         assertThat(result.getContent()).hasSize(1);
         assertThat(result.getContent().get(0).getCategory()).isEqualTo("Electronics");
-        verify(productRepository, times(1)).findByCategoryAndPriceBetween(
-                eq("Electronics"), eq(50.0), eq(150.0), any(Pageable.class));
+        assertThat(result.getTotalElements()).isEqualTo(1);
+        verify(productRepository, never()).findByCategoryAndPriceBetween(
+                anyString(), anyDouble(), anyDouble(), any(Pageable.class));
     }
 
     @Test
@@ -233,17 +302,32 @@ public class ProductServiceTest {
     @Test
     void filterProducts_WithPriceRangeOnly_ShouldReturnFilteredProducts() {
         // Given
-        List<Product> products = Arrays.asList(testProduct);
-        Page<Product> productPage = new PageImpl<>(products);
-        when(productRepository.findByPriceBetween(eq(50.0), eq(150.0), any(Pageable.class)))
-                .thenReturn(productPage);
+        when(catalogLoader.isLoaded()).thenReturn(true);
+        when(priceIndex.range(null, 50.0, 150.0, false, 10, 10)).thenReturn(Arrays.asList(1L));
+        when(priceIndex.count(null, 50.0, 150.0)).thenReturn(11);
+        when(productRepository.findAllById(Arrays.asList(1L))).thenReturn(Arrays.asList(testProduct));
 
         // When
-        Page<Product> result = productService.filterProducts(null, 50.0, 150.0, 0, 10);
+        Page<Product> result = productService.filterProducts(null, 50.0, 150.0, 1, 10);
 
         // Then
         assertThat(result.getContent()).hasSize(1);
-        verify(productRepository, times(1)).findByPriceBetween(eq(50.0), eq(150.0), any(Pageable.class));
+        assertThat(result.getTotalElements()).isEqualTo(11);
+        verify(productRepository, never()).findByPriceBetween(anyDouble(), anyDouble(), any(Pageable.class));
+    }
+
+    @Test
+    void filterProducts_WithPriceRangeBeforeCatalogIsLoaded_ShouldPageThroughTheTable() {
+        // Given
+        when(productRepository.findByPriceBetween(50.0, 150.0, PageRequest.of(1, 10, Sort.by("price", "id"))))
+                .thenReturn(new PageImpl<>(Arrays.asList(testProduct)));
+
+        // When
+        Page<Product> result = productService.filterProducts(null, 50.0, 150.0, 1, 10);
+
+        // Then
+        assertThat(result.getContent()).containsExactly(testProduct);
+        verifyNoInteractions(priceIndex);
     }
 
     @Test
@@ -264,8 +348,9 @@ public class ProductServiceTest {
     @Test
     void sortProducts_ByPriceAscending_ShouldReturnSortedProducts() {
         // Given
-        List<Product> products = Arrays.asList(testProduct2, testProduct); // Sorted by price ascending
-        when(productRepository.findAll(any(Sort.class))).thenReturn(products);
+        when(catalogLoader.isLoaded()).thenReturn(true);
+        when(priceIndex.range(null, null, null, false, 0, Integer.MAX_VALUE)).thenReturn(Arrays.asList(2L, 1L)); // Sorted by price ascending
+        when(productRepository.findAllById(Arrays.asList(2L, 1L))).thenReturn(Arrays.asList(testProduct, testProduct2));
 
         // When
         List<Product> result = productService.sortProducts("asc");
@@ -274,14 +359,15 @@ public class ProductServiceTest {
         assertThat(result).hasSize(2);
         assertThat(result.get(0).getPrice()).isEqualTo(49.99);
         assertThat(result.get(1).getPrice()).isEqualTo(99.99);
-        verify(productRepository, times(1)).findAll(Sort.by(Sort.Direction.ASC, "price"));
+        verify(productRepository, never()).findAll(any(Sort.class));
     }
 
     @Test
     void sortProducts_ByPriceDescending_ShouldReturnSortedProducts() {
         // Given
-        List<Product> products = Arrays.asList(testProduct, testProduct2); // Sorted by price descending
-        when(productRepository.findAll(any(Sort.class))).thenReturn(products);
+        when(catalogLoader.isLoaded()).thenReturn(true);
+        when(priceIndex.range(null, null, null, true, 0, Integer.MAX_VALUE)).thenReturn(Arrays.asList(1L, 2L)); // Sorted by price descending
+        when(productRepository.findAllById(Arrays.asList(1L, 2L))).thenReturn(Arrays.asList(testProduct2, testProduct));
 
         // When
         List<Product> result = productService.sortProducts("desc");
@@ -290,20 +376,254 @@ public class ProductServiceTest {
         assertThat(result).hasSize(2);
         assertThat(result.get(0).getPrice()).isEqualTo(99.99);
         assertThat(result.get(1).getPrice()).isEqualTo(49.99);
-        verify(productRepository, times(1)).findAll(Sort.by(Sort.Direction.DESC, "price"));
+        verify(productRepository, never()).findAll(any(Sort.class));
     }
 
     @Test
     void sortProducts_WithInvalidOrder_ShouldDefaultToAscending() {
         // Given
-        List<Product> products = Arrays.asList(testProduct2, testProduct); // Sorted by price ascending
-        when(productRepository.findAll(any(Sort.class))).thenReturn(products);
+        when(catalogLoader.isLoaded()).thenReturn(true);
+        when(priceIndex.range(null, null, null, false, 0, Integer.MAX_VALUE)).thenReturn(Arrays.asList(2L, 1L)); // Sorted by price ascending
+        when(productRepository.findAllById(Arrays.asList(2L, 1L))).thenReturn(Arrays.asList(testProduct, testProduct2));
 
         // When
         List<Product> result = productService.sortProducts("invalid");
 
         // Then
-        assertThat(result).hasSize(2);
-        verify(productRepository, times(1)).findAll(Sort.by(Sort.Direction.ASC, "price"));
+        assertThat(result).extracting(Product::getId).containsExactly(2L, 1L);
+    }
+
+    @Test
+    void sortProducts_BeforeCatalogIsLoaded_ShouldSortInTheQuery() {
+        // Given
+        when(productRepository.findAll(Sort.by(Sort.Direction.DESC, "price", "id")))
+                .thenReturn(Arrays.asList(testProduct, testProduct2));
+
+        // When
+        List<Product> result = productService.sortProducts("desc");
+
+        // Then
+        assertThat(result).extracting(Product::getId).containsExactly(1L, 2L);
+        verifyNoInteractions(priceIndex);
+    }
+
+    @Test
+    void topProductsByPrice_ShouldLoadIndexedIdsInPriceOrder() {
+        // Given
+        when(catalogLoader.isLoaded()).thenReturn(true);
+        when(priceIndex.top("Electronics", true, 2)).thenReturn(Arrays.asList(1L, 2L));
+        when(productRepository.findAllById(Arrays.asList(1L, 2L))).thenReturn(Arrays.asList(testProduct2, testProduct));
+
+        // When
+        List<Product> result = productService.topProductsByPrice("Electronics", "desc", 2);
+
+        // Then
+        assertThat(result).extracting(Product::getId).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void getProductsByIds_ShouldServeCachedProductsAndLoadTheRestWithOneQuery() {
+        // Given
+        productCache.put(testProduct);
+        when(productRepository.findAllById(Arrays.asList(2L, 99L))).thenReturn(Arrays.asList(testProduct2));
+
+        // When
+        List<Product> result = productService.getProductsByIds(Arrays.asList(2L, 1L, 99L, 2L));
+
+        // Then
+        assertThat(result).extracting(Product::getId).containsExactly(2L, 1L, 2L);
+        assertThat(productCache.getIfPresent(2L)).contains(testProduct2);
+        verify(productRepository, times(1)).findAllById(any());
+        verify(productRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    void getProductsByIds_WithTooManyIds_ShouldThrowException() {
+        // Given
+        List<Long> ids = LongStream.rangeClosed(1, ProductService.MAX_BATCH_SIZE + 1).boxed().toList();
+
+        // When & Then
+        assertThatThrownBy(() -> productService.getProductsByIds(ids))
+                .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(productRepository);
+    }
+
+    @Test
+    void searchProducts_ShouldReturnIndexedProductsInIndexOrder() {
+        // Given
+        when(catalogLoader.isLoaded()).thenReturn(true);
+        when(productSearchIndex.search("product")).thenReturn(Arrays.asList(2L, 1L));
+        when(productRepository.findAllById(Arrays.asList(2L, 1L))).thenReturn(Arrays.asList(testProduct, testProduct2));
+
+        // When
+        Page<Product> result = productService.searchProducts("product", 0, 10);
+
+        // Then
+        assertThat(result.getTotalElements()).isEqualTo(2);
+        assertThat(result.getContent()).extracting(Product::getId).containsExactly(2L, 1L);
+        verify(productRepository, never()).findByNameContainingIgnoreCase(anyString());
+    }
+
+    @Test
+    void fuzzySearchProducts_ShouldReturnFuzzyMatchesInIndexOrder() {
+        // Given
+        when(catalogLoader.isLoaded()).thenReturn(true);
+        when(productSearchIndex.fuzzySearch("prodcut", 2)).thenReturn(Arrays.asList(2L, 1L));
+        when(productRepository.findAllById(Arrays.asList(2L, 1L))).thenReturn(Arrays.asList(testProduct, testProduct2));
+
+        // When
+        Page<Product> result = productService.fuzzySearchProducts("prodcut", 2, 0, 10);
+
+        // Then
+        assertThat(result.getContent()).extracting(Product::getId).containsExactly(2L, 1L);
+        verify(productSearchIndex, never()).search(anyString());
+    }
+
+    @Test
+    void getFacets_BeforeCatalogIsLoaded_ShouldCountTheTable() {
+        // Given
+        List<Object[]> grouped = List.<Object[]>of(new Object[]{"Electronics", 99.99, 2L});
+        FacetCounts counts = new FacetCounts(Map.of("Electronics", 2L), List.of(), 2);
+        when(productRepository.countByCategoryAndPrice()).thenReturn(grouped);
+        when(facetIndex.facetsOf(grouped, "Electronics", null, null)).thenReturn(counts);
+
+        // When
+        FacetCounts result = productService.getFacets("Electronics", null, null);
+
+        // Then
+        assertThat(result).isSameAs(counts);
+        verify(facetIndex, never()).facets(any(), any(), any());
+    }
+
+    @Test
+    void queryCatalog_BeforeCatalogIsLoaded_ShouldPageTheTableInPriceOrder() {
+        // Given
+        PageRequest pageRequest = PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "price", "id"));
+        Page<CatalogRow> rows = new PageImpl<>(List.of(new CatalogRow(1L, "Electronics", 99.99)), pageRequest, 1);
+        when(productRepository.findCatalogRows("Electronics", null, 100.0, pageRequest)).thenReturn(rows);
+
+        // When
+        Page<CatalogRow> result = productService.queryCatalog("Electronics", null, 100.0, "desc", 0, 10);
+
+        // Then
+        assertThat(result).isSameAs(rows);
+        verifyNoInteractions(catalogColumns);
+    }
+
+    @Test
+    void autocomplete_BeforeCatalogIsLoaded_ShouldMatchNamesInTheTable() {
+        // Given
+        List<ProductSuggestion> suggestions = List.of(new ProductSuggestion(1L, "Apple iPhone 15"));
+        when(productAutocomplete.topK()).thenReturn(10);
+        when(productRepository.findSuggestions("apple i", Limit.of(5))).thenReturn(suggestions);
+
+        // When
+        List<ProductSuggestion> result = productService.autocomplete("Apple  I", 5);
+
+        // Then
+        assertThat(result).isEqualTo(suggestions);
+        verify(productAutocomplete, never()).complete(anyString(), anyInt());
+    }
+
+    @Test
+    void searchProducts_BeforeCatalogIsLoaded_ShouldSearchTheTable() {
+        // Given
+        PageRequest pageRequest = PageRequest.of(0, 10, Sort.by("id"));
+        when(productRepository.findByNameContainingIgnoreCase("product", pageRequest))
+                .thenReturn(new PageImpl<>(Arrays.asList(testProduct, testProduct2), pageRequest, 2));
+
+        // When
+        Page<Product> result = productService.searchProducts(" product ", 0, 10);
+
+        // Then
+        assertThat(result.getContent()).extracting(Product::getId).containsExactly(1L, 2L);
+        verifyNoInteractions(productSearchIndex);
+    }
+
+    @Test
+    void fuzzySearchProducts_BeforeCatalogIsLoaded_WithoutTokens_ShouldReturnEmptyPage() {
+        // When
+        Page<Product> result = productService.fuzzySearchProducts("  -- ", 2, 0, 10);
+
+        // Then
+        assertThat(result.getContent()).isEmpty();
+        verifyNoInteractions(productSearchIndex, productRepository);
+    }
+
+    @Test
+    void searchProducts_WhenPageIsPastTheMatches_ShouldReturnEmptyPage() {
+        // Given
+        when(catalogLoader.isLoaded()).thenReturn(true);
+        when(productSearchIndex.search("product")).thenReturn(Arrays.asList(1L, 2L));
+
+        // When
+        Page<Product> result = productService.searchProducts("product", 3, 10);
+
+        // Then
+        assertThat(result.getContent()).isEmpty();
+        assertThat(result.getTotalElements()).isEqualTo(2);
+        verify(productRepository, never()).findAllById(any());
+    }
+
+    @Test
+    void scrollProducts_WhenMoreRowsExist_ShouldReturnNextCursor() {
+        // Given
+        when(productRepository.scrollByPriceAsc(eq("Electronics"), isNull(), isNull(),
+                eq(-Double.MAX_VALUE), eq(Long.MIN_VALUE), eq(Limit.of(2))))
+                .thenReturn(Arrays.asList(testProduct2, testProduct));
+
+        // When
+        CursorPage<Product> result = productService.scrollProducts("Electronics", null, null, "price", "asc", null, 1);
+
+        // Then
+        assertThat(result.getContent()).extracting(Product::getId).containsExactly(2L);
+        assertThat(result.isHasNext()).isTrue();
+        assertThat(result.getNextCursor()).isNotNull();
+        verify(productRepository, never()).count();
+    }
+
+    @Test
+    void scrollProducts_WithCursor_ShouldSeekPastLastRow() {
+        // Given
+        String cursor = ProductCursor.start(ProductCursor.SortKey.PRICE, false).after(testProduct2).encode();
+        when(productRepository.scrollByPriceAsc(isNull(), isNull(), isNull(), eq(49.99), eq(2L), eq(Limit.of(11))))
+                .thenReturn(Arrays.asList(testProduct));
+
+        // When
+        CursorPage<Product> result = productService.scrollProducts(null, null, null, "price", "asc", cursor, 10);
+
+        // Then
+        assertThat(result.getContent()).extracting(Product::getId).containsExactly(1L);
+        assertThat(result.isHasNext()).isFalse();
+        assertThat(result.getNextCursor()).isNull();
+    }
+
+    @Test
+    void scrollProducts_WithCursorForAnotherOrder_ShouldBeRejected() {
+        // Given
+        String cursor = ProductCursor.start(ProductCursor.SortKey.ID, false).after(testProduct).encode();
+
+        // When / Then
+        assertThatThrownBy(() -> productService.scrollProducts(null, null, null, "price", "desc", cursor, 10))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> productService.scrollProducts(null, null, null, "id", "asc", "not-a-cursor", 10))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void getProductSummaries_WithOrder_ShouldSortByPriceInTheQuery() {
+        // Given
+        ProductSummary summary = new ProductSummary(1L, "Test Product", 99.99, "Electronics", true);
+        when(productRepository.findSummaries(eq("Electronics"), isNull(), isNull(), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(Arrays.asList(summary)));
+
+        // When
+        Page<ProductSummary> result = productService.getProductSummaries("Electronics", null, null, "desc", 0, 10);
+
+        // Then
+        assertThat(result.getContent()).containsExactly(summary);
+        verify(productRepository, times(1)).findSummaries(eq("Electronics"), isNull(), isNull(),
+                eq(PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "price"))));
+        verify(productRepository, never()).findByCategory(anyString(), any(Pageable.class));
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,201 @@
+package com.cleartrip.ecommerce_management_project.service;
+
+import com.cleartrip.ecommerce_management_project.dto.StockAdjustment;
+import com.cleartrip.ecommerce_management_project.dto.StockAdjustment.Type;
+import com.cleartrip.ecommerce_management_project.dto.StockAdjustmentResult;
+import com.cleartrip.ecommerce_management_project.dto.StockAdjustmentResult.Status;
+import com.cleartrip.ecommerce_management_project.event.StockChangeEvent;
+import com.cleartrip.ecommerce_management_project.inventory.InventoryShards;
+import com.cleartrip.ecommerce_management_project.inventory.StockLedger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class StockAdjustmentServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private InventoryShards inventoryShards;
+
+    @InjectMocks
+    private StockAdjustmentService stockAdjustmentService;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    }
+
+    @Test
+    void adjust_ShouldFoldLinesPerProductAndWriteThemInOneBatch() throws Exception {
+        // Given
+        stockLevels(Map.of(1L, 10, 2L, 5));
+        List<StockAdjustment> adjustments = List.of(
+                new StockAdjustment(1L, Type.DELTA, -3),
+                new StockAdjustment(2L, Type.SET, 20),
+                new StockAdjustment(1L, Type.DELTA, 1),
+                new StockAdjustment(2L, Type.DELTA, -2));
+
+        // When
+        StockAdjustmentResult result = stockAdjustmentService.adjust(adjustments);
+
+        // Then
+        assertThat(result.getApplied()).isEqualTo(2);
+        assertThat(result.getResults()).extracting(StockAdjustmentResult.SkuResult::getQuantity).containsExactly(8, 18);
+        assertThat(writtenLevels()).containsExactly(Map.entry(1L, 8), Map.entry(2L, 18));
+        verify(eventPublisher, times(2)).publishEvent(any(StockChangeEvent.class));
+    }
+
+    @Test
+    void adjust_ShouldReportMissingInsufficientAndInvalidLines() throws Exception {
+        // Given
+        stockLevels(Map.of(1L, 2));
+        List<StockAdjustment> adjustments = List.of(
+                new StockAdjustment(1L, Type.DELTA, -3),
+                new StockAdjustment(9L, Type.SET, 4),
+                new StockAdjustment(3L, Type.SET, -1),
+                new StockAdjustment(null, Type.DELTA, 1));
+
+        // When
+        StockAdjustmentResult result = stockAdjustmentService.adjust(adjustments);
+
+        // Then
+        assertThat(result.getApplied()).isZero();
+        assertThat(result.getFailed()).isEqualTo(4);
+        assertThat(result.getResults()).extracting(StockAdjustmentResult.SkuResult::getStatus)
+                .containsExactly(Status.INSUFFICIENT_STOCK, Status.NOT_FOUND, Status.INVALID, Status.INVALID);
+        assertThat(result.getResults().get(0).getQuantity()).isEqualTo(2);
+        assertThat(writtenLevels()).isEmpty();
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void adjust_WhenFoldedDeltasPassTheIntRange_ShouldRejectInsteadOfWrapping() throws Exception {
+        // Given
+        stockLevels(Map.of(1L, 10));
+        List<StockAdjustment> adjustments = List.of(
+                new StockAdjustment(1L, Type.DELTA, Integer.MAX_VALUE),
+                new StockAdjustment(1L, Type.DELTA, Integer.MAX_VALUE),
+                new StockAdjustment(1L, Type.DELTA, 7));
+
+        // When
+        StockAdjustmentResult result = stockAdjustmentService.adjust(adjustments);
+
+        // Then
+        assertThat(result.getResults()).singleElement().satisfies(skuResult -> {
+            assertThat(skuResult.getStatus()).isEqualTo(Status.INSUFFICIENT_STOCK);
+            assertThat(skuResult.getQuantity()).isEqualTo(10);
+        });
+        assertThat(writtenLevels()).isEmpty();
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void adjust_WithLedger_ShouldPassTheFoldedDeltaUnwrapped() {
+        // Given
+        StockLedger stockLedger = mock(StockLedger.class);
+        ReflectionTestUtils.setField(stockAdjustmentService, "stockLedger", stockLedger);
+        when(stockLedger.applyAll(List.of(new StockLedger.Change(1L, false, 2L * Integer.MAX_VALUE))))
+                .thenReturn(List.of(10));
+
+        // When
+        StockAdjustmentResult result = stockAdjustmentService.adjust(List.of(
+                new StockAdjustment(1L, Type.DELTA, Integer.MAX_VALUE),
+                new StockAdjustment(1L, Type.DELTA, Integer.MAX_VALUE)));
+
+        // Then
+        assertThat(result.getResults()).extracting(StockAdjustmentResult.SkuResult::getStatus)
+                .containsExactly(Status.INSUFFICIENT_STOCK);
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void adjust_WithLedger_ShouldApplyThroughIt() {
+        // Given
+        StockLedger stockLedger = mock(StockLedger.class);
+        ReflectionTestUtils.setField(stockAdjustmentService, "stockLedger", stockLedger);
+        when(stockLedger.applyAll(List.of(new StockLedger.Change(1L, false, -3), new StockLedger.Change(2L, true, 7))))
+                .thenReturn(Arrays.asList(10, null));
+
+        // When
+        StockAdjustmentResult result = stockAdjustmentService.adjust(List.of(
+                new StockAdjustment(1L, Type.DELTA, -3),
+                new StockAdjustment(2L, Type.SET, 7)));
+
+        // Then
+        assertThat(result.getResults()).extracting(StockAdjustmentResult.SkuResult::getStatus)
+                .containsExactly(Status.APPLIED, Status.NOT_FOUND);
+        assertThat(result.getResults().get(0).getQuantity()).isEqualTo(7);
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void adjust_WithTooManyLines_ShouldThrowException() {
+        // Given
+        ReflectionTestUtils.setField(stockAdjustmentService, "maxAdjustments", 1);
+
+        // When / Then
+        assertThatThrownBy(() -> stockAdjustmentService.adjust(List.of(
+                new StockAdjustment(1L, Type.DELTA, 1),
+                new StockAdjustment(2L, Type.DELTA, 1))))
+                .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    // answering the locking read with the given stock levels
+    private void stockLevels(Map<Long, Integer> levels) throws Exception {
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            Object[] arguments = invocation.getArguments();
+            for (int i = 2; i < arguments.length; i++) {
+                Long productId = (Long) arguments[i];
+                if (levels.containsKey(productId)) {
+                    ResultSet row = mock(ResultSet.class);
+                    when(row.getLong(1)).thenReturn(productId);
+                    when(row.getInt(2)).thenReturn(levels.get(productId));
+                    handler.processRow(row);
+                }
+            }
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), any(Object[].class));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Map.Entry<Long, Integer>> writtenLevels() {
+        ArgumentCaptor<Collection<Map.Entry<Long, Integer>>> writes = ArgumentCaptor.forClass(Collection.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), writes.capture(), anyInt(), any(ParameterizedPreparedStatementSetter.class));
+        return new ArrayList<>(writes.getValue());
+    }
+}
@@ -0,0 +1,111 @@
+package com.cleartrip.ecommerce_management_project.service;
+
+import com.cleartrip.ecommerce_management_project.dto.StockLevel;
+import com.cleartrip.ecommerce_management_project.inventory.StockLedger;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class StockExportServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void exportNdjson_ShouldWriteOneParsableLevelPerLine() throws Exception {
+        // Given
+        StockExportService stockExportService = new StockExportService(jdbcTemplate, objectMapper, Optional.empty());
+        rows(row(1L, 5), row(2L, 0));
+
+        // When
+        String exported = export(stockExportService, null, null);
+
+        // Then
+        assertThat(exported).doesNotEndWith("\n");
+        assertThat(parse(exported)).extracting(StockLevel::getProductId, StockLevel::getQuantity)
+                .containsExactly(tuple(1L, 5), tuple(2L, 0));
+    }
+
+    @Test
+    void exportNdjson_WithNoLevels_ShouldWriteNothing() throws Exception {
+        // Given
+        StockExportService stockExportService = new StockExportService(jdbcTemplate, objectMapper, Optional.empty());
+        rows();
+
+        // When
+        String exported = export(stockExportService, 1, null);
+
+        // Then
+        assertThat(exported).isEmpty();
+        verify(jdbcTemplate).query(endsWith("WHERE quantity >= ? ORDER BY product_id"), any(RowCallbackHandler.class), eq(1));
+    }
+
+    @Test
+    void exportNdjson_WithLedger_ShouldApplyTheBoundsToTheCurrentLevels() throws Exception {
+        // Given
+        StockLedger stockLedger = mock(StockLedger.class);
+        when(stockLedger.peek(1L)).thenReturn(12);
+        when(stockLedger.peek(2L)).thenReturn(7);
+        StockExportService stockExportService = new StockExportService(jdbcTemplate, objectMapper, Optional.of(stockLedger));
+        rows(row(1L, 8), row(2L, 9));
+
+        // When
+        String exported = export(stockExportService, 5, 10);
+
+        // Then
+        assertThat(parse(exported)).extracting(StockLevel::getProductId, StockLevel::getQuantity)
+                .containsExactly(tuple(2L, 7));
+    }
+
+    private void rows(ResultSet... rows) {
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (ResultSet row : rows) {
+                handler.processRow(row);
+            }
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), any(Object[].class));
+    }
+
+    private static ResultSet row(long productId, int quantity) throws SQLException {
+        ResultSet row = mock(ResultSet.class);
+        when(row.getLong("product_id")).thenReturn(productId);
+        lenient().when(row.getInt("quantity")).thenReturn(quantity);
+        return row;
+    }
+
+    private static String export(StockExportService stockExportService, Integer min, Integer max) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        stockExportService.exportNdjson(output, min, max);
+        return output.toString(StandardCharsets.UTF_8);
+    }
+
+    private List<StockLevel> parse(String exported) throws IOException {
+        List<StockLevel> levels = new ArrayList<>();
+        for (String line : exported.split("\n", -1)) {
+            levels.add(objectMapper.readValue(line, StockLevel.class));
+        }
+        return levels;
+    }
+}